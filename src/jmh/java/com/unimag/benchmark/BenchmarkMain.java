@@ -0,0 +1,27 @@
+package com.unimag.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Punto de entrada de target/benchmarks.jar: el mismo de JMH, pero si no se
+ * indica -rf los resultados se guardan en JSON (jmh-result.json en el
+ * directorio actual, o el archivo dado con -rff) para procesarlos después.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        if (!options.contains("-rf") && !options.contains("-h") && !options.contains("-l")) {
+            String[] withFormat = new String[args.length + 2];
+            withFormat[0] = "-rf";
+            withFormat[1] = "json";
+            System.arraycopy(args, 0, withFormat, 2, args.length);
+            args = withFormat;
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,97 @@
+package com.unimag.benchmark;
+
+import com.unimag.catalog.CatalogEntry;
+import com.unimag.catalog.ExpressionCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranque con un catálogo de 50 000 expresiones aleatorias: analizarlas y
+ * optimizarlas desde el texto frente a cargarlas de un ExpressionCatalog
+ * binario, entrada por entrada (open + get) o en paralelo (loadAll).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CatalogBenchmark {
+    private static final int EXPRESSIONS = 50_000;
+    private static final String[] VARIABLES = {"x", "y", "z", "t"};
+    private static final String[] UNARY = {"sin", "cos", "tan", "sqrt", "exp", "log", "abs", "atan", "tanh"};
+    private static final String[] BINARY = {"atan2", "min", "max"};
+    private static final String OPERATORS = "+-*/^";
+
+    private List<String> sources;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(Inputs.SEED);
+        sources = new ArrayList<>(EXPRESSIONS);
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            sources.add(randomExpression(random, 6));
+        }
+        file = Files.createTempFile("catalogo", ".tcat");
+        ExpressionCatalog.write(file, parse());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Expresión aleatoria de profundidad acotada, con todos los operadores
+     * y funciones de una y dos variables.
+     */
+    private static String randomExpression(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return switch (random.nextInt(3)) {
+                case 0 -> VARIABLES[random.nextInt(VARIABLES.length)];
+                case 1 -> Integer.toString(random.nextInt(10));
+                default -> Double.toString(random.nextInt(1000) / 100.0);
+            };
+        }
+        return switch (random.nextInt(6)) {
+            case 0 -> "-" + randomExpression(random, depth - 1);
+            case 1 -> UNARY[random.nextInt(UNARY.length)] + "(" + randomExpression(random, depth - 1) + ")";
+            case 2 -> BINARY[random.nextInt(BINARY.length)] + "(" + randomExpression(random, depth - 1)
+                    + ", " + randomExpression(random, depth - 1) + ")";
+            default -> "(" + randomExpression(random, depth - 1) + OPERATORS.charAt(random.nextInt(OPERATORS.length()))
+                    + randomExpression(random, depth - 1) + ")";
+        };
+    }
+
+    @Benchmark
+    public List<CatalogEntry> parse() {
+        List<CatalogEntry> entries = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            entries.add(CatalogEntry.optimizing(Inputs.bind(source)));
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public CatalogEntry[] open() throws IOException {
+        ExpressionCatalog catalog = ExpressionCatalog.open(file);
+        CatalogEntry[] entries = new CatalogEntry[catalog.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = catalog.get(i);
+        }
+        return entries;
+    }
+
+    @Benchmark
+    public List<CatalogEntry> loadAll() throws IOException {
+        return ExpressionCatalog.open(file).loadAll();
+    }
+}
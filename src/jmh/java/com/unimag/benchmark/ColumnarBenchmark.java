@@ -0,0 +1,84 @@
+package com.unimag.benchmark;
+
+import com.unimag.bulk.CsvPipeline;
+import com.unimag.bulk.CsvSummary;
+import com.unimag.columnar.ColumnarEvaluator;
+import com.unimag.columnar.ColumnarFile;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.VariableSlots;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La misma pasada sobre un CSV (CsvPipeline) y sobre un archivo columnar
+ * mapeado (ColumnarEvaluator), de archivo a archivo. Se mide por fila.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ColumnarBenchmark {
+    private static final String EXPRESSION = "sin(x)*y + sqrt(z)/2 - atan2(y, x)";
+    private static final int ROWS = 1 << 20;
+
+    private Path csv;
+    private Path csvOut;
+    private Path columnar;
+    private Path columnarOut;
+    private CsvPipeline pipeline;
+    private ColumnarEvaluator evaluator;
+    private ColumnarFile input;
+
+    @Setup
+    public void setup() throws IOException {
+        BoundExpression expression = BoundExpression.bind(Inputs.parse(EXPRESSION), VariableSlots.of("x", "y", "z"));
+        csv = Files.createTempFile("bench", ".csv");
+        csvOut = Files.createTempFile("bench-resultado", ".csv");
+        columnar = Files.createTempFile("bench", ".trgc");
+        columnarOut = Files.createTempFile("bench-resultado", ".trgc");
+
+        double[][] columns = new double[3][ROWS];
+        Random random = new Random(Inputs.SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("x,y,z\n");
+            for (int row = 0; row < ROWS; row++) {
+                for (int c = 0; c < 3; c++) {
+                    columns[c][row] = random.nextDouble() * 10;
+                }
+                writer.write(columns[0][row] + "," + columns[1][row] + "," + columns[2][row] + "\n");
+            }
+        }
+        input = ColumnarFile.write(columnar, List.of("x", "y", "z"), columns);
+        pipeline = new CsvPipeline(expression);
+        evaluator = new ColumnarEvaluator(expression);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(csvOut);
+        Files.deleteIfExists(columnar);
+        Files.deleteIfExists(columnarOut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public CsvSummary csv() throws IOException {
+        return pipeline.run(csv, csvOut);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ColumnarFile columnar() throws IOException {
+        return evaluator.evaluate(columnarOut, "resultado", input);
+    }
+}
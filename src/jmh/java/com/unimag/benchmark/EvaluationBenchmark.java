@@ -0,0 +1,156 @@
+package com.unimag.benchmark;
+
+import com.unimag.batch.BatchEvaluator;
+import com.unimag.compile.CompiledExpression;
+import com.unimag.compile.ExpressionCompiler;
+import com.unimag.diff.ReverseGradient;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.Evaluator;
+import com.unimag.eval.FusedTrigExpression;
+import com.unimag.eval.IncrementalContext;
+import com.unimag.vm.Linearizer;
+import com.unimag.vm.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una evaluación de cada expresión del corpus con cada backend, siempre
+ * con los mismos valores de entrada. Los lotes se miden por fila
+ * (OperationsPerInvocation) para compararlos con los demás.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+    private static final int ROWS = 4 * BatchEvaluator.BLOCK_SIZE;
+
+    @Param
+    public ExpressionShape shape;
+
+    private double[] values;
+    private Evaluator evaluator;
+    private BoundExpression bound;
+    private BoundExpression optimized;
+    private CompiledExpression compiled;
+    private CompiledExpression compiledShared;
+    private Program program;
+    private double[] stack;
+    private BatchEvaluator batch;
+    private BatchEvaluator scalarBatch;
+    private double[][] columns;
+    private double[] out;
+    private FusedTrigExpression fused;
+    private double[] fusedScratch;
+    private IncrementalContext incremental;
+    private double incrementalValue;
+    private ReverseGradient gradient;
+    private double[] gradientOut;
+    private double[] gradientScratch;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Inputs.SEED);
+        bound = Inputs.bind(shape.source());
+        values = Inputs.values(bound, random);
+
+        evaluator = new Evaluator(bound);
+        Map<String, Double> environment = new HashMap<>();
+        for (int slot = 0; slot < values.length; slot++) {
+            environment.put(bound.getSlots().name(slot), values[slot]);
+        }
+        evaluator.setVariables(environment);
+
+        optimized = bound.optimized();
+        compiled = ExpressionCompiler.compile(bound);
+        compiledShared = ExpressionCompiler.compile(bound.shared());
+        program = Linearizer.linearize(bound);
+        stack = program.newStack();
+        batch = new BatchEvaluator(bound);
+        scalarBatch = batch.scalar();
+        columns = Inputs.columns(bound, ROWS, random);
+        out = new double[ROWS];
+        fused = bound.fusedTrig();
+        fusedScratch = fused.newScratch();
+
+        incremental = bound.newIncrementalContext();
+        for (int slot = 0; slot < values.length; slot++) {
+            incremental.set(slot, values[slot]);
+        }
+        incrementalValue = values[0];
+
+        gradient = ReverseGradient.of(bound);
+        gradientOut = bound.newValues();
+        gradientScratch = gradient.newScratch();
+    }
+
+    @Benchmark
+    public double evaluator() throws Exception {
+        return evaluator.evaluate();
+    }
+
+    @Benchmark
+    public double bound() {
+        return bound.evaluate(values);
+    }
+
+    @Benchmark
+    public double optimized() {
+        return optimized.evaluate(values);
+    }
+
+    @Benchmark
+    public double compiled() {
+        return compiled.eval(values);
+    }
+
+    @Benchmark
+    public double compiledShared() {
+        return compiledShared.eval(values);
+    }
+
+    @Benchmark
+    public double program() {
+        return program.evaluate(values, stack);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] batch() {
+        batch.evaluate(columns, out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] batchScalar() {
+        scalarBatch.evaluate(columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double fusedTrig() {
+        return fused.evaluate(values, fusedScratch);
+    }
+
+    /**
+     * Cambia solo la primera variable, el caso para el que existe.
+     */
+    @Benchmark
+    public double incremental() {
+        incrementalValue = -incrementalValue;
+        incremental.set(0, incrementalValue);
+        return incremental.evaluate();
+    }
+
+    @Benchmark
+    public double reverseGradient() {
+        return gradient.evaluate(values, gradientOut, gradientScratch);
+    }
+}
@@ -0,0 +1,81 @@
+package com.unimag.benchmark;
+
+/**
+ * Corpus fijo de expresiones para los benchmarks, una por forma típica.
+ * El texto se arma una sola vez y es siempre el mismo, de modo que los
+ * resultados de distintas corridas son comparables.
+ */
+public enum ExpressionShape {
+    // Una expresión corta, como las que se escriben a mano
+    SHORT("x*2 + sin(y)/3"),
+
+    // Muchos términos al mismo nivel: árbol ancho y poco profundo
+    LONG_FLAT(flat(256)),
+
+    // Paréntesis anidados: cada nivel cuelga del anterior
+    DEEP_NESTED(nested(200)),
+
+    // Casi todo son llamadas trigonométricas, varias sobre el mismo argumento
+    TRIG_HEAVY(trig(32)),
+
+    // Una variable distinta por término
+    VARIABLE_HEAVY(variables(64));
+
+    private final String source;
+
+    ExpressionShape(String source) {
+        this.source = source;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    private static String flat(int terms) {
+        StringBuilder sb = new StringBuilder("x");
+        for (int i = 1; i < terms; i++) {
+            sb.append(i % 3 == 0 ? " - " : " + ")
+              .append(i % 2 == 0 ? "y" : "x")
+              .append('*').append(i % 7 + 1).append(".5");
+        }
+        return sb.toString();
+    }
+
+    private static String nested(int depth) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("(".repeat(depth)).append('x');
+        for (int i = 0; i < depth; i++) {
+            sb.append(i % 2 == 0 ? " + y)" : " * 0.5)");
+        }
+        return sb.toString();
+    }
+
+    private static String trig(int terms) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                sb.append(" + ");
+            }
+            String argument = switch (i % 4) {
+                case 0 -> "x";
+                case 1 -> "y";
+                case 2 -> "x*y";
+                default -> "(x + " + (i % 5) + ")";
+            };
+            sb.append(i % 2 == 0 ? "sin(" : "cos(").append(argument).append(")*")
+              .append(i % 3 == 0 ? "tan(" : "cos(").append(argument).append("/4)");
+        }
+        return sb.toString();
+    }
+
+    private static String variables(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(i % 2 == 0 ? " + " : " * ");
+            }
+            sb.append("v").append(i);
+        }
+        return sb.toString();
+    }
+}
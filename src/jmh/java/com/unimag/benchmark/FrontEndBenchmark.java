@@ -0,0 +1,83 @@
+package com.unimag.benchmark;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.Token;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.optimizer.Optimizer;
+import com.unimag.parser.OperatorPrecedenceParser;
+import com.unimag.parser.Parser;
+import com.unimag.parser.astNodes.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Análisis de las expresiones del corpus: tokenización, los dos parsers,
+ * ligado a slots y optimización, por separado y de punta a punta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrontEndBenchmark {
+
+    @Param
+    public ExpressionShape shape;
+
+    private String source;
+    private List<Token> tokens;
+    private TokenBuffer buffer;
+    private Node ast;
+
+    @Setup
+    public void setup() {
+        source = shape.source();
+        tokens = new Lexer(source).tokenize();
+        buffer = new Lexer(source).tokenize(new TokenBuffer());
+        ast = new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Token> tokenize() {
+        return new Lexer(source).tokenize();
+    }
+
+    @Benchmark
+    public TokenBuffer tokenizeIntoBuffer() {
+        return new Lexer(source).tokenize(buffer);
+    }
+
+    @Benchmark
+    public Node parse() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public Node parseFromBuffer() {
+        return new Parser(buffer).parse();
+    }
+
+    @Benchmark
+    public Node parseOperatorPrecedence() {
+        return new OperatorPrecedenceParser(tokens).parse();
+    }
+
+    @Benchmark
+    public Node lexAndParse() {
+        return new Parser(new Lexer(source).tokenize()).parse();
+    }
+
+    @Benchmark
+    public BoundExpression bind() {
+        return BoundExpression.bind(ast);
+    }
+
+    @Benchmark
+    public Node optimize() {
+        return Optimizer.optimize(ast);
+    }
+}
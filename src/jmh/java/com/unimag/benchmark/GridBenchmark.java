@@ -0,0 +1,86 @@
+package com.unimag.benchmark;
+
+import com.unimag.compile.CompiledExpression;
+import com.unimag.compile.ExpressionCompiler;
+import com.unimag.eval.BoundExpression;
+import com.unimag.grid.GridAxis;
+import com.unimag.grid.GridBuffer;
+import com.unimag.grid.GridTabulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tabulación de la expresión de IncrementalSweepBenchmark en una grilla de
+ * 100 × 100 × 400 puntos: un bucle triple secuencial con la expresión
+ * compilada frente a GridTabulator en el pool común, hacia un arreglo y
+ * hacia un GridBuffer directo. Se mide por punto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GridBenchmark {
+    private static final int POINTS = 100 * 100 * 400;
+
+    private GridAxis[] axes;
+    private CompiledExpression compiled;
+    private GridTabulator tabulator;
+    private double[] values;
+    private double[] out;
+    private GridBuffer direct;
+
+    @Setup
+    public void setup() {
+        axes = new GridAxis[]{
+            GridAxis.samples("a", 0, 2, 100),
+            GridAxis.samples("b", -2, 2, 100),
+            GridAxis.range("c", 0, 3.99, 0.01)
+        };
+        BoundExpression expression = IncrementalSweepBenchmark.expression();
+        compiled = ExpressionCompiler.compile(expression);
+        tabulator = new GridTabulator(expression, axes);
+        if (tabulator.size() != POINTS) {
+            throw new IllegalStateException("La grilla no tiene " + POINTS + " puntos: " + tabulator.size());
+        }
+        values = new double[axes.length];
+        out = new double[POINTS];
+        direct = tabulator.newDirectBuffer();
+    }
+
+    /**
+     * Referencia secuencial, en el mismo orden que GridTabulator.
+     */
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] sequential() {
+        int point = 0;
+        for (int i = 0; i < axes[0].count(); i++) {
+            values[0] = axes[0].value(i);
+            for (int j = 0; j < axes[1].count(); j++) {
+                values[1] = axes[1].value(j);
+                for (int k = 0; k < axes[2].count(); k++) {
+                    values[2] = axes[2].value(k);
+                    out[point++] = compiled.eval(values);
+                }
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] array() {
+        tabulator.tabulate(out);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public GridBuffer buffer() {
+        tabulator.tabulate(direct);
+        return direct;
+    }
+}
@@ -0,0 +1,78 @@
+package com.unimag.benchmark;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.EvaluationContext;
+import com.unimag.eval.IncrementalContext;
+import com.unimag.eval.VariableSlots;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Barrido anidado a × b × c en el que el bucle interno solo cambia c: la
+ * evaluación completa frente a la incremental, que reutiliza los subárboles
+ * de a y b. Se mide por punto del barrido.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IncrementalSweepBenchmark {
+    static final String EXPRESSION =
+            "sin(a)*exp(cos(a)/2) + atan2(b, a+2) * sqrt(abs(sin(b)*cos(a))) + log(1 + c^2) * tanh(a*b) + cosh(b/3)*c";
+
+    private static final int OUTER = 40;
+    private static final int MIDDLE = 40;
+    private static final int INNER = 400;
+    private static final int POINTS = OUTER * MIDDLE * INNER;
+
+    private EvaluationContext full;
+    private IncrementalContext incremental;
+
+    static BoundExpression expression() {
+        return BoundExpression.bind(Inputs.parse(EXPRESSION), VariableSlots.of("a", "b", "c"));
+    }
+
+    @Setup
+    public void setup() {
+        BoundExpression expression = expression();
+        full = expression.newContext();
+        incremental = expression.newIncrementalContext();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double full() {
+        double sum = 0;
+        for (int i = 0; i < OUTER; i++) {
+            full.set(0, i * 0.05);
+            for (int j = 0; j < MIDDLE; j++) {
+                full.set(1, j * 0.1 - 2);
+                for (int k = 0; k < INNER; k++) {
+                    full.set(2, k * 0.01);
+                    sum += full.evaluate();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double incremental() {
+        double sum = 0;
+        for (int i = 0; i < OUTER; i++) {
+            incremental.set(0, i * 0.05);
+            for (int j = 0; j < MIDDLE; j++) {
+                incremental.set(1, j * 0.1 - 2);
+                for (int k = 0; k < INNER; k++) {
+                    incremental.set(2, k * 0.01);
+                    sum += incremental.evaluate();
+                }
+            }
+        }
+        return sum;
+    }
+}
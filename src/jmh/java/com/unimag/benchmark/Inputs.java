@@ -0,0 +1,52 @@
+package com.unimag.benchmark;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.lexer.Lexer;
+import com.unimag.parser.Parser;
+import com.unimag.parser.astNodes.Node;
+
+import java.util.Random;
+
+/**
+ * Preparación común de los benchmarks: análisis y valores de entrada
+ * reproducibles por semilla.
+ */
+final class Inputs {
+    static final long SEED = 42;
+
+    private Inputs() {
+    }
+
+    static Node parse(String source) {
+        return new Parser(new Lexer(source).tokenize()).parse();
+    }
+
+    static BoundExpression bind(String source) {
+        return BoundExpression.bind(parse(source));
+    }
+
+    /**
+     * Un valor por slot en [0.5, 1.5): evita ceros y desbordes en productos
+     * largos como los de VARIABLE_HEAVY.
+     */
+    static double[] values(BoundExpression expression, Random random) {
+        double[] values = expression.newValues();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 0.5 + random.nextDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Columnas de rows filas por slot, para la evaluación por lotes.
+     */
+    static double[][] columns(BoundExpression expression, int rows, Random random) {
+        double[][] columns = new double[expression.getSlots().size()][rows];
+        for (double[] column : columns) {
+            for (int row = 0; row < rows; row++) {
+                column[row] = 0.5 + random.nextDouble();
+            }
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,66 @@
+package com.unimag.benchmark;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.Token;
+import com.unimag.metrics.Phase;
+import com.unimag.metrics.PipelineMetrics;
+import com.unimag.parser.Parser;
+import com.unimag.parser.astNodes.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de instrumentar lex, parse, bind y evaluate con PipelineMetrics,
+ * activadas y desactivadas, frente al mismo código sin instrumentar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private String source;
+    private PipelineMetrics metrics;
+    private double[] values;
+
+    @Setup
+    public void setup() {
+        source = ExpressionShape.SHORT.source();
+        metrics = enabled ? new PipelineMetrics() : PipelineMetrics.DISABLED;
+        values = new double[]{0.5, 1.5};
+    }
+
+    @Benchmark
+    public double uninstrumented() {
+        Node ast = new Parser(new Lexer(source).tokenize()).parse();
+        return BoundExpression.bind(ast).evaluate(values);
+    }
+
+    @Benchmark
+    public double instrumented() {
+        long start = metrics.start();
+        List<Token> tokens = new Lexer(source).tokenize();
+        metrics.stop(Phase.LEX, start);
+
+        start = metrics.start();
+        Node ast = new Parser(tokens).parse();
+        metrics.stop(Phase.PARSE, start);
+
+        start = metrics.start();
+        BoundExpression expression = BoundExpression.bind(ast);
+        metrics.stop(Phase.BIND, start);
+
+        start = metrics.start();
+        double result = expression.evaluate(values);
+        metrics.stop(Phase.EVALUATE, start);
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package com.unimag.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generador de expresiones aleatorias con un número exacto de nodos del
+ * AST, reproducible por semilla.
+ *
+ * Los nodos binarios reparten sus hijos entre un cuarto y tres cuartos del
+ * total, así que la profundidad crece como log(nodos) y hasta 10^6 nodos
+ * no se agota la pila en ninguno de los recorridos recursivos (parser,
+ * bind, evaluate, Linearizer). Las funciones son acotadas (sin, cos, atan,
+ * tanh), lo que mantiene los valores lejos del desbordamiento.
+ */
+public final class RandomExpressions {
+    public static final String[] VARIABLES = {"x", "y", "z", "w"};
+
+    private static final String[] FUNCTIONS = {"sin", "cos", "atan", "tanh"};
+    private static final char[] OPERATORS = {'+', '-', '*'};
+
+    private RandomExpressions() {
+    }
+
+    /**
+     * Expresión con exactamente nodes nodos (números, variables, llamadas
+     * y operadores binarios).
+     */
+    public static String generate(int nodes, long seed) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("Se necesita al menos un nodo: " + nodes);
+        }
+        StringBuilder sb = new StringBuilder(nodes * 6);
+        append(sb, nodes, new Random(seed));
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, int nodes, Random random) {
+        if (nodes == 1) {
+            if (random.nextBoolean()) {
+                sb.append(VARIABLES[random.nextInt(VARIABLES.length)]);
+            } else {
+                sb.append(random.nextInt(10)).append('.').append(random.nextInt(100));
+            }
+            return;
+        }
+        if (nodes == 2 || random.nextInt(3) == 0) {
+            sb.append(FUNCTIONS[random.nextInt(FUNCTIONS.length)]).append('(');
+            append(sb, nodes - 1, random);
+            sb.append(')');
+            return;
+        }
+        int children = nodes - 1;
+        int left = children / 4 + random.nextInt(children / 2 + 1);
+        left = Math.max(1, Math.min(children - 1, left));
+        sb.append('(');
+        append(sb, left, random);
+        sb.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+        append(sb, children - left, random);
+        sb.append(')');
+    }
+}
@@ -0,0 +1,98 @@
+package com.unimag.benchmark;
+
+import com.unimag.batch.BatchEvaluator;
+import com.unimag.eval.BoundExpression;
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.Token;
+import com.unimag.parser.Parser;
+import com.unimag.parser.astNodes.Node;
+import com.unimag.vm.Linearizer;
+import com.unimag.vm.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo en función del tamaño: expresiones aleatorias (RandomExpressions,
+ * semilla fija) de 10 a 10^6 nodos.
+ *
+ * El compilador a bytecode no está aquí: el método generado no puede pasar
+ * de 64 KB, lo que deja fuera las expresiones de más de unos 10^4 nodos;
+ * EvaluationBenchmark lo mide con el corpus fijo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ScalingBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int nodes;
+
+    private String source;
+    private List<Token> tokens;
+    private Node ast;
+    private BoundExpression bound;
+    private double[] values;
+    private Program program;
+    private double[] stack;
+    private BatchEvaluator batch;
+    private double[][] columns;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Inputs.SEED);
+        source = RandomExpressions.generate(nodes, Inputs.SEED);
+        tokens = new Lexer(source).tokenize();
+        ast = new Parser(tokens).parse();
+        bound = BoundExpression.bind(ast);
+        values = Inputs.values(bound, random);
+        program = Linearizer.linearize(bound);
+        stack = program.newStack();
+        batch = new BatchEvaluator(bound);
+        columns = Inputs.columns(bound, BatchEvaluator.BLOCK_SIZE, random);
+        out = new double[BatchEvaluator.BLOCK_SIZE];
+    }
+
+    @Benchmark
+    public List<Token> tokenize() {
+        return new Lexer(source).tokenize();
+    }
+
+    @Benchmark
+    public Node parse() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public BoundExpression bind() {
+        return BoundExpression.bind(ast);
+    }
+
+    @Benchmark
+    public Program linearize() {
+        return Linearizer.linearize(bound);
+    }
+
+    @Benchmark
+    public double bound() {
+        return bound.evaluate(values);
+    }
+
+    @Benchmark
+    public double program() {
+        return program.evaluate(values, stack);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BatchEvaluator.BLOCK_SIZE)
+    public double[] batch() {
+        batch.evaluate(columns, out);
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package com.unimag.benchmark;
+
+import com.unimag.compile.CompiledExpression;
+import com.unimag.compile.ExpressionCompiler;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.VariableSlots;
+import com.unimag.functions.TrigPrecision;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una expresión trigonométrica en cada modo de TrigPrecision, compilada y
+ * sobre el árbol, con argumentos en [-100, 100) para que la reducción de
+ * rango no sea trivial. Se mide por fila.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrigPrecisionBenchmark {
+    private static final String EXPRESSION = "sin(x)*cos(y) + tan(x/3)";
+    private static final int ROWS = 1 << 12;
+
+    @Param
+    public TrigPrecision precision;
+
+    private BoundExpression expression;
+    private CompiledExpression compiled;
+    private double[] xs;
+    private double[] ys;
+    private double[] values;
+
+    @Setup
+    public void setup() {
+        expression = BoundExpression.bind(Inputs.parse(EXPRESSION), VariableSlots.of("x", "y")).withPrecision(precision);
+        compiled = ExpressionCompiler.compile(expression);
+        Random random = new Random(Inputs.SEED);
+        xs = new double[ROWS];
+        ys = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            xs[i] = (random.nextDouble() * 2 - 1) * 100;
+            ys[i] = (random.nextDouble() * 2 - 1) * 100;
+        }
+        values = new double[2];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double compiled() {
+        double sum = 0;
+        for (int i = 0; i < ROWS; i++) {
+            values[0] = xs[i];
+            values[1] = ys[i];
+            sum += compiled.eval(values);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double tree() {
+        double sum = 0;
+        for (int i = 0; i < ROWS; i++) {
+            values[0] = xs[i];
+            values[1] = ys[i];
+            sum += expression.evaluate(values);
+        }
+        return sum;
+    }
+}
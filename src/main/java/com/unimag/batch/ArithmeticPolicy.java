@@ -0,0 +1,23 @@
+package com.unimag.batch;
+
+/**
+ * Qué hace la evaluación por lotes con una división por cero.
+ */
+public enum ArithmeticPolicy {
+    /**
+     * Lanza ArithmeticException, como Node.evaluate; el lote entero falla
+     * aunque solo una fila divida por cero.
+     */
+    THROW,
+
+    /**
+     * La fila que divide por cero da NaN, que se propaga por el resto de
+     * la expresión; las demás filas no cambian.
+     */
+    NAN,
+
+    /**
+     * División de IEEE 754: x/0 da ±Infinity según los signos y 0/0 da NaN.
+     */
+    INFINITY
+}
@@ -0,0 +1,247 @@
+package com.unimag.batch;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.metrics.BatchJobEvent;
+import com.unimag.parser.astNodes.Node;
+import com.unimag.vm.Linearizer;
+import com.unimag.vm.Program;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+import static com.unimag.vm.Opcodes.*;
+
+/**
+ * Evaluación por columnas: una expresión sobre muchas filas a la vez.
+ *
+ * Interpreta el Program de la expresión bloque a bloque: cada instrucción
+ * se aplica a BLOCK_SIZE filas seguidas, de modo que el costo de despacho se
+ * amortiza y los bucles internos son vectorizables. Con el módulo
+ * jdk.incubator.vector habilitado (--add-modules jdk.incubator.vector) se
+ * usan kernels SIMD; si no, kernels escalares equivalentes.
+ *
+ * Es inmutable y puede compartirse entre hilos: cada llamada reserva su
+ * propio espacio de trabajo ((maxStack + tempCount) × BLOCK_SIZE doubles),
+ * nunca por fila. Las subexpresiones compartidas de un DAG se calculan una
+ * vez por bloque y se guardan en bloques temporales.
+ *
+ * Una división por cero lanza ArithmeticException, como Node.evaluate;
+ * withArithmeticPolicy(NAN o INFINITY) la resuelve en la propia fila, de
+ * modo que una fila inválida no hace fallar al resto del lote. Para saber
+ * qué filas dividieron por cero (su resultado no siempre es NaN: (1/z)^0
+ * da 1) se pasa un arreglo de fallos a evaluate.
+ */
+public final class BatchEvaluator {
+    public static final int BLOCK_SIZE = 1024;
+
+    private static final BlockKernels DEFAULT_KERNELS = selectKernels();
+
+    private final Program program;
+    private final int slotCount;
+    private final BlockKernels kernels;
+    private final ArithmeticPolicy policy;
+    // Árbol de origen, para los eventos de JFR; null si se partió de un Program
+    private final Node source;
+
+    public BatchEvaluator(BoundExpression expression) {
+        this(Linearizer.linearize(expression), expression.getSlots().size(), DEFAULT_KERNELS,
+                ArithmeticPolicy.THROW, expression.getRoot());
+    }
+
+    public BatchEvaluator(Program program, int slotCount) {
+        this(program, slotCount, DEFAULT_KERNELS, ArithmeticPolicy.THROW, null);
+    }
+
+    private BatchEvaluator(Program program, int slotCount, BlockKernels kernels, ArithmeticPolicy policy,
+                           Node source) {
+        this.program = program;
+        this.slotCount = Math.max(slotCount, program.slotCount());
+        this.kernels = kernels;
+        this.policy = policy;
+        this.source = source;
+    }
+
+    /**
+     * Variante que fuerza los kernels escalares (útil para comparar).
+     */
+    public BatchEvaluator scalar() {
+        return new BatchEvaluator(program, slotCount, new ScalarKernels(), policy, source);
+    }
+
+    /**
+     * Variante con otra política para la división por cero.
+     */
+    public BatchEvaluator withArithmeticPolicy(ArithmeticPolicy policy) {
+        return new BatchEvaluator(program, slotCount, kernels, policy, source);
+    }
+
+    public ArithmeticPolicy arithmeticPolicy() {
+        return policy;
+    }
+
+    /**
+     * Evalúa todas las filas: columns[slot][fila] → out[fila].
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        evaluate(columns, out, 0, out.length);
+    }
+
+    /**
+     * Evalúa las filas [from, to). Permite repartir una columna entre hilos.
+     */
+    public void evaluate(double[][] columns, double[] out, int from, int to) {
+        evaluate(columns, out, null, from, to);
+    }
+
+    /**
+     * Como evaluate(columns, out, from, to), y además faults[fila] indica si
+     * la fila dividió por cero en algún punto de la expresión, es decir, si
+     * Node.evaluate habría lanzado ArithmeticException. Sirve con las
+     * políticas NAN e INFINITY; con THROW la división sigue lanzando.
+     */
+    public void evaluate(double[][] columns, double[] out, boolean[] faults, int from, int to) {
+        checkColumnCount(columns.length);
+        for (int slot = 0; slot < slotCount; slot++) {
+            checkRows(slot, columns[slot].length, to);
+        }
+        if (faults != null && faults.length < to) {
+            throw new IllegalArgumentException(
+                String.format("El arreglo de fallos tiene %d filas, se requieren %d", faults.length, to)
+            );
+        }
+
+        BatchJobEvent event = new BatchJobEvent();
+        event.begin();
+        // Los bloques temporales siguen a los de la pila, como en Program
+        double[][] stack = newStack();
+        boolean[] blockFaults = faults != null ? new boolean[BLOCK_SIZE] : null;
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int len = Math.min(BLOCK_SIZE, to - start);
+            if (blockFaults != null) {
+                Arrays.fill(blockFaults, 0, len, false);
+            }
+            double[] result = evaluateBlock(columns, null, start, len, stack, blockFaults);
+            System.arraycopy(result, 0, out, start, len);
+            if (blockFaults != null) {
+                System.arraycopy(blockFaults, 0, faults, start, len);
+            }
+        }
+        event.finish("lotes", source, to - from);
+    }
+
+    /**
+     * Evalúa las filas [from, to) leyendo de buffers (por ejemplo columnas
+     * mapeadas de un archivo, ver ColumnarFile) y escribiendo en out con
+     * escrituras absolutas. Cada bloque se copia una vez del buffer a la
+     * pila, igual que desde un double[]; no se usan las posiciones de los
+     * buffers, así que varios hilos pueden compartirlos con rangos disjuntos.
+     */
+    public void evaluate(DoubleBuffer[] columns, DoubleBuffer out, int from, int to) {
+        checkColumnCount(columns.length);
+        for (int slot = 0; slot < slotCount; slot++) {
+            checkRows(slot, columns[slot].limit(), to);
+        }
+
+        double[][] stack = newStack();
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int len = Math.min(BLOCK_SIZE, to - start);
+            double[] result = evaluateBlock(null, columns, start, len, stack, null);
+            out.put(start, result, 0, len);
+        }
+    }
+
+    private void checkColumnCount(int columns) {
+        if (columns < slotCount) {
+            throw new IllegalArgumentException(
+                String.format("Se esperaban %d columnas, se recibieron %d", slotCount, columns)
+            );
+        }
+    }
+
+    private void checkRows(int slot, int rows, int to) {
+        if (rows < to) {
+            throw new IllegalArgumentException(
+                String.format("La columna %d tiene %d filas, se requieren %d", slot, rows, to)
+            );
+        }
+    }
+
+    private double[][] newStack() {
+        return new double[program.maxStack() + program.tempCount()][BLOCK_SIZE];
+    }
+
+    // Lee de columns o, si es null, de buffers; marca en faults (si no es
+    // null) las filas con un divisor cero
+    private double[] evaluateBlock(double[][] columns, DoubleBuffer[] buffers, int start, int len, double[][] stack,
+                                   boolean[] faults) {
+        int temps = program.maxStack();
+        int sp = -1;
+        for (int pc = 0; pc < program.length(); pc++) {
+            int instruction = program.instruction(pc);
+            int opcode = opcode(instruction);
+            switch (opcode) {
+                case CONST -> Arrays.fill(stack[++sp], 0, len, program.constant(operand(instruction)));
+                case LOAD -> {
+                    if (columns != null) {
+                        System.arraycopy(columns[operand(instruction)], start, stack[++sp], 0, len);
+                    } else {
+                        buffers[operand(instruction)].get(start, stack[++sp], 0, len);
+                    }
+                }
+                case DIV -> {
+                    if (faults != null) {
+                        kernels.markZeroDivisors(stack[sp], len, faults);
+                    }
+                    kernels.divide(stack[sp - 1], stack[sp], len, policy);
+                    sp--;
+                }
+                case ADD, SUB, MUL, POW -> {
+                    kernels.binary(opcode, stack[sp - 1], stack[sp], len);
+                    sp--;
+                }
+                case CALL1 -> {
+                    int operand = operand(instruction);
+                    kernels.call(Program.function(operand), Program.precision(operand), stack[sp], len);
+                }
+                case CALL2 -> {
+                    int operand = operand(instruction);
+                    kernels.call(Program.function(operand), Program.precision(operand), stack[sp - 1], stack[sp], len);
+                    sp--;
+                }
+                case STORE_TEMP -> System.arraycopy(stack[sp], 0, stack[temps + operand(instruction)], 0, len);
+                case LOAD_TEMP -> System.arraycopy(stack[temps + operand(instruction)], 0, stack[++sp], 0, len);
+                default -> kernels.unary(opcode, stack[sp], len);
+            }
+        }
+        return stack[sp];
+    }
+
+    public int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Nombre de los kernels en uso ("escalar" o "vectorial (n carriles)").
+     */
+    public String kernelName() {
+        return kernels.name();
+    }
+
+    public static boolean isVectorized() {
+        return !(DEFAULT_KERNELS instanceof ScalarKernels);
+    }
+
+    private static BlockKernels selectKernels() {
+        if (!Boolean.parseBoolean(System.getProperty("com.unimag.batch.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            // Por reflexión: VectorKernels no debe cargarse si el módulo falta
+            return (BlockKernels) Class.forName("com.unimag.batch.VectorKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
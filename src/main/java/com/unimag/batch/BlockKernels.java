@@ -0,0 +1,30 @@
+package com.unimag.batch;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+
+/**
+ * Operaciones sobre bloques de filas. Cada operación se aplica en sitio
+ * sobre las primeras len posiciones de a (a = a op b).
+ */
+interface BlockKernels {
+
+    // DIV aplica ArithmeticPolicy.THROW
+    void binary(int opcode, double[] a, double[] b, int len);
+
+    // a = a / b, con la política dada para los divisores cero
+    void divide(double[] a, double[] b, int len, ArithmeticPolicy policy);
+
+    // faults[i] = true donde b[i] es cero; las demás posiciones no cambian
+    void markZeroDivisors(double[] b, int len, boolean[] faults);
+
+    void unary(int opcode, double[] a, int len);
+
+    // a = f(a), con la precisión pedida o una más estricta
+    void call(MathFunction function, TrigPrecision precision, double[] a, int len);
+
+    // a = f(a, b)
+    void call(MathFunction function, TrigPrecision precision, double[] a, double[] b, int len);
+
+    String name();
+}
@@ -0,0 +1,94 @@
+package com.unimag.batch;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.vm.Opcodes;
+
+import static com.unimag.vm.Opcodes.*;
+
+/**
+ * Kernels escalares; se usan cuando el módulo jdk.incubator.vector no está
+ * disponible. Dan exactamente los mismos resultados que Node.evaluate.
+ */
+final class ScalarKernels implements BlockKernels {
+
+    @Override
+    public void binary(int opcode, double[] a, double[] b, int len) {
+        switch (opcode) {
+            case ADD -> {
+                for (int i = 0; i < len; i++) a[i] += b[i];
+            }
+            case SUB -> {
+                for (int i = 0; i < len; i++) a[i] -= b[i];
+            }
+            case MUL -> {
+                for (int i = 0; i < len; i++) a[i] *= b[i];
+            }
+            case DIV -> divide(a, b, len, ArithmeticPolicy.THROW);
+            case POW -> {
+                for (int i = 0; i < len; i++) a[i] = Math.pow(a[i], b[i]);
+            }
+            default -> throw new IllegalArgumentException("Operación binaria desconocida: " + Opcodes.name(opcode));
+        }
+    }
+
+    @Override
+    public void divide(double[] a, double[] b, int len, ArithmeticPolicy policy) {
+        switch (policy) {
+            case THROW -> {
+                checkDivisors(b, len);
+                for (int i = 0; i < len; i++) a[i] /= b[i];
+            }
+            case NAN -> {
+                for (int i = 0; i < len; i++) a[i] = b[i] == 0 ? Double.NaN : a[i] / b[i];
+            }
+            case INFINITY -> {
+                for (int i = 0; i < len; i++) a[i] /= b[i];
+            }
+        }
+    }
+
+    @Override
+    public void markZeroDivisors(double[] b, int len, boolean[] faults) {
+        for (int i = 0; i < len; i++) {
+            if (b[i] == 0) {
+                faults[i] = true;
+            }
+        }
+    }
+
+    @Override
+    public void unary(int opcode, double[] a, int len) {
+        switch (opcode) {
+            case NEG -> {
+                for (int i = 0; i < len; i++) a[i] = -a[i];
+            }
+            default -> throw new IllegalArgumentException("Operación unaria desconocida: " + Opcodes.name(opcode));
+        }
+    }
+
+    @Override
+    public void call(MathFunction function, TrigPrecision precision, double[] a, int len) {
+        for (int i = 0; i < len; i++) a[i] = precision.apply(function, a[i]);
+    }
+
+    @Override
+    public void call(MathFunction function, TrigPrecision precision, double[] a, double[] b, int len) {
+        for (int i = 0; i < len; i++) a[i] = precision.apply(function, a[i], b[i]);
+    }
+
+    static void checkDivisors(double[] b, int len) {
+        for (int i = 0; i < len; i++) {
+            if (b[i] == 0) {
+                throw new ArithmeticException(
+                    "Error de ejecución: división por cero"
+                );
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,327 @@
+package com.unimag.batch;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.vm.Opcodes;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static com.unimag.vm.Opcodes.*;
+
+/**
+ * Kernels SIMD con jdk.incubator.vector. Solo se carga por reflexión
+ * cuando el módulo está presente (ver BatchEvaluator).
+ *
+ * Cada operación vive en su propio método pequeño con el operador como
+ * constante: así el JIT puede inlinear toda la cadena de la Vector API sin
+ * caer en vectores "boxeados". Las funciones trascendentes y la potencia
+ * usan las implementaciones vectoriales del JDK, con error de hasta 1 ulp
+ * respecto a Math; eso cumple FAST_1ULP y FAST_1E9. STRICT exige los
+ * resultados exactos de StrictMath y se resuelve escalarmente.
+ */
+final class VectorKernels implements BlockKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public void binary(int opcode, double[] a, double[] b, int len) {
+        switch (opcode) {
+            case ADD -> add(a, b, len);
+            case SUB -> sub(a, b, len);
+            case MUL -> mul(a, b, len);
+            case DIV -> divide(a, b, len, ArithmeticPolicy.THROW);
+            case POW -> pow(a, b, len);
+            default -> throw new IllegalArgumentException("Operación binaria desconocida: " + Opcodes.name(opcode));
+        }
+    }
+
+    @Override
+    public void unary(int opcode, double[] a, int len) {
+        switch (opcode) {
+            case NEG -> neg(a, len);
+            default -> throw new IllegalArgumentException("Operación unaria desconocida: " + Opcodes.name(opcode));
+        }
+    }
+
+    @Override
+    public void call(MathFunction function, TrigPrecision precision, double[] a, int len) {
+        if (precision == TrigPrecision.STRICT) {
+            for (int i = 0; i < len; i++) a[i] = precision.apply(function, a[i]);
+            return;
+        }
+        switch (function) {
+            case SIN -> sin(a, len);
+            case COS -> cos(a, len);
+            case TAN -> tan(a, len);
+            case ASIN -> asin(a, len);
+            case ACOS -> acos(a, len);
+            case ATAN -> atan(a, len);
+            case SINH -> sinh(a, len);
+            case COSH -> cosh(a, len);
+            case TANH -> tanh(a, len);
+            case SQRT -> sqrt(a, len);
+            case EXP -> exp(a, len);
+            case LOG -> log(a, len);
+            case ABS -> abs(a, len);
+            case SIGNUM -> signum(a, len);
+            default -> throw new IllegalArgumentException("Función unaria desconocida: " + function.symbol());
+        }
+    }
+
+    @Override
+    public void call(MathFunction function, TrigPrecision precision, double[] a, double[] b, int len) {
+        if (precision == TrigPrecision.STRICT) {
+            for (int i = 0; i < len; i++) a[i] = precision.apply(function, a[i], b[i]);
+            return;
+        }
+        switch (function) {
+            case ATAN2 -> atan2(a, b, len);
+            case MIN -> min(a, b, len);
+            case MAX -> max(a, b, len);
+            default -> throw new IllegalArgumentException("Función binaria desconocida: " + function.symbol());
+        }
+    }
+
+    private static void add(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] += b[i];
+    }
+
+    private static void sub(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] -= b[i];
+    }
+
+    private static void mul(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] *= b[i];
+    }
+
+    @Override
+    public void divide(double[] a, double[] b, int len, ArithmeticPolicy policy) {
+        switch (policy) {
+            case THROW -> {
+                ScalarKernels.checkDivisors(b, len);
+                div(a, b, len);
+            }
+            case NAN -> divOrNaN(a, b, len);
+            case INFINITY -> div(a, b, len);
+        }
+    }
+
+    @Override
+    public void markZeroDivisors(double[] b, int len, boolean[] faults) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            // Lo habitual es que no haya ningún cero: solo se compara
+            if (DoubleVector.fromArray(SPECIES, b, i).eq(0.0).anyTrue()) {
+                for (int lane = i; lane < i + LANES; lane++) {
+                    faults[lane] |= b[lane] == 0;
+                }
+            }
+        }
+        for (; i < len; i++) {
+            faults[i] |= b[i] == 0;
+        }
+    }
+
+    private static void divOrNaN(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector divisor = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector.fromArray(SPECIES, a, i).div(divisor)
+                    .blend(Double.NaN, divisor.eq(0.0))
+                    .intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = b[i] == 0 ? Double.NaN : a[i] / b[i];
+    }
+
+    private static void div(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).div(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] /= b[i];
+    }
+
+    private static void pow(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector base = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector exponent = DoubleVector.fromArray(SPECIES, b, i);
+            // Igual que Math.pow, el cuadrado se resuelve con una multiplicación:
+            // la potencia vectorial general es muy lenta con bases negativas
+            DoubleVector result = exponent.eq(2.0).allTrue()
+                    ? base.mul(base)
+                    : base.lanewise(VectorOperators.POW, exponent);
+            result.intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.pow(a[i], b[i]);
+    }
+
+    private static void neg(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).neg().intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = -a[i];
+    }
+
+    private static void sin(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.SIN).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.sin(a[i]);
+    }
+
+    private static void cos(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.COS).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.cos(a[i]);
+    }
+
+    private static void tan(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.TAN).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.tan(a[i]);
+    }
+
+    private static void asin(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.ASIN).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.asin(a[i]);
+    }
+
+    private static void acos(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.ACOS).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.acos(a[i]);
+    }
+
+    private static void atan(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.ATAN).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.atan(a[i]);
+    }
+
+    private static void sinh(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.SINH).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.sinh(a[i]);
+    }
+
+    private static void cosh(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.COSH).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.cosh(a[i]);
+    }
+
+    private static void tanh(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.TANH).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.tanh(a[i]);
+    }
+
+    private static void sqrt(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.SQRT).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.sqrt(a[i]);
+    }
+
+    private static void exp(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.EXP).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.exp(a[i]);
+    }
+
+    private static void log(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.LOG).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.log(a[i]);
+    }
+
+    private static void abs(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.ABS).intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.abs(a[i]);
+    }
+
+    // Sin operador vectorial: ±1 según el signo; ±0 y NaN quedan igual
+    private static void signum(double[] a, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, a, i);
+            v.blend(1.0, v.compare(VectorOperators.GT, 0.0))
+                    .blend(-1.0, v.compare(VectorOperators.LT, 0.0))
+                    .intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.signum(a[i]);
+    }
+
+    private static void atan2(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.ATAN2, DoubleVector.fromArray(SPECIES, b, i))
+                    .intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.atan2(a[i], b[i]);
+    }
+
+    private static void min(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.MIN, DoubleVector.fromArray(SPECIES, b, i))
+                    .intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.min(a[i], b[i]);
+    }
+
+    private static void max(double[] a, double[] b, int len) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(len); i < upper; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.MAX, DoubleVector.fromArray(SPECIES, b, i))
+                    .intoArray(a, i);
+        }
+        for (; i < len; i++) a[i] = Math.max(a[i], b[i]);
+    }
+
+    @Override
+    public String name() {
+        return "vectorial (" + LANES + " carriles)";
+    }
+}
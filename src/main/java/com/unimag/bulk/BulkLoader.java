@@ -0,0 +1,155 @@
+package com.unimag.bulk;
+
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.parser.OperatorPrecedenceParser;
+import com.unimag.parser.astNodes.Node;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Carga masiva de archivos con una expresión por línea.
+ *
+ * El archivo se mapea en memoria (FileChannel.map) por trozos que terminan
+ * en un salto de línea; cada trozo se analiza en un ForkJoinPool con su
+ * propio TokenBuffer, leyendo los bytes directamente sin crear un String
+ * por línea. Las líneas con bytes no ASCII se decodifican como UTF-8 para
+ * que el Lexer reporte el carácter real.
+ *
+ * Los resultados se devuelven en el orden del archivo, junto con un
+ * LineError por cada línea que no pudo analizarse (o transformarse).
+ */
+public final class BulkLoader {
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public BulkLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkLoader(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de trozo debe ser positivo");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Analiza cada línea y devuelve los AST.
+     */
+    public BulkResult<Node> load(Path file) throws IOException {
+        return load(file, Function.identity());
+    }
+
+    /**
+     * Analiza cada línea y aplica transform al AST en el mismo hilo de
+     * trabajo (por ejemplo BoundExpression::bind o una compilación).
+     */
+    public <T> BulkResult<T> load(Path file, Function<Node, ? extends T> transform) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = LineChunks.split(channel, chunkSize);
+            List<ChunkTask<T>> tasks = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                tasks.add(new ChunkTask<>(channel, chunk[0], chunk[1], transform));
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+            List<T> values = new ArrayList<>();
+            List<LineError> errors = new ArrayList<>();
+            for (ChunkTask<T> task : tasks) {
+                ChunkResult<T> result = task.join();
+                long offset = values.size();
+                for (LineError error : result.errors) {
+                    errors.add(new LineError(offset + error.line(), error.message()));
+                }
+                values.addAll(result.values);
+            }
+            return new BulkResult<>(values, errors);
+        }
+    }
+
+    private record ChunkResult<T>(List<T> values, List<LineError> errors) {
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChunkTask<T> extends RecursiveTask<ChunkResult<T>> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final Function<Node, ? extends T> transform;
+
+        ChunkTask(FileChannel channel, long start, long end, Function<Node, ? extends T> transform) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.transform = transform;
+        }
+
+        @Override
+        protected ChunkResult<T> compute() {
+            MappedByteBuffer bytes;
+            try {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<T> values = new ArrayList<>();
+            List<LineError> errors = new ArrayList<>();
+            TokenBuffer buffer = new TokenBuffer();
+            ByteSequence line = new ByteSequence();
+
+            int limit = bytes.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                boolean ascii = true;
+                while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                    ascii &= bytes.get(lineEnd) >= 0;
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && bytes.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+
+                CharSequence source = ascii
+                        ? line.reset(bytes, lineStart, contentEnd)
+                        : decode(bytes, lineStart, contentEnd);
+                try {
+                    new Lexer(source).tokenize(buffer);
+                    Node ast = new OperatorPrecedenceParser(buffer).parse();
+                    values.add(transform.apply(ast));
+                } catch (RuntimeException e) {
+                    // Un árbol demasiado profundo para transform ya lo rechaza el parser
+                    values.add(null);
+                    errors.add(new LineError(values.size(), e.getMessage()));
+                }
+                lineStart = lineEnd + 1;
+            }
+            return new ChunkResult<>(values, errors);
+        }
+
+        private static String decode(ByteBuffer bytes, int from, int to) {
+            byte[] copy = new byte[to - from];
+            bytes.get(from, copy);
+            return new String(copy, StandardCharsets.UTF_8);
+        }
+    }
+}
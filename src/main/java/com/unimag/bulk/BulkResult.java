@@ -0,0 +1,41 @@
+package com.unimag.bulk;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva: un valor por línea, en el orden del
+ * archivo (null en las líneas con error), más los errores por línea.
+ */
+public final class BulkResult<T> {
+    private final List<T> values;
+    private final List<LineError> errors;
+
+    BulkResult(List<T> values, List<LineError> errors) {
+        this.values = Collections.unmodifiableList(values);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<T> values() {
+        return values;
+    }
+
+    public List<LineError> errors() {
+        return errors;
+    }
+
+    /**
+     * Valor de la línea (numerada desde 1) o null si tuvo error.
+     */
+    public T line(long line) {
+        return values.get(Math.toIntExact(line - 1));
+    }
+
+    public int lineCount() {
+        return values.size();
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,51 @@
+package com.unimag.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Vista CharSequence de una línea ASCII, sin decodificar. Se reutiliza
+ * línea a línea (reset): los bytes se copian en bloque desde el archivo
+ * mapeado a un arreglo propio, de modo que charAt es un acceso a arreglo.
+ */
+final class ByteSequence implements CharSequence {
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    ByteSequence reset(ByteBuffer source, int start, int end) {
+        length = end - start;
+        if (length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length, bytes.length * 2));
+        }
+        source.get(start, bytes, 0, length);
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        // El llamador garantiza que la línea es ASCII (bytes no negativos)
+        return (char) bytes[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
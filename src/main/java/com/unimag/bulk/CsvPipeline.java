@@ -0,0 +1,356 @@
+package com.unimag.bulk;
+
+import com.unimag.batch.ArithmeticPolicy;
+import com.unimag.batch.BatchEvaluator;
+import com.unimag.diagnostic.Diagnostic;
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.Evaluator;
+import com.unimag.lexer.DecimalParser;
+import com.unimag.metrics.BatchJobEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluación de una expresión sobre cada fila de un CSV, en flujo.
+ *
+ * La primera línea del archivo es el encabezado: cada variable de la
+ * expresión (ver Evaluator.collectVariables) se toma de la columna con su
+ * nombre; las demás columnas se ignoran. Los campos van separados por comas,
+ * sin comillas.
+ *
+ * El archivo se mapea por trozos que terminan en un salto de línea, como en
+ * BulkLoader. Cada trozo se procesa en un ForkJoinPool: los números se leen
+ * de los bytes mapeados con DecimalParser, se acumulan por columnas y se
+ * evalúan por lotes con BatchEvaluator; el texto de salida del trozo queda
+ * en un buffer que se escribe al FileChannel de salida en el orden del
+ * archivo. Solo hay unos pocos trozos en vuelo a la vez (el doble del
+ * paralelismo del pool), así que la memoria no depende del tamaño del
+ * archivo.
+ *
+ * La salida tiene el encabezado "resultado" y una línea por fila de datos;
+ * una fila con error (campo no numérico, faltan columnas, división por cero)
+ * deja su línea vacía y se reporta en el CsvSummary.
+ */
+public final class CsvPipeline {
+    public static final int MAX_REPORTED_ERRORS = 100;
+    public static final String RESULT_HEADER = "resultado";
+
+    // Filas que se acumulan antes de evaluar el lote
+    private static final int BATCH_ROWS = 8 * BatchEvaluator.BLOCK_SIZE;
+    private static final int MAX_HEADER = 1 << 20;
+    private static final String DIVISION_BY_ZERO = new Diagnostic(ErrorCode.DIVISION_BY_ZERO, -1).message();
+
+    private final BoundExpression expression;
+    private final BatchEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public CsvPipeline(BoundExpression expression) {
+        this(expression, ForkJoinPool.commonPool(), BulkLoader.DEFAULT_CHUNK_SIZE);
+    }
+
+    public CsvPipeline(BoundExpression expression, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de trozo debe ser positivo");
+        }
+        this.expression = expression;
+        this.evaluator = new BatchEvaluator(expression).withArithmeticPolicy(ArithmeticPolicy.NAN);
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Lee input y escribe los resultados en output (que se crea o se
+     * sobrescribe).
+     */
+    public CsvSummary run(Path input, Path output) throws IOException {
+        BatchJobEvent event = new BatchJobEvent();
+        event.begin();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer scan = LineChunks.newScanBuffer();
+            long size = in.size();
+            long headerEnd = LineChunks.nextLineStart(in, 0, size, scan);
+            Columns columns = mapColumns(readHeader(in, headerEnd));
+            write(out, ByteBuffer.wrap((RESULT_HEADER + "\n").getBytes(StandardCharsets.US_ASCII)));
+
+            int window = Math.max(2, 2 * pool.getParallelism());
+            ArrayDeque<ForkJoinTask<ChunkResult>> pending = new ArrayDeque<>();
+            List<LineError> errors = new ArrayList<>();
+            long rows = 0;
+            long errorCount = 0;
+            long next = headerEnd;
+            try {
+                while (next < size || !pending.isEmpty()) {
+                    while (next < size && pending.size() < window) {
+                        long end = LineChunks.chunkEnd(in, next, chunkSize, scan);
+                        pending.add(pool.submit(new ChunkTask(in, next, end, columns)));
+                        next = end;
+                    }
+                    ChunkResult result = pending.poll().join();
+                    write(out, result.output);
+                    // El encabezado es la línea 1
+                    for (LineError error : result.errors) {
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(new LineError(1 + rows + error.line(), error.message()));
+                        }
+                    }
+                    errorCount += result.errorCount;
+                    rows += result.rows;
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                for (ForkJoinTask<ChunkResult> task : pending) {
+                    task.cancel(false);
+                }
+            }
+            event.finish("csv", expression.getRoot(), rows);
+            return new CsvSummary(rows, errorCount, errors);
+        }
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    private static String readHeader(FileChannel in, long headerEnd) throws IOException {
+        if (headerEnd == 0) {
+            throw new IllegalArgumentException("El archivo CSV no tiene encabezado");
+        }
+        if (headerEnd > MAX_HEADER) {
+            throw new IllegalArgumentException("El encabezado del CSV es demasiado largo");
+        }
+        ByteBuffer header = ByteBuffer.allocate((int) headerEnd);
+        while (header.hasRemaining() && in.read(header, header.position()) > 0) {
+        }
+        return new String(header.array(), 0, header.position(), StandardCharsets.UTF_8).strip();
+    }
+
+    /**
+     * Columna → slot (-1 si la columna no se usa), hasta la última columna
+     * necesaria.
+     */
+    private Columns mapColumns(String header) {
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].strip();
+        }
+        Set<String> variables = new Evaluator(expression).collectVariables();
+        int[] slots = new int[names.length];
+        Arrays.fill(slots, -1);
+        int used = 0;
+        for (String variable : variables) {
+            int column = Arrays.asList(names).indexOf(variable);
+            if (column < 0) {
+                throw new IllegalArgumentException(
+                    String.format("La variable '%s' no tiene columna en el encabezado: %s", variable, header)
+                );
+            }
+            slots[column] = expression.slotOf(variable);
+            used = Math.max(used, column + 1);
+        }
+        return new Columns(Arrays.copyOf(names, used), Arrays.copyOf(slots, used));
+    }
+
+    private static void write(FileChannel out, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+    }
+
+    private record Columns(String[] names, int[] slots) {
+    }
+
+    private record ChunkResult(ByteBuffer output, long rows, long errorCount, List<LineError> errors) {
+    }
+
+    @SuppressWarnings("serial")
+    private final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final Columns columns;
+
+        // Lote en curso, por columnas
+        private final double[][] batch;
+        private final double[] results = new double[BATCH_ROWS];
+        private final boolean[] faults = new boolean[BATCH_ROWS];
+        private final String[] rowErrors = new String[BATCH_ROWS];
+        private final AsciiOutput output;
+        private final List<LineError> errors = new ArrayList<>();
+        private long rows = 0;
+        private long errorCount = 0;
+
+        ChunkTask(FileChannel channel, long start, long end, Columns columns) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.columns = columns;
+            int slotCount = expression.getSlots().size();
+            this.batch = new double[slotCount][BATCH_ROWS];
+            this.output = new AsciiOutput((int) Math.min(end - start, 1 << 16));
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            MappedByteBuffer bytes;
+            try {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ByteSequence line = new ByteSequence();
+            int limit = bytes.limit();
+            int lineStart = 0;
+            int pending = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && bytes.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                rowErrors[pending] = parseRow(line.reset(bytes, lineStart, contentEnd), pending);
+                if (rowErrors[pending] != null) {
+                    // Valores neutros para que la fila no haga fallar el lote
+                    for (double[] column : batch) {
+                        column[pending] = Double.NaN;
+                    }
+                }
+                rows++;
+                if (++pending == BATCH_ROWS) {
+                    flush(pending);
+                    pending = 0;
+                }
+                lineStart = lineEnd + 1;
+            }
+            flush(pending);
+            return new ChunkResult(output.toBuffer(), rows, errorCount, errors);
+        }
+
+        /**
+         * Lee los campos de la fila en la posición index del lote. Devuelve
+         * el mensaje de error, o null si la fila es válida.
+         */
+        private String parseRow(ByteSequence line, int index) {
+            int length = line.length();
+            int fieldStart = 0;
+            for (int column = 0; column < columns.slots.length; column++) {
+                if (fieldStart > length) {
+                    return String.format("Faltan columnas: se esperaban al menos %d", columns.slots.length);
+                }
+                int fieldEnd = fieldStart;
+                while (fieldEnd < length && line.charAt(fieldEnd) != ',') {
+                    fieldEnd++;
+                }
+                int slot = columns.slots[column];
+                if (slot >= 0) {
+                    int from = fieldStart;
+                    int to = fieldEnd;
+                    while (from < to && line.charAt(from) == ' ') {
+                        from++;
+                    }
+                    while (to > from && line.charAt(to - 1) == ' ') {
+                        to--;
+                    }
+                    try {
+                        if (from == to) {
+                            throw new NumberFormatException();
+                        }
+                        batch[slot][index] = DecimalParser.parse(line, from, to);
+                    } catch (NumberFormatException e) {
+                        return String.format("Columna '%s': valor no numérico '%s'",
+                                columns.names[column], line.subSequence(from, to));
+                    }
+                }
+                fieldStart = fieldEnd + 1;
+            }
+            return null;
+        }
+
+        /**
+         * Evalúa las primeras count filas del lote y escribe sus resultados.
+         * Una división por cero no detiene el lote: el evaluador marca la
+         * fila en faults y aquí se reporta como error, aunque su resultado
+         * no sea NaN ((1/z)^0 da 1). Un NaN legítimo (sqrt(-1)) se escribe.
+         */
+        private void flush(int count) {
+            if (count == 0) {
+                return;
+            }
+            long firstRow = rows - count + 1;
+            evaluator.evaluate(batch, results, faults, 0, count);
+            for (int i = 0; i < count; i++) {
+                String error = rowErrors[i];
+                if (error == null && faults[i]) {
+                    error = DIVISION_BY_ZERO;
+                }
+                if (error == null) {
+                    output.append(results[i]);
+                } else {
+                    errorCount++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new LineError(firstRow + i, error));
+                    }
+                }
+                output.newLine();
+            }
+        }
+    }
+
+    /**
+     * Texto ASCII que crece según haga falta; un buffer por trozo.
+     */
+    private static final class AsciiOutput {
+        private byte[] bytes;
+        private int length;
+
+        AsciiOutput(int capacity) {
+            this.bytes = new byte[Math.max(capacity, 64)];
+        }
+
+        void append(double value) {
+            String text = Double.toString(value);
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                bytes[length++] = (byte) text.charAt(i);
+            }
+        }
+
+        void newLine() {
+            ensure(1);
+            bytes[length++] = '\n';
+        }
+
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, length);
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+            }
+        }
+    }
+}
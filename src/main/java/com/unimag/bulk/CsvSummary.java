@@ -0,0 +1,49 @@
+package com.unimag.bulk;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una pasada de CsvPipeline: filas procesadas, filas con error
+ * y los primeros errores (a lo sumo CsvPipeline.MAX_REPORTED_ERRORS, para
+ * que la memoria no crezca con el archivo).
+ */
+public final class CsvSummary {
+    private final long rows;
+    private final long errorCount;
+    private final List<LineError> errors;
+
+    CsvSummary(long rows, long errorCount, List<LineError> errors) {
+        this.rows = rows;
+        this.errorCount = errorCount;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Filas de datos leídas (sin contar el encabezado).
+     */
+    public long rows() {
+        return rows;
+    }
+
+    public long errorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Primeros errores, con la línea del archivo de entrada (el encabezado
+     * es la línea 1).
+     */
+    public List<LineError> errors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "%d filas, %d con error".formatted(rows, errorCount);
+    }
+}
@@ -0,0 +1,67 @@
+package com.unimag.bulk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * División de un archivo en trozos [inicio, fin) que terminan justo
+ * después de un salto de línea (o al final del archivo).
+ */
+final class LineChunks {
+    private static final int SCAN_BUFFER = 8 << 10;
+
+    private LineChunks() {
+    }
+
+    static List<long[]> split(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scan = newScanBuffer();
+
+        long start = 0;
+        while (start < size) {
+            long end = chunkEnd(channel, start, chunkSize, scan);
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Fin del trozo que empieza en start: el siguiente inicio de línea a
+     * partir de start + chunkSize, o el final del archivo. Permite recorrer
+     * los trozos uno a uno sin guardar la lista completa.
+     */
+    static long chunkEnd(FileChannel channel, long start, int chunkSize, ByteBuffer scan) throws IOException {
+        long size = channel.size();
+        return start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size, scan);
+    }
+
+    static ByteBuffer newScanBuffer() {
+        return ByteBuffer.allocate(SCAN_BUFFER);
+    }
+
+    /**
+     * Posición siguiente al primer '\n' desde from, o size si no hay más.
+     */
+    static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,12 @@
+package com.unimag.bulk;
+
+/**
+ * Error al procesar una línea de un archivo (líneas numeradas desde 1).
+ */
+public record LineError(long line, String message) {
+
+    @Override
+    public String toString() {
+        return "Línea %d: %s".formatted(line, message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.unimag.cache;
+
+/**
+ * Instantánea de los contadores de un ExpressionCache.
+ */
+public record CacheStats(long hits, long misses, long evictions, int size, long weight) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "Cache: %d aciertos, %d fallos (%.1f%%), %d desalojos, %d entradas, peso %d"
+                .formatted(hits, misses, hitRate() * 100, evictions, size, weight);
+    }
+}
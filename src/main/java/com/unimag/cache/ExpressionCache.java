@@ -0,0 +1,248 @@
+package com.unimag.cache;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.metrics.Phase;
+import com.unimag.metrics.PipelineMetrics;
+import com.unimag.parser.OperatorPrecedenceParser;
+import com.unimag.parser.astNodes.Node;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de expresiones ya analizadas y ligadas, indexada por el
+ * texto fuente normalizado (sin espacios al inicio ni al final).
+ *
+ * Está dividida en segmentos independientes (LRU por segmento, cada uno con
+ * su propio candado) para que hilos con claves distintas casi nunca
+ * compitan. Los límites de entradas y de peso (longitud de la fuente) se
+ * reparten entre los segmentos de forma exacta: los de cada segmento suman
+ * los de la caché. El análisis de una expresión ausente se hace fuera del
+ * candado; si dos hilos la piden a la vez ambos la analizan y se conserva
+ * la primera.
+ *
+ * Los valores son inmutables (BoundExpression) y pueden compartirse entre
+ * hilos. Los errores de análisis no se guardan: se propagan al llamador.
+ */
+public final class ExpressionCache {
+    private static final int MAX_SEGMENTS = 16;
+    // Un segmento con muy pocas entradas expulsa de más cuando las claves
+    // se reparten de forma desigual; las cachés pequeñas usan menos segmentos
+    private static final int MIN_SEGMENT_ENTRIES = 8;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final Function<String, BoundExpression> loader;
+    private final PipelineMetrics metrics;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpressionCache(int maxEntries, long maxWeight) {
+        this(maxEntries, maxWeight, PipelineMetrics.DISABLED);
+    }
+
+    /**
+     * Caché que registra en metrics sus aciertos y fallos, y la latencia,
+     * los errores y el tamaño del árbol de cada análisis.
+     */
+    public ExpressionCache(int maxEntries, long maxWeight, PipelineMetrics metrics) {
+        this(maxEntries, maxWeight, source -> parseAndBind(source, metrics), metrics);
+    }
+
+    /**
+     * @param loader convierte la fuente normalizada en una expresión ligada
+     *               (por ejemplo, para guardar árboles optimizados)
+     */
+    public ExpressionCache(int maxEntries, long maxWeight, Function<String, BoundExpression> loader) {
+        this(maxEntries, maxWeight, loader, PipelineMetrics.DISABLED);
+    }
+
+    private ExpressionCache(int maxEntries, long maxWeight, Function<String, BoundExpression> loader,
+                            PipelineMetrics metrics) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Los límites de la caché deben ser positivos");
+        }
+        int count = (int) Math.min(Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_ENTRIES), maxWeight);
+        count = Integer.highestOneBit(Math.max(1, count));
+        this.segments = new Segment[count];
+        // El resto de la división se reparte de a uno entre los primeros segmentos
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0),
+                maxWeight / count + (i < maxWeight % count ? 1 : 0));
+        }
+        this.segmentMask = count - 1;
+        this.loader = loader;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Devuelve la expresión para la fuente, analizándola y ligándola si no
+     * estaba en caché.
+     */
+    public BoundExpression get(String source) {
+        String key = normalize(source);
+        Segment segment = segmentFor(key);
+
+        BoundExpression cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            metrics.cacheHit();
+            return cached;
+        }
+
+        misses.increment();
+        metrics.cacheMiss();
+        BoundExpression loaded = loader.apply(key);
+        return segment.putIfAbsent(key, loaded, weigh(key));
+    }
+
+    /**
+     * Consulta sin analizar: null si la fuente no está en caché.
+     */
+    public BoundExpression getIfPresent(String source) {
+        String key = normalize(source);
+        BoundExpression cached = segmentFor(key).get(key);
+        if (cached != null) {
+            hits.increment();
+            metrics.cacheHit();
+        } else {
+            misses.increment();
+            metrics.cacheMiss();
+        }
+        return cached;
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public CacheStats stats() {
+        int size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+                weight += segment.weight;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, weight);
+    }
+
+    static String normalize(String source) {
+        return source.strip();
+    }
+
+    private static long weigh(String key) {
+        return Math.max(1, key.length());
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private static BoundExpression parseAndBind(String source, PipelineMetrics metrics) {
+        long start = metrics.start();
+        TokenBuffer buffer;
+        try {
+            buffer = new Lexer(source).tokenize(new TokenBuffer());
+        } catch (RuntimeException e) {
+            metrics.fail(Phase.LEX, start, e);
+            throw e;
+        }
+        metrics.stop(Phase.LEX, start);
+
+        start = metrics.start();
+        Node ast;
+        try {
+            ast = new OperatorPrecedenceParser(buffer).parse();
+        } catch (RuntimeException e) {
+            metrics.fail(Phase.PARSE, start, e);
+            throw e;
+        }
+        metrics.stop(Phase.PARSE, start);
+        metrics.recordTree(ast);
+
+        start = metrics.start();
+        try {
+            BoundExpression bound = BoundExpression.bind(ast);
+            metrics.stop(Phase.BIND, start);
+            return bound;
+        } catch (RuntimeException e) {
+            metrics.fail(Phase.BIND, start, e);
+            throw e;
+        }
+    }
+
+    private record Entry(BoundExpression value, long weight) {
+    }
+
+    /**
+     * Segmento LRU: LinkedHashMap en orden de acceso protegido por su monitor.
+     */
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxEntries;
+        private final long maxWeight;
+        private long weight;
+
+        Segment(int maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized BoundExpression get(String key) {
+            Entry entry = entries.get(key);
+            return entry != null ? entry.value() : null;
+        }
+
+        synchronized BoundExpression putIfAbsent(String key, BoundExpression value, long entryWeight) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                return existing.value();
+            }
+            entries.put(key, new Entry(value, entryWeight));
+            weight += entryWeight;
+            evictIfNeeded();
+            return value;
+        }
+
+        private void evictIfNeeded() {
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            // Se conserva siempre al menos la entrada recién insertada
+            while (entries.size() > 1 && (entries.size() > maxEntries || weight > maxWeight)) {
+                Entry removed = eldest.next().getValue();
+                eldest.remove();
+                weight -= removed.weight();
+                evictions.increment();
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.unimag.catalog;
+
+import com.unimag.eval.VariableSlots;
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.parser.astNodes.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Codificación binaria de un AST ligado en postfijo: cada nodo se escribe
+ * después de sus hijos, con una etiqueta de un byte y sus operandos. Los
+ * enteros van como varint (7 bits por byte). Las constantes enteras y las
+ * decimales cortas (las que el lexer obtiene como m / 10^k, ej: 2.75) se
+ * guardan como su mantisa y su escala, en 2 a 5 bytes en lugar de 9, y se
+ * reconstruyen con la misma división, bit a bit. Una llamada guarda el
+ * código estable de la función y de la precisión (MathFunction.code()), no
+ * su ordinal.
+ *
+ * Un nodo interno que aparece más de una vez (un DAG, ver
+ * BoundExpression.shared()) se escribe la primera vez y después como una
+ * referencia REF a su índice entre los nodos internos ya escritos, de modo
+ * que el DAG se conserva al leerlo. La lectura usa una pila explícita: no
+ * hay recursión, cualquiera sea la profundidad.
+ */
+final class AstCodec {
+    static final int END = 0;
+    static final int NUMBER = 1;
+    static final int INTEGER = 2;
+    static final int VARIABLE = 3;
+    static final int NEGATE = 4;
+    static final int BINARY = 5;
+    static final int CALL = 6;
+    static final int REF = 7;
+    static final int DECIMAL = 8;
+
+    // Potencias de 10 exactas en double, como en DecimalParser
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+
+    private static final String OPERATORS = "+-*/^";
+
+    private AstCodec() {
+    }
+
+    /**
+     * Escribe el árbol terminado en END. Las variables deben estar ligadas.
+     */
+    static void encode(Node root, ByteSink out) {
+        new Encoder(out, NodeFactory.findShared(root)).encode(root);
+        out.put(END);
+    }
+
+    /**
+     * Lee un árbol escrito con encode; las variables se ligan a slots.
+     */
+    static Node decode(ByteBuffer in, VariableSlots slots) throws IOException {
+        Node[] stack = new Node[16];
+        int sp = 0;
+        List<Node> internal = new ArrayList<>();
+        try {
+            while (true) {
+                int tag = in.get();
+                Node node;
+                switch (tag) {
+                    case END -> {
+                        if (sp != 1) {
+                            throw new IOException("Expresión inconsistente: la pila no termina con un nodo");
+                        }
+                        return stack[0];
+                    }
+                    case NUMBER -> node = new NumberNode(in.getDouble());
+                    case INTEGER -> node = new NumberNode(unZigZag(readVarLong(in)));
+                    case DECIMAL -> {
+                        long mantissa = unZigZag(readVarLong(in));
+                        int scale = in.get();
+                        if (scale <= 0 || scale >= POWERS_OF_TEN.length) {
+                            throw new IOException(String.format("Escala decimal inválida: %d", scale));
+                        }
+                        node = new NumberNode(mantissa / POWERS_OF_TEN[scale]);
+                    }
+                    case VARIABLE -> {
+                        int slot = readVarInt(in);
+                        if (slot >= slots.size()) {
+                            throw new IOException(String.format("Slot de variable inválido: %d", slot));
+                        }
+                        node = new VarNode(slots.name(slot), slot);
+                    }
+                    case NEGATE -> {
+                        require(sp, 1);
+                        node = new UnaryNode(stack[--sp]);
+                        internal.add(node);
+                    }
+                    case BINARY -> {
+                        char operator = (char) in.get();
+                        if (OPERATORS.indexOf(operator) < 0) {
+                            throw new IOException(String.format("Operador inválido: %d", (int) operator));
+                        }
+                        require(sp, 2);
+                        Node right = stack[--sp];
+                        node = new BinaryNode(operator, stack[--sp], right);
+                        internal.add(node);
+                    }
+                    case CALL -> {
+                        int function = in.get() & 0xFF;
+                        int precision = in.get() & 0xFF;
+                        MathFunction f = MathFunction.fromCode(function);
+                        TrigPrecision p = TrigPrecision.fromCode(precision);
+                        if (f == null || p == null) {
+                            throw new IOException(String.format("Función inválida: %d/%d", function, precision));
+                        }
+                        require(sp, f.arity());
+                        sp -= f.arity();
+                        node = new FunctionNode(f, p,
+                                Arrays.copyOfRange(stack, sp, sp + f.arity()));
+                        internal.add(node);
+                    }
+                    case REF -> {
+                        int index = readVarInt(in);
+                        if (index >= internal.size()) {
+                            throw new IOException(String.format("Referencia inválida: %d", index));
+                        }
+                        node = internal.get(index);
+                    }
+                    default -> throw new IOException(String.format("Etiqueta de nodo inválida: %d", tag));
+                }
+                if (sp == stack.length) {
+                    stack = Arrays.copyOf(stack, sp * 2);
+                }
+                stack[sp++] = node;
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Expresión truncada");
+        }
+    }
+
+    private static void require(int sp, int operands) throws IOException {
+        if (sp < operands) {
+            throw new IOException("Expresión inconsistente: faltan operandos");
+        }
+    }
+
+    static void writeVarLong(ByteSink out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.put((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint demasiado largo");
+    }
+
+    static int readVarInt(ByteBuffer in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Entero fuera de rango: %d", value));
+        }
+        return (int) value;
+    }
+
+    // Enteros con signo como varint corto: 0, -1, 1, -2... → 0, 1, 2, 3...
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long encoded) {
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    private static final class Encoder {
+        private final ByteSink out;
+        private final Set<Node> shared;
+        // Índice de cada nodo compartido ya escrito
+        private final Map<Node, Integer> written = new IdentityHashMap<>();
+        private int internalCount = 0;
+
+        Encoder(ByteSink out, Set<Node> shared) {
+            this.out = out;
+            this.shared = shared;
+        }
+
+        void encode(Node node) {
+            Integer index = written.get(node);
+            if (index != null) {
+                out.put(REF);
+                writeVarLong(out, index);
+                return;
+            }
+            if (node instanceof NumberNode n) {
+                double value = n.getValue();
+                long integer = (long) value;
+                // -0.0 y los enteros grandes van completos
+                if (integer == value && Math.abs(integer) < 1L << 53
+                        && (integer != 0 || Double.doubleToRawLongBits(value) == 0)) {
+                    out.put(INTEGER);
+                    writeVarLong(out, zigZag(integer));
+                    return;
+                }
+                for (int scale = 1; scale < POWERS_OF_TEN.length && Double.isFinite(value); scale++) {
+                    long mantissa = (long) Math.rint(value * POWERS_OF_TEN[scale]);
+                    // Se compara bit a bit con lo que reconstruirá decode
+                    if (Math.abs(mantissa) < 1L << 53 && Double.doubleToRawLongBits(mantissa / POWERS_OF_TEN[scale])
+                            == Double.doubleToRawLongBits(value)) {
+                        out.put(DECIMAL);
+                        writeVarLong(out, zigZag(mantissa));
+                        out.put(scale);
+                        return;
+                    }
+                }
+                out.put(NUMBER);
+                out.putDouble(value);
+                return;
+            }
+            if (node instanceof VarNode v) {
+                if (!v.isBound()) {
+                    throw new IllegalArgumentException(
+                        String.format("La variable '%s' no está ligada a un slot", v.getIdentifier())
+                    );
+                }
+                out.put(VARIABLE);
+                writeVarLong(out, v.getSlot());
+                return;
+            }
+            if (node instanceof UnaryNode u) {
+                encode(u.getExpression());
+                out.put(NEGATE);
+            } else if (node instanceof BinaryNode b) {
+                encode(b.getLeft());
+                encode(b.getRight());
+                out.put(BINARY);
+                out.put(b.getOperator());
+            } else if (node instanceof FunctionNode f) {
+                for (int i = 0; i < f.getArgumentCount(); i++) {
+                    encode(f.getArgument(i));
+                }
+                out.put(CALL);
+                out.put(f.getFunction().code());
+                out.put(f.getPrecision().code());
+            } else {
+                throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+            }
+            if (shared.contains(node)) {
+                written.put(node, internalCount);
+            }
+            internalCount++;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.unimag.catalog;
+
+import com.unimag.eval.BoundExpression;
+
+/**
+ * Entrada de un catálogo: una expresión ligada y, opcionalmente, su forma
+ * optimizada (con la misma tabla de slots), para no repetir la optimización
+ * al cargar.
+ */
+public record CatalogEntry(BoundExpression expression, BoundExpression optimized) {
+
+    public CatalogEntry {
+        if (optimized != null && !optimized.getSlots().names().equals(expression.getSlots().names())) {
+            throw new IllegalArgumentException("La forma optimizada debe usar la misma tabla de slots");
+        }
+    }
+
+    public static CatalogEntry of(BoundExpression expression) {
+        return new CatalogEntry(expression, null);
+    }
+
+    /**
+     * La expresión junto con expression.optimized().
+     */
+    public static CatalogEntry optimizing(BoundExpression expression) {
+        return new CatalogEntry(expression, expression.optimized());
+    }
+
+    public boolean hasOptimized() {
+        return optimized != null;
+    }
+
+    /**
+     * La forma optimizada si existe; si no, la expresión.
+     */
+    public BoundExpression best() {
+        return optimized != null ? optimized : expression;
+    }
+}
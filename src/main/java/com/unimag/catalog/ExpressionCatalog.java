@@ -0,0 +1,276 @@
+package com.unimag.catalog;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.VariableSlots;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Catálogo binario de expresiones ya analizadas, para arrancar sin volver
+ * a pasar cada expresión por Lexer y Parser.
+ *
+ * Formato (big-endian, como DataOutput):
+ *
+ *   magia "TCAT" (int), versión (short), entradas (int)
+ *   nombres de variables: cantidad (int) y cada uno como longitud (short)
+ *       y bytes UTF-8; se guardan una vez para todo el catálogo
+ *   tablas de slots distintas: cantidad (int) y cada una como número de
+ *       slots (int) e índice de nombre de cada slot (int)
+ *   posición de cada entrada (int, desde el inicio de los datos)
+ *   datos: por entrada, la tabla de slots (varint), un byte de opciones
+ *       (1 = sigue la forma optimizada, 2 = la forma optimizada es igual a
+ *       la original), el AST (ver AstCodec) y, si la hay, la forma optimizada
+ *
+ * open() mapea el archivo y lee solo el encabezado; cada entrada se
+ * decodifica al pedirla (get) directamente de los bytes mapeados, o todas
+ * en paralelo con loadAll(). Las tablas de slots se crean una vez y las
+ * comparten todas las entradas que las usan. Es inmutable y seguro entre
+ * hilos.
+ */
+public final class ExpressionCatalog {
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x54434154; // "TCAT"
+    private static final int HAS_OPTIMIZED = 1;
+    // La forma optimizada es idéntica a la original: no se repite
+    private static final int SAME_OPTIMIZED = 2;
+    private static final int LEAF_ENTRIES = 1 << 10;
+
+    private final ByteBuffer data;
+    private final VariableSlots[] tables;
+    private final int[] offsets;
+
+    private ExpressionCatalog(ByteBuffer data, VariableSlots[] tables, int[] offsets) {
+        this.data = data;
+        this.tables = tables;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Escribe (o sobrescribe) un catálogo con las entradas dadas.
+     */
+    public static void write(Path path, List<CatalogEntry> entries) throws IOException {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        Map<List<String>, Integer> tables = new LinkedHashMap<>();
+        int[] offsets = new int[entries.size()];
+        ByteSink body = new ByteSink(entries.size() * 16);
+        for (int i = 0; i < entries.size(); i++) {
+            CatalogEntry entry = entries.get(i);
+            List<String> slots = entry.expression().getSlots().names();
+            Integer table = tables.get(slots);
+            if (table == null) {
+                table = tables.size();
+                tables.put(slots, table);
+                for (String name : slots) {
+                    names.putIfAbsent(name, names.size());
+                }
+            }
+            offsets[i] = body.length();
+            AstCodec.writeVarLong(body, table);
+            // El optimizador devuelve la misma raíz si no cambia nada, y get()
+            // comparte la raíz al leer SAME_OPTIMIZED: basta la identidad
+            boolean same = entry.hasOptimized() && entry.optimized().getRoot() == entry.expression().getRoot();
+            body.put(same ? SAME_OPTIMIZED : entry.hasOptimized() ? HAS_OPTIMIZED : 0);
+            AstCodec.encode(entry.expression().getRoot(), body);
+            if (entry.hasOptimized() && !same) {
+                AstCodec.encode(entry.optimized().getRoot(), body);
+            }
+        }
+
+        ByteSink header = new ByteSink(1 << 12);
+        header.putInt(MAGIC);
+        header.put(VERSION >>> 8);
+        header.put(VERSION);
+        header.putInt(entries.size());
+        header.putInt(names.size());
+        for (String name : names.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Nombre de variable demasiado largo: " + name);
+            }
+            header.put(bytes.length >>> 8);
+            header.put(bytes.length);
+            header.put(bytes);
+        }
+        header.putInt(tables.size());
+        for (List<String> table : tables.keySet()) {
+            header.putInt(table.size());
+            for (String name : table) {
+                header.putInt(names.get(name));
+            }
+        }
+        for (int offset : offsets) {
+            header.putInt(offset);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header.toBuffer(), body.toBuffer()};
+            while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    /**
+     * Mapea el catálogo y lee su encabezado; las entradas se decodifican al
+     * pedirlas.
+     */
+    public static ExpressionCatalog open(Path path) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("El catálogo supera los 2 GB: " + path);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (bytes.remaining() < Integer.BYTES || bytes.getInt() != MAGIC) {
+                throw new IOException("Formato inválido: no es un catálogo de expresiones");
+            }
+            int version = bytes.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException(String.format("Versión de catálogo no soportada: %d", version));
+            }
+            int count = checkedCount(bytes.getInt(), bytes);
+
+            String[] names = new String[checkedCount(bytes.getInt(), bytes)];
+            for (int i = 0; i < names.length; i++) {
+                byte[] name = new byte[bytes.getShort() & 0xFFFF];
+                bytes.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            VariableSlots[] tables = new VariableSlots[checkedCount(bytes.getInt(), bytes)];
+            for (int t = 0; t < tables.length; t++) {
+                String[] slots = new String[checkedCount(bytes.getInt(), bytes)];
+                for (int s = 0; s < slots.length; s++) {
+                    int name = bytes.getInt();
+                    if (name < 0 || name >= names.length) {
+                        throw new IOException(String.format("Nombre de variable inválido: %d", name));
+                    }
+                    slots[s] = names[name];
+                }
+                tables[t] = VariableSlots.of(slots);
+            }
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = bytes.getInt();
+            }
+            ByteBuffer data = bytes.slice();
+            for (int i = 0; i < count; i++) {
+                if (offsets[i] < 0 || offsets[i] > data.limit() || (i > 0 && offsets[i] < offsets[i - 1])) {
+                    throw new IOException(String.format("Posición inválida de la entrada %d", i));
+                }
+            }
+            return new ExpressionCatalog(data, tables, offsets);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Catálogo truncado: " + path);
+        } catch (IllegalArgumentException e) {
+            // Nombres repetidos en una tabla de slots
+            throw new IOException("Catálogo inválido: " + e.getMessage());
+        }
+    }
+
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Decodifica la entrada index (desde 0).
+     */
+    public CatalogEntry get(int index) throws IOException {
+        int end = index + 1 < offsets.length ? offsets[index + 1] : data.limit();
+        ByteBuffer in = data.slice(offsets[index], end - offsets[index]);
+        try {
+            int table = AstCodec.readVarInt(in);
+            if (table >= tables.length) {
+                throw new IOException(String.format("Tabla de slots inválida: %d", table));
+            }
+            VariableSlots slots = tables[table];
+            int flags = in.get();
+            BoundExpression expression = BoundExpression.ofBound(AstCodec.decode(in, slots), slots);
+            BoundExpression optimized = null;
+            if (flags == HAS_OPTIMIZED) {
+                optimized = BoundExpression.ofBound(AstCodec.decode(in, slots), slots);
+            } else if (flags == SAME_OPTIMIZED) {
+                optimized = expression;
+            } else if (flags != 0) {
+                throw new IOException(String.format("Opciones inválidas: %d", flags));
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Bytes sobrantes al final de la entrada");
+            }
+            return new CatalogEntry(expression, optimized);
+        } catch (IOException | BufferUnderflowException e) {
+            throw new IOException(String.format("Entrada %d: %s", index,
+                    e instanceof IOException ? e.getMessage() : "truncada"));
+        }
+    }
+
+    /**
+     * Todas las entradas, decodificadas en paralelo en el pool común.
+     */
+    public List<CatalogEntry> loadAll() throws IOException {
+        return loadAll(ForkJoinPool.commonPool());
+    }
+
+    public List<CatalogEntry> loadAll(ForkJoinPool pool) throws IOException {
+        CatalogEntry[] entries = new CatalogEntry[offsets.length];
+        try {
+            pool.invoke(new LoadTask(entries, 0, entries.length));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return Arrays.asList(entries);
+    }
+
+    private static int checkedCount(int count, ByteBuffer bytes) throws IOException {
+        // Cada elemento ocupa al menos un byte
+        if (count < 0 || count > bytes.remaining()) {
+            throw new IOException(String.format("Cantidad inválida en el encabezado: %d", count));
+        }
+        return count;
+    }
+
+    @SuppressWarnings("serial")
+    private final class LoadTask extends RecursiveAction {
+        private final CatalogEntry[] entries;
+        private final int from;
+        private final int to;
+
+        LoadTask(CatalogEntry[] entries, int from, int to) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_ENTRIES) {
+                try {
+                    for (int i = from; i < to; i++) {
+                        entries[i] = ExpressionCatalog.this.get(i);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LoadTask(entries, from, middle), new LoadTask(entries, middle, to));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.unimag.columnar;
+
+import com.unimag.batch.ArithmeticPolicy;
+import com.unimag.batch.BatchEvaluator;
+import com.unimag.eval.BoundExpression;
+import com.unimag.metrics.BatchJobEvent;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluación de una expresión sobre columnas mapeadas de uno o más
+ * ColumnarFile, escribiendo en una columna mapeada de salida.
+ *
+ * Cada variable se toma de la primera entrada que tiene una columna con su
+ * nombre, de modo que las pasadas se encadenan: la salida de una pasada es
+ * una entrada más de la siguiente, sin volver a analizar texto. Las filas
+ * se reparten en un ForkJoinPool por rangos de bloques; BatchEvaluator lee
+ * y escribe los buffers mapeados directamente.
+ */
+public final class ColumnarEvaluator {
+    // Filas por tarea
+    private static final int LEAF_ROWS = 64 * BatchEvaluator.BLOCK_SIZE;
+
+    private final BoundExpression expression;
+    private final BatchEvaluator evaluator;
+    private final ForkJoinPool pool;
+
+    public ColumnarEvaluator(BoundExpression expression) {
+        this(expression, ForkJoinPool.commonPool());
+    }
+
+    public ColumnarEvaluator(BoundExpression expression, ForkJoinPool pool) {
+        this(expression, pool, ArithmeticPolicy.THROW);
+    }
+
+    /**
+     * Con NAN o INFINITY una división por cero no detiene la pasada: la
+     * fila queda con su valor especial (ver ArithmeticPolicy).
+     */
+    public ColumnarEvaluator(BoundExpression expression, ForkJoinPool pool, ArithmeticPolicy policy) {
+        this.expression = expression;
+        this.evaluator = new BatchEvaluator(expression).withArithmeticPolicy(policy);
+        this.pool = pool;
+    }
+
+    /**
+     * Evalúa sobre las entradas y guarda el resultado en un archivo nuevo
+     * con una sola columna, que se devuelve abierto para la siguiente pasada
+     * (los datos quedan en la caché de páginas; force() los lleva al disco).
+     */
+    public ColumnarFile evaluate(Path output, String column, ColumnarFile... inputs) throws IOException {
+        int rows = rowCount(inputs);
+        ColumnarFile result = ColumnarFile.create(output, rows, List.of(column));
+        evaluate(result.column(0), inputs);
+        return result;
+    }
+
+    /**
+     * Evalúa sobre las entradas y escribe en out[0 .. filas).
+     */
+    public void evaluate(DoubleBuffer out, ColumnarFile... inputs) {
+        int rows = rowCount(inputs);
+        if (out.limit() < rows) {
+            throw new IllegalArgumentException(
+                String.format("La salida tiene %d posiciones, las entradas %d filas", out.limit(), rows)
+            );
+        }
+        DoubleBuffer[] columns = resolve(inputs);
+        BatchJobEvent event = new BatchJobEvent();
+        event.begin();
+        try {
+            pool.invoke(new EvaluateTask(columns, out, 0, rows));
+            event.finish("columnar", expression.getRoot(), rows);
+        } catch (RuntimeException e) {
+            // Si falló otro hilo, el pool relanza una copia sin mensaje con
+            // la excepción original como causa: se relanza la original
+            if (e.getCause() instanceof RuntimeException cause && cause.getClass() == e.getClass()) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Columna de cada slot de la expresión, buscada por nombre.
+     */
+    private DoubleBuffer[] resolve(ColumnarFile[] inputs) {
+        List<String> names = expression.getSlots().names();
+        DoubleBuffer[] columns = new DoubleBuffer[names.size()];
+        for (int slot = 0; slot < columns.length; slot++) {
+            for (ColumnarFile input : inputs) {
+                int index = input.columnIndex(names.get(slot));
+                if (index >= 0) {
+                    columns[slot] = input.column(index);
+                    break;
+                }
+            }
+            if (columns[slot] == null) {
+                throw new IllegalArgumentException(
+                    String.format("La variable '%s' no tiene columna en las entradas", names.get(slot))
+                );
+            }
+        }
+        return columns;
+    }
+
+    private static int rowCount(ColumnarFile[] inputs) {
+        if (inputs.length == 0) {
+            throw new IllegalArgumentException("Se necesita al menos un archivo de entrada");
+        }
+        int rows = inputs[0].rowCount();
+        for (ColumnarFile input : inputs) {
+            if (input.rowCount() != rows) {
+                throw new IllegalArgumentException(
+                    String.format("%s tiene %d filas, se esperaban %d", input.path().getFileName(), input.rowCount(), rows)
+                );
+            }
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("serial")
+    private final class EvaluateTask extends RecursiveAction {
+        private final DoubleBuffer[] columns;
+        private final DoubleBuffer out;
+        private final int from;
+        private final int to;
+
+        EvaluateTask(DoubleBuffer[] columns, DoubleBuffer out, int from, int to) {
+            this.columns = columns;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_ROWS) {
+                evaluator.evaluate(columns, out, from, to);
+                return;
+            }
+            // Corte alineado a bloques para que solo el último quede incompleto
+            int middle = from + ((to - from) / 2 / BatchEvaluator.BLOCK_SIZE) * BatchEvaluator.BLOCK_SIZE;
+            invokeAll(new EvaluateTask(columns, out, from, middle), new EvaluateTask(columns, out, middle, to));
+        }
+    }
+}
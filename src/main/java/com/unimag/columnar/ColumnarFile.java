@@ -0,0 +1,243 @@
+package com.unimag.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Archivo binario por columnas: un encabezado con los nombres de las
+ * columnas seguido de cada columna completa de doubles. Todo en little-endian:
+ *
+ *   0   magia "TRGC" (4 bytes)
+ *   4   versión (int)
+ *   8   filas (long)
+ *   16  columnas (int)
+ *   20  por columna: longitud del nombre en bytes (int) y el nombre en UTF-8
+ *       relleno con ceros hasta múltiplo de 8: inicio de los datos
+ *   datos: la columna c ocupa [datos + c·filas·8, datos + (c+1)·filas·8)
+ *
+ * Cada columna se mapea en memoria (FileChannel.map) y se expone como un
+ * DoubleBuffer, sin cargar el archivo en el heap. BatchEvaluator lee esos
+ * buffers bloque a bloque, copiando cada bloque a su pila de trabajo, y
+ * escribe el resultado directamente en la columna de salida (ver
+ * ColumnarEvaluator). Un DoubleBuffer se indexa con int, así que una
+ * columna admite hasta MAX_ROWS filas.
+ */
+public final class ColumnarFile {
+    public static final int VERSION = 1;
+    public static final int MAX_ROWS = Integer.MAX_VALUE / Double.BYTES;
+
+    private static final int MAGIC = 'T' | 'R' << 8 | 'G' << 16 | 'C' << 24;
+    private static final int FIXED_HEADER = 20;
+    private static final int MAX_NAME = 1 << 10;
+
+    private final Path path;
+    private final List<String> names;
+    private final long rows;
+    private final MappedByteBuffer[] mappings;
+    private final DoubleBuffer[] columns;
+
+    private ColumnarFile(Path path, List<String> names, long rows, MappedByteBuffer[] mappings) {
+        this.path = path;
+        this.names = Collections.unmodifiableList(names);
+        this.rows = rows;
+        this.mappings = mappings;
+        this.columns = new DoubleBuffer[mappings.length];
+        for (int c = 0; c < mappings.length; c++) {
+            columns[c] = mappings[c].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Crea (o sobrescribe) un archivo con rows filas y las columnas dadas,
+     * mapeado para escritura; las columnas empiezan en cero.
+     */
+    public static ColumnarFile create(Path path, long rows, List<String> names) throws IOException {
+        checkRows(rows);
+        if (new HashSet<>(names).size() != names.size()) {
+            throw new IllegalArgumentException("Columnas repetidas: " + names);
+        }
+        ByteBuffer header = encodeHeader(rows, names);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            // El mapeo extiende el archivo hasta su tamaño final
+            return new ColumnarFile(path, new ArrayList<>(names), rows,
+                    map(channel, FileChannel.MapMode.READ_WRITE, header.limit(), rows, names.size()));
+        }
+    }
+
+    /**
+     * Escribe las columnas dadas (todas del mismo largo) en un archivo nuevo.
+     */
+    public static ColumnarFile write(Path path, List<String> names, double[]... columns) throws IOException {
+        if (names.size() != columns.length) {
+            throw new IllegalArgumentException(
+                String.format("%d nombres para %d columnas", names.size(), columns.length)
+            );
+        }
+        int rows = columns.length == 0 ? 0 : columns[0].length;
+        ColumnarFile file = create(path, rows, names);
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c].length != rows) {
+                throw new IllegalArgumentException(
+                    String.format("La columna '%s' tiene %d filas, se esperaban %d", names.get(c), columns[c].length, rows)
+                );
+            }
+            file.columns[c].put(0, columns[c]);
+        }
+        return file;
+    }
+
+    /**
+     * Abre un archivo existente solo para lectura.
+     */
+    public static ColumnarFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FIXED_HEADER) {
+                throw new IOException("No es un archivo columnar: " + path);
+            }
+            ByteBuffer fixed = readFully(channel, 0, FIXED_HEADER);
+            if (fixed.getInt(0) != MAGIC) {
+                throw new IOException("No es un archivo columnar: " + path);
+            }
+            int version = fixed.getInt(4);
+            if (version != VERSION) {
+                throw new IOException(String.format("Versión de archivo columnar no soportada: %d", version));
+            }
+            long rows = fixed.getLong(8);
+            int count = fixed.getInt(16);
+            // Cada nombre ocupa al menos su longitud: acotar count antes de
+            // reservar la lista evita que un encabezado corrupto agote la memoria
+            if (rows < 0 || rows > MAX_ROWS || count < 0
+                    || count > (channel.size() - FIXED_HEADER) / Integer.BYTES) {
+                throw new IOException(String.format("Encabezado inválido: %d filas, %d columnas", rows, count));
+            }
+
+            List<String> names = new ArrayList<>(count);
+            long position = FIXED_HEADER;
+            for (int c = 0; c < count; c++) {
+                int length = readFully(channel, position, Integer.BYTES).getInt(0);
+                if (length < 0 || length > MAX_NAME) {
+                    throw new IOException("Nombre de columna inválido en la posición " + position);
+                }
+                ByteBuffer name = readFully(channel, position + Integer.BYTES, length);
+                names.add(new String(name.array(), 0, length, StandardCharsets.UTF_8));
+                position += Integer.BYTES + length;
+            }
+            long dataStart = align(position);
+            if (channel.size() < dataStart + rows * Double.BYTES * count) {
+                throw new IOException(String.format("Archivo truncado: %s", path));
+            }
+            return new ColumnarFile(path, names, rows, map(channel, FileChannel.MapMode.READ_ONLY, dataStart, rows, count));
+        }
+    }
+
+    public DoubleBuffer column(int index) {
+        return columns[index];
+    }
+
+    public DoubleBuffer column(String name) {
+        int index = columnIndex(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(
+                String.format("La columna '%s' no existe en %s", name, path.getFileName())
+            );
+        }
+        return columns[index];
+    }
+
+    /**
+     * Índice de la columna, o -1 si no existe.
+     */
+    public int columnIndex(String name) {
+        return names.indexOf(name);
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    public int rowCount() {
+        return (int) rows;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Fuerza las escrituras al disco.
+     */
+    public void force() {
+        for (MappedByteBuffer mapping : mappings) {
+            if (!mapping.isReadOnly()) {
+                mapping.force();
+            }
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long dataStart,
+                                          long rows, int count) throws IOException {
+        MappedByteBuffer[] mappings = new MappedByteBuffer[count];
+        long columnBytes = rows * Double.BYTES;
+        for (int c = 0; c < count; c++) {
+            mappings[c] = channel.map(mode, dataStart + c * columnBytes, columnBytes);
+        }
+        return mappings;
+    }
+
+    private static ByteBuffer encodeHeader(long rows, List<String> names) {
+        List<byte[]> encoded = new ArrayList<>(names.size());
+        long size = FIXED_HEADER;
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_NAME) {
+                throw new IllegalArgumentException("Nombre de columna demasiado largo: " + name);
+            }
+            encoded.add(bytes);
+            size += Integer.BYTES + bytes.length;
+        }
+        ByteBuffer header = ByteBuffer.allocate((int) align(size)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(rows).putInt(names.size());
+        for (byte[] bytes : encoded) {
+            header.putInt(bytes.length).put(bytes);
+        }
+        // El resto queda en cero: relleno hasta el inicio de los datos
+        return header.clear();
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Archivo columnar truncado en el encabezado");
+            }
+        }
+        return buffer;
+    }
+
+    private static long align(long position) {
+        return (position + Double.BYTES - 1) & -Double.BYTES;
+    }
+
+    private static void checkRows(long rows) {
+        if (rows < 0 || rows > MAX_ROWS) {
+            throw new IllegalArgumentException(
+                String.format("Número de filas fuera de rango: %d (máximo %d)", rows, MAX_ROWS)
+            );
+        }
+    }
+}
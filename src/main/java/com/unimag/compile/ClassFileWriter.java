@@ -0,0 +1,266 @@
+package com.unimag.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Escritor mínimo de archivos .class: pool de constantes con deduplicación
+ * y un búfer de bytecode. Solo cubre lo que necesita ExpressionCompiler
+ * (métodos sin saltos, por lo que no se emiten StackMapTable).
+ */
+final class ClassFileWriter {
+    static final int MAX_CODE_LENGTH = 65535;
+    // max_stack es un u2 del atributo Code
+    static final int MAX_STACK = 65535;
+    // Índices del pool de constantes (u2)
+    static final int MAX_POOL_ENTRIES = 0xFFFF;
+
+    // Opcodes usados por el compilador
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int DCONST_0 = 0x0e;
+    static final int DCONST_1 = 0x0f;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int DLOAD = 0x18;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int ALOAD_2 = 0x2c;
+    static final int DALOAD = 0x31;
+    static final int DSTORE = 0x39;
+    static final int ASTORE_2 = 0x4d;
+    static final int DASTORE = 0x52;
+    static final int DUP2 = 0x5c;
+    static final int DADD = 0x63;
+    static final int DSUB = 0x67;
+    static final int DMUL = 0x6b;
+    static final int DDIV = 0x6f;
+    static final int DNEG = 0x77;
+    static final int DRETURN = 0xaf;
+    static final int RETURN = 0xb1;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int NEWARRAY = 0xbc;
+    static final int T_DOUBLE = 7;
+
+    private static final int CLASS_FILE_VERSION = 65; // Java 21
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+    private int methodCount = 0;
+
+    int utf8(String value) {
+        Integer index = poolIndex.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return register("U" + value, 1);
+    }
+
+    int classRef(String internalName) {
+        Integer index = poolIndex.get("C" + internalName);
+        if (index != null) {
+            return index;
+        }
+        int name = utf8(internalName);
+        write(7, name);
+        return register("C" + internalName, 1);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        write(10, ownerIndex, nameAndType);
+        return register(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + ":" + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        write(12, nameIndex, descriptorIndex);
+        return register(key, 1);
+    }
+
+    int doubleConstant(double value) {
+        String key = "D" + Double.doubleToRawLongBits(value);
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(6);
+            pool.writeDouble(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Los double ocupan dos entradas del pool
+        return register(key, 2);
+    }
+
+    int intConstant(int value) {
+        String key = "I" + value;
+        Integer index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(3);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return register(key, 1);
+    }
+
+    /**
+     * Entradas usadas del pool de constantes (la 0 no se usa).
+     */
+    int poolCount() {
+        return poolCount;
+    }
+
+    /**
+     * Agrega un método con su atributo Code.
+     */
+    void method(int access, String name, String descriptor, Code code) {
+        if (code.length() > MAX_CODE_LENGTH) {
+            throw new IllegalStateException(
+                String.format("Método '%s' excede el tamaño máximo de bytecode (%d bytes)", name, code.length())
+            );
+        }
+        if (code.maxStack > MAX_STACK) {
+            throw new IllegalStateException(
+                String.format("Método '%s' excede la profundidad máxima de pila (%d)", name, code.maxStack)
+            );
+        }
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeAttribute = utf8("Code");
+        try {
+            methods.writeShort(access);
+            methods.writeShort(nameIndex);
+            methods.writeShort(descriptorIndex);
+            methods.writeShort(1);
+            methods.writeShort(codeAttribute);
+            methods.writeInt(12 + code.length());
+            methods.writeShort(code.maxStack);
+            methods.writeShort(code.maxLocals);
+            methods.writeInt(code.length());
+            code.bytes.writeTo(methods);
+            methods.writeShort(0); // tabla de excepciones
+            methods.writeShort(0); // atributos
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methodCount++;
+    }
+
+    byte[] toByteArray(int access, String thisClass, String superClass, String... interfaces) {
+        int thisIndex = classRef(thisClass);
+        int superIndex = classRef(superClass);
+        int[] interfaceIndices = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaceIndices[i] = classRef(interfaces[i]);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndices.length);
+            for (int index : interfaceIndices) {
+                out.writeShort(index);
+            }
+            out.writeShort(0); // campos
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            out.writeShort(0); // atributos de clase
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(int tag, int... shorts) {
+        try {
+            pool.writeByte(tag);
+            for (int value : shorts) {
+                pool.writeShort(value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int register(String key, int slots) {
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > MAX_POOL_ENTRIES) {
+            throw new IllegalStateException("Pool de constantes excedido");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    /**
+     * Búfer de bytecode de un método.
+     */
+    static final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int maxStack;
+        int maxLocals;
+
+        void op(int opcode) {
+            bytes.write(opcode);
+        }
+
+        void op(int opcode, int u1) {
+            bytes.write(opcode);
+            bytes.write(u1);
+        }
+
+        void opShort(int opcode, int u2) {
+            bytes.write(opcode);
+            bytes.write(u2 >>> 8);
+            bytes.write(u2);
+        }
+
+        int length() {
+            return bytes.size();
+        }
+    }
+}
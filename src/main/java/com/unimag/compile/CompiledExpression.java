@@ -0,0 +1,10 @@
+package com.unimag.compile;
+
+/**
+ * Expresión compilada a bytecode. Las variables se leen por slot
+ * (ver BoundExpression / VariableSlots).
+ */
+public interface CompiledExpression {
+
+    double eval(double[] vars);
+}
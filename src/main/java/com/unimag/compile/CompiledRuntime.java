@@ -0,0 +1,21 @@
+package com.unimag.compile;
+
+/**
+ * Operaciones de apoyo invocadas desde las clases generadas. Se mantienen
+ * fuera del bytecode para que los métodos generados no tengan saltos; el
+ * JIT las inlinea.
+ */
+final class CompiledRuntime {
+
+    private CompiledRuntime() {
+    }
+
+    static double divide(double l, double r) {
+        if (r == 0) {
+            throw new ArithmeticException(
+                "Error de ejecución: división por cero"
+            );
+        }
+        return l / r;
+    }
+}
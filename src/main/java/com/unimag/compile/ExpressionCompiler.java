@@ -0,0 +1,470 @@
+package com.unimag.compile;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.functions.MathFunction;
+import com.unimag.metrics.CompileEvent;
+import com.unimag.parser.astNodes.*;
+import com.unimag.vm.Linearizer;
+import com.unimag.vm.Program;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.unimag.compile.ClassFileWriter.*;
+
+/**
+ * Compilador de AST a bytecode.
+ *
+ * Cada expresión se traduce a una clase oculta (Lookup.defineHiddenClass)
+ * que implementa CompiledExpression; el método eval contiene el árbol
+ * "desenrollado" como código lineal, de modo que el JIT lo optimiza igual
+ * que una expresión escrita en Java. La clase se descarga cuando deja de
+ * haber referencias al objeto compilado.
+ *
+ * Si el árbol es un DAG (ver NodeFactory), cada nodo compartido se calcula
+ * una sola vez y se guarda en una variable local (dup2 + dstore); los demás
+ * usos son un dload.
+ *
+ * HotSpot no compila con el JIT los métodos de más de HUGE_METHOD_LIMIT
+ * bytes de bytecode (-XX:HugeMethodLimit): se quedarían en el intérprete,
+ * cientos de veces más lentos. Si eval pasaría de ese tamaño, el árbol se
+ * parte: los subárboles grandes van a métodos auxiliares privados de unos
+ * pocos miles de bytes, llamados en el lugar del subárbol. Como las
+ * variables locales no cruzan métodos, en ese caso los nodos compartidos
+ * se guardan en un arreglo de temporales que eval reserva en cada llamada
+ * y pasa a los auxiliares.
+ *
+ * Si ni así cabe (la pila de un método o el pool de constantes de la clase
+ * se agotan), compile() devuelve en su lugar el programa de la máquina de
+ * pila (ver Linearizer) envuelto como CompiledExpression: más lento, pero
+ * sin límite de tamaño, así que los llamadores no necesitan distinguir los
+ * dos casos.
+ *
+ * Compilar cuesta mucho más que una evaluación: para expresiones que se
+ * evalúan una sola vez conviene seguir usando Evaluator.
+ */
+public final class ExpressionCompiler {
+    private static final String CLASS_NAME = "com/unimag/compile/GeneratedExpression";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String MATH = "java/lang/Math";
+    private static final String RUNTIME = "com/unimag/compile/CompiledRuntime";
+    private static final String INTERFACE = "com/unimag/compile/CompiledExpression";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    public static final int HUGE_METHOD_LIMIT = 8000;
+    // Tamaño al que se apunta al partir; deja margen bajo HUGE_METHOD_LIMIT
+    private static final int METHOD_BUDGET = 7000;
+    // aload_0, aload_1, aload_2 e invokespecial
+    private static final int CALL_LENGTH = 6;
+    // Un nodo agrega a lo sumo unas pocas entradas al pool; se corta con margen
+    private static final int POOL_LIMIT = MAX_POOL_ENTRIES - 64;
+    // Los auxiliares reciben las variables y el arreglo de temporales
+    private static final String PART_DESCRIPTOR = "([D[D)D";
+
+    // Locales de eval: 0 es this, 1 el arreglo de variables. dload/dstore
+    // llevan un índice de un byte; pasado el límite se recalcula el nodo.
+    // Al partir, el local 2 es el arreglo de temporales en todos los métodos
+    private static final int FIRST_TEMP_LOCAL = 2;
+    private static final int MAX_TEMP_LOCAL = 254;
+    private static final int SPLIT_LOCALS = 3;
+
+    private final ClassFileWriter writer = new ClassFileWriter();
+    private final boolean split;
+    private Code code = new Code();
+    private Set<Node> shared = Set.of();
+    private final Map<Node, Integer> locals = new IdentityHashMap<>();
+    private int nextLocal = FIRST_TEMP_LOCAL;
+    private boolean tooLarge;
+    private final List<Integer> methodLengths = new ArrayList<>();
+
+    // Solo al partir: posición de cada nodo compartido en el arreglo de
+    // temporales, los ya calculados, los subárboles que van a un auxiliar y
+    // el tamaño del código propio de cada nodo visitado por plan
+    private final Map<Node, Integer> temps = new IdentityHashMap<>();
+    private final Set<Node> computed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Node> outlined = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Node, Integer> bodyLengths = new IdentityHashMap<>();
+    private int partCount;
+
+    private ExpressionCompiler(boolean split) {
+        this.split = split;
+    }
+
+    public static CompiledExpression compile(BoundExpression expression) {
+        return compile(expression.getRoot());
+    }
+
+    /**
+     * Compila un árbol ya ligado (todas sus variables deben tener slot).
+     */
+    public static CompiledExpression compile(Node boundAst) {
+        CompileEvent event = new CompileEvent();
+        event.begin();
+        byte[] bytes = generateClass(boundAst);
+        if (bytes == null) {
+            return interpreted(boundAst);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class));
+            CompiledExpression compiled = (CompiledExpression) constructor.invoke();
+            event.finish("bytecode", boundAst, bytes.length);
+            return compiled;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error de compilación: no se pudo definir la clase generada", e);
+        }
+    }
+
+    /**
+     * Tamaño en bytes del código de cada método que compile() genera para
+     * el árbol: eval primero y después los auxiliares. Vacío si compile()
+     * usaría la máquina de pila.
+     */
+    public static int[] methodLengths(Node boundAst) {
+        ExpressionCompiler compiler = new ExpressionCompiler(false);
+        if (compiler.generate(boundAst) == null) {
+            compiler = new ExpressionCompiler(true);
+            if (compiler.generate(boundAst) == null) {
+                return new int[0];
+            }
+        }
+        return compiler.methodLengths.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Primero en un solo método; si eval pasaría de HUGE_METHOD_LIMIT, partido
+    private static byte[] generateClass(Node boundAst) {
+        byte[] bytes = new ExpressionCompiler(false).generate(boundAst);
+        return bytes != null ? bytes : new ExpressionCompiler(true).generate(boundAst);
+    }
+
+    /**
+     * Alternativa para árboles que no caben en un método: el programa de la
+     * máquina de pila, con una pila por hilo.
+     */
+    private static CompiledExpression interpreted(Node boundAst) {
+        Program program = Linearizer.linearize(boundAst);
+        ThreadLocal<double[]> stacks = ThreadLocal.withInitial(program::newStack);
+        return vars -> program.evaluate(vars, stacks.get());
+    }
+
+    /**
+     * Bytes de la clase generada, o null si no cabe: sin partir, si eval
+     * pasaría de HUGE_METHOD_LIMIT; partido, si algún método excede el
+     * tamaño de código o la profundidad de pila, o se llena el pool.
+     */
+    private byte[] generate(Node ast) {
+        Code constructor = new Code();
+        constructor.op(ALOAD_0);
+        constructor.opShort(INVOKESPECIAL, writer.methodRef(OBJECT, "<init>", "()V"));
+        constructor.op(RETURN);
+        constructor.maxStack = 1;
+        constructor.maxLocals = 1;
+        writer.method(ACC_PUBLIC, "<init>", "()V", constructor);
+
+        shared = NodeFactory.findShared(ast);
+        if (split) {
+            plan(ast);
+            if (temps.isEmpty()) {
+                code.op(ACONST_NULL);
+            } else {
+                emitInt(temps.size());
+                code.op(NEWARRAY, T_DOUBLE);
+            }
+            code.op(ASTORE_2);
+            nextLocal = SPLIT_LOCALS;
+        }
+        int maxStack = emit(ast);
+        if (!addMethod(ACC_PUBLIC | ACC_FINAL, "eval", "([D)D", maxStack, nextLocal)) {
+            return null;
+        }
+        return writer.toByteArray(ACC_PUBLIC | ACC_FINAL | ACC_SUPER, CLASS_NAME, OBJECT, INTERFACE);
+    }
+
+    /**
+     * Cierra el método en curso con dreturn y lo agrega a la clase; false
+     * (y tooLarge) si no cabe.
+     */
+    private boolean addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+        code.op(DRETURN);
+        int limit = split ? MAX_CODE_LENGTH : HUGE_METHOD_LIMIT;
+        if (tooLarge || code.length() > limit || maxStack > MAX_STACK) {
+            tooLarge = true;
+            return false;
+        }
+        code.maxStack = maxStack;
+        code.maxLocals = maxLocals;
+        writer.method(access, name, descriptor, code);
+        methodLengths.add(code.length());
+        return true;
+    }
+
+    /**
+     * Emite el código que deja el valor del nodo en la pila y devuelve la
+     * profundidad máxima de pila (en slots) que usa.
+     */
+    private int emit(Node node) {
+        if (split) {
+            return emitSplit(node);
+        }
+        if (!shared.contains(node)) {
+            return emitNode(node);
+        }
+        Integer local = locals.get(node);
+        if (local != null) {
+            code.op(DLOAD, local);
+            return 2;
+        }
+        int depth = emitNode(node);
+        if (nextLocal <= MAX_TEMP_LOCAL) {
+            code.op(DUP2);
+            code.op(DSTORE, nextLocal);
+            locals.put(node, nextLocal);
+            nextLocal += 2;
+            // dup2 deja el valor dos veces en la pila
+            depth = Math.max(depth, 4);
+        }
+        return depth;
+    }
+
+    /**
+     * emit al partir: un nodo compartido se guarda en el arreglo de
+     * temporales la primera vez y se lee de ahí en los demás usos, aunque
+     * estén en otro método. Los auxiliares se llaman en el mismo orden en
+     * que se emiten, así que "primera vez" es la misma en ejecución.
+     */
+    private int emitSplit(Node node) {
+        if (!shared.contains(node)) {
+            return emitBody(node);
+        }
+        int index = temps.get(node);
+        if (!computed.add(node)) {
+            loadTemp(index);
+            return 2;
+        }
+        code.op(ALOAD_2);
+        emitInt(index);
+        int depth = 2 + emitBody(node);
+        code.op(DASTORE);
+        loadTemp(index);
+        return depth;
+    }
+
+    private int emitBody(Node node) {
+        return outlined.contains(node) ? emitCall(node) : emitNode(node);
+    }
+
+    /**
+     * Emite el nodo en un método auxiliar nuevo y, en el método en curso,
+     * la llamada que lo reemplaza.
+     */
+    private int emitCall(Node node) {
+        Code caller = code;
+        code = new Code();
+        String name = "part" + partCount++;
+        int depth = emitNode(node);
+        addMethod(ACC_PRIVATE | ACC_FINAL, name, PART_DESCRIPTOR, depth, SPLIT_LOCALS);
+        code = caller;
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.op(ALOAD_2);
+        code.opShort(INVOKESPECIAL, writer.methodRef(CLASS_NAME, name, PART_DESCRIPTOR));
+        return 3;
+    }
+
+    private void loadTemp(int index) {
+        code.op(ALOAD_2);
+        emitInt(index);
+        code.op(DALOAD);
+    }
+
+    /**
+     * Recorre el árbol en el mismo orden que emitSplit y devuelve el tamaño
+     * del código que emitirá para el nodo. Cuando el código de un nodo
+     * pasaría de METHOD_BUDGET, manda a auxiliares sus hijos más grandes
+     * hasta que cabe, así que ningún método pasa de unos METHOD_BUDGET
+     * bytes. Asigna también la posición de cada nodo compartido.
+     */
+    private int plan(Node node) {
+        boolean isShared = shared.contains(node);
+        Integer index = temps.get(node);
+        if (index != null) {
+            return 2 + intLength(index);
+        }
+        index = temps.size();
+        if (isShared) {
+            temps.put(node, index);
+        }
+        int body = planNode(node);
+        bodyLengths.put(node, body);
+        // aload_2, índice y dastore para guardarlo; aload_2, índice y daload para leerlo
+        return isShared ? body + 4 + 2 * intLength(index) : body;
+    }
+
+    private int planNode(Node node) {
+        Node[] children = children(node);
+        int length = ownLength(node);
+        int[] bodies = new int[children.length];
+        for (int i = 0; i < children.length; i++) {
+            // Un nodo compartido ya calculado se lee del arreglo: no se puede mover
+            boolean firstUse = !temps.containsKey(children[i]);
+            length += plan(children[i]);
+            bodies[i] = firstUse ? bodyLengths.get(children[i]) : 0;
+        }
+        while (length > METHOD_BUDGET) {
+            int largest = -1;
+            for (int i = 0; i < children.length; i++) {
+                if (bodies[i] > CALL_LENGTH && (largest < 0 || bodies[i] > bodies[largest])) {
+                    largest = i;
+                }
+            }
+            if (largest < 0) {
+                break;
+            }
+            outlined.add(children[largest]);
+            length -= bodies[largest] - CALL_LENGTH;
+            bodies[largest] = 0;
+        }
+        return length;
+    }
+
+    // Bytes que emitNode escribe para el nodo mismo, sin sus hijos
+    private static int ownLength(Node node) {
+        if (node instanceof NumberNode n) {
+            double value = n.getValue();
+            return Double.doubleToRawLongBits(value) == 0L || value == 1.0 ? 1 : 3;
+        }
+        if (node instanceof VarNode v) {
+            return 2 + intLength(v.getSlot());
+        }
+        if (node instanceof UnaryNode) {
+            return 1;
+        }
+        if (node instanceof BinaryNode b) {
+            char operator = b.getOperator();
+            return operator == '+' || operator == '-' || operator == '*' ? 1 : 3;
+        }
+        return 3;
+    }
+
+    private static Node[] children(Node node) {
+        if (node instanceof UnaryNode u) {
+            return new Node[]{u.getExpression()};
+        }
+        if (node instanceof BinaryNode b) {
+            return new Node[]{b.getLeft(), b.getRight()};
+        }
+        if (node instanceof FunctionNode f) {
+            Node[] arguments = new Node[f.getArgumentCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = f.getArgument(i);
+            }
+            return arguments;
+        }
+        return new Node[0];
+    }
+
+    private int emitNode(Node node) {
+        // Pasado el límite ya no se emite nada: el resto del árbol solo se
+        // recorre. Sin partir, cada nodo emite al menos 3 bytes por cada
+        // entrada nueva del pool, así que el límite de código llega antes
+        int limit = split ? MAX_CODE_LENGTH : HUGE_METHOD_LIMIT;
+        if (tooLarge || code.length() > limit || writer.poolCount() > POOL_LIMIT) {
+            tooLarge = true;
+            return 0;
+        }
+        if (node instanceof NumberNode n) {
+            emitConstant(n.getValue());
+            return 2;
+        }
+
+        if (node instanceof VarNode v) {
+            if (!v.isBound()) {
+                throw new IllegalArgumentException(
+                    String.format("Error de compilación: variable '%s' no está ligada a un slot", v.getIdentifier())
+                );
+            }
+            code.op(ALOAD_1);
+            emitInt(v.getSlot());
+            code.op(DALOAD);
+            return 2;
+        }
+
+        if (node instanceof UnaryNode u) {
+            int depth = emit(u.getExpression());
+            code.op(DNEG);
+            return depth;
+        }
+
+        if (node instanceof BinaryNode b) {
+            int leftDepth = emit(b.getLeft());
+            int rightDepth = 2 + emit(b.getRight());
+            switch (b.getOperator()) {
+                case '+' -> code.op(DADD);
+                case '-' -> code.op(DSUB);
+                case '*' -> code.op(DMUL);
+                case '/' -> code.opShort(INVOKESTATIC, writer.methodRef(RUNTIME, "divide", "(DD)D"));
+                case '^' -> code.opShort(INVOKESTATIC, writer.methodRef(MATH, "pow", "(DD)D"));
+                default -> throw new IllegalArgumentException(
+                    String.format("Operador desconocido: '%c'", b.getOperator())
+                );
+            }
+            return Math.max(leftDepth, rightDepth);
+        }
+
+        if (node instanceof FunctionNode f) {
+            // Cada argumento ya apilado ocupa 2 posiciones (double)
+            int depth = 0;
+            for (int i = 0; i < f.getArgumentCount(); i++) {
+                depth = Math.max(depth, 2 * i + emit(f.getArgument(i)));
+            }
+            MathFunction function = f.getFunction();
+            String owner = f.getPrecision().implementationClass(function);
+            code.opShort(INVOKESTATIC, writer.methodRef(owner, function.javaMethod(), function.javaDescriptor()));
+            return depth;
+        }
+
+        throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+    }
+
+    private void emitConstant(double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            code.op(DCONST_0);
+        } else if (value == 1.0) {
+            code.op(DCONST_1);
+        } else {
+            code.opShort(LDC2_W, writer.doubleConstant(value));
+        }
+    }
+
+    private static int intLength(int value) {
+        if (value <= 5) {
+            return 1;
+        }
+        return value <= Byte.MAX_VALUE ? 2 : 3;
+    }
+
+    private void emitInt(int value) {
+        if (value <= 5) {
+            code.op(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.op(BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            code.opShort(SIPUSH, value);
+        } else {
+            code.opShort(LDC_W, writer.intConstant(value));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.unimag.diagnostic;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Error de una expresión como dato: código, posición en la fuente (-1 si
+ * no se conoce) y los argumentos de su mensaje, que se arma recién cuando
+ * alguien lo pide con message(). Validar muchas expresiones inválidas solo
+ * cuesta crear este objeto; el texto no se formatea si nadie lo lee.
+ *
+ * Los argumentos deben ser inmutables (String, números, Token): el mensaje
+ * puede formatearse mucho después, cuando el texto de origen ya cambió.
+ * Al serializarlo se escribe con el mensaje ya formateado y los argumentos
+ * no serializables (como Token) convertidos a texto.
+ */
+public final class Diagnostic implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ErrorCode code;
+    private final int position;
+    // Nunca se serializan los campos: writeReplace escribe SerializedForm
+    private final transient Object[] args;
+    // Se calcula una vez; dos hilos pueden formatearlo a la vez, con el mismo resultado
+    private String message;
+
+    public Diagnostic(ErrorCode code, int position, Object... args) {
+        this.code = code;
+        this.position = position;
+        this.args = args;
+    }
+
+    private Diagnostic(ErrorCode code, int position, Object[] args, String message) {
+        this(code, position, args);
+        this.message = message;
+    }
+
+    public ErrorCode code() {
+        return code;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public String message() {
+        String text = message;
+        if (text == null) {
+            text = code.format(position, args);
+            message = text;
+        }
+        return text;
+    }
+
+    /**
+     * Argumentos del mensaje, sin la posición.
+     */
+    public Object[] arguments() {
+        return args.clone();
+    }
+
+    private Object writeReplace() {
+        Serializable[] portable = new Serializable[args.length];
+        for (int i = 0; i < args.length; i++) {
+            portable[i] = args[i] instanceof Serializable value ? value : String.valueOf(args[i]);
+        }
+        return new SerializedForm(code, position, portable, message());
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Un Diagnostic se lee solo a través de su forma serializada");
+    }
+
+    private record SerializedForm(ErrorCode code, int position, Serializable[] arguments, String message)
+            implements Serializable {
+        private Object readResolve() {
+            return new Diagnostic(code, position, arguments, message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return message();
+    }
+}
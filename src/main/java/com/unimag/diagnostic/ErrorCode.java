@@ -0,0 +1,68 @@
+package com.unimag.diagnostic;
+
+import com.unimag.metrics.ErrorCategory;
+
+/**
+ * Código de cada error que puede producir el análisis o la evaluación de
+ * una expresión, con la plantilla de su mensaje. En las plantillas con
+ * posición, el primer %d es la posición del error en la fuente.
+ */
+public enum ErrorCode {
+    MALFORMED_NUMBER(ErrorCategory.LEXICAL, true,
+            "Error léxico en posición %d: número mal formado '%s'"),
+    MULTIPLE_DECIMAL_POINTS(ErrorCategory.LEXICAL, true,
+            "Error léxico en posición %d: número mal formado con múltiples puntos decimales"),
+    UNKNOWN_CHARACTER(ErrorCategory.LEXICAL, true,
+            "Error léxico en posición %d: carácter desconocido '%c'"),
+    EMPTY_EXPRESSION(ErrorCategory.SYNTAX, false,
+            "Error: expresión vacía"),
+    UNEXPECTED_TOKEN(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: token inesperado '%s'\n  Se esperaba: número, variable, función, o '('"),
+    MISSING_CALL_PARENTHESIS(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: se esperaba '(' después de función '%s'\n  Token actual: %s"),
+    UNCLOSED_CALL(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: se esperaba ')' para cerrar función '%s'\n  Token actual: %s"),
+    UNCLOSED_PARENTHESIS(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: se esperaba ')' para cerrar paréntesis\n  Token actual: %s"),
+    TRAILING_TOKENS(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: tokens inesperados después de la expresión\n  Token: %s"),
+    UNKNOWN_FUNCTION(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: función desconocida '%s'"),
+    WRONG_ARITY(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: la función '%s' espera %d argumento(s), se recibieron %d"),
+    EXPRESSION_TOO_DEEP(ErrorCategory.SYNTAX, true,
+            "Error sintáctico en posición %d: la expresión supera la profundidad máxima de %d niveles"),
+    UNDEFINED_VARIABLE(ErrorCategory.SEMANTIC, false,
+            "Error semántico: variable '%s' no está definida"),
+    UNBOUND_VARIABLE(ErrorCategory.SEMANTIC, false,
+            "Error semántico: variable '%s' no está ligada a un slot"),
+    DIVISION_BY_ZERO(ErrorCategory.ARITHMETIC, false,
+            "Error de ejecución: división por cero");
+
+    private final ErrorCategory category;
+    private final boolean positional;
+    private final String template;
+
+    ErrorCode(ErrorCategory category, boolean positional, String template) {
+        this.category = category;
+        this.positional = positional;
+        this.template = template;
+    }
+
+    public ErrorCategory category() {
+        return category;
+    }
+
+    /**
+     * Mensaje del error; position solo se usa si la plantilla la lleva.
+     */
+    String format(int position, Object[] args) {
+        if (!positional) {
+            return args.length == 0 ? template : String.format(template, args);
+        }
+        Object[] all = new Object[args.length + 1];
+        all[0] = position;
+        System.arraycopy(args, 0, all, 1, args.length);
+        return String.format(template, all);
+    }
+}
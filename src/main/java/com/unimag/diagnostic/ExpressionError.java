@@ -0,0 +1,45 @@
+package com.unimag.diagnostic;
+
+/**
+ * Excepción de los errores de análisis (Lexer, Parser,
+ * OperatorPrecedenceParser) y de las variables sin valor. Lleva un
+ * Diagnostic y su mensaje se formatea recién en getMessage().
+ *
+ * No guarda la pila: apunta siempre al interior del parser y no dice nada
+ * de la entrada que falló, mientras que llenarla era la mayor parte del
+ * costo de rechazar una expresión. Sin pila, lanzarla y atraparla cuesta
+ * poco más que crearla; así el parser recursivo no necesita propagar el
+ * error a mano por cada producción y ExpressionValidator la convierte en
+ * un resultado sin que el llamador vea una excepción.
+ */
+public final class ExpressionError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Diagnostic diagnostic;
+
+    public ExpressionError(ErrorCode code, int position, Object... args) {
+        this(new Diagnostic(code, position, args));
+    }
+
+    public ExpressionError(Diagnostic diagnostic) {
+        super(null, null, false, false);
+        this.diagnostic = diagnostic;
+    }
+
+    public Diagnostic diagnostic() {
+        return diagnostic;
+    }
+
+    public ErrorCode code() {
+        return diagnostic.code();
+    }
+
+    public int position() {
+        return diagnostic.position();
+    }
+
+    @Override
+    public String getMessage() {
+        return diagnostic.message();
+    }
+}
@@ -0,0 +1,76 @@
+package com.unimag.diagnostic;
+
+import com.unimag.eval.VariableSlots;
+import com.unimag.lexer.Lexer;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.lexer.TokenType;
+import com.unimag.parser.OperatorPrecedenceParser;
+import com.unimag.parser.astNodes.Node;
+import com.unimag.parser.astNodes.NodeFactory;
+
+/**
+ * Validación de expresiones que devuelve los errores como datos en lugar de
+ * lanzarlos, para revisar muchas expresiones de usuarios cuando buena parte
+ * son inválidas.
+ *
+ * Usa el OperatorPrecedenceParser (sin recursión) sobre un TokenBuffer
+ * propio que se reutiliza entre llamadas, así que validar una expresión no
+ * crea un Token por lexema; los únicos String son los nombres que guarda el
+ * propio AST (variables y funciones). Si se dan las variables permitidas,
+ * también rechaza las demás con UNDEFINED_VARIABLE y la posición de su
+ * primera aparición; la comprobación compara rangos de la fuente y solo
+ * materializa el nombre para el mensaje de error.
+ *
+ * No es seguro entre hilos (por el buffer): cada hilo crea el suyo, como
+ * hace BulkLoader con sus TokenBuffer.
+ */
+public final class ExpressionValidator {
+    private final TokenBuffer buffer = new TokenBuffer();
+    private final VariableSlots variables;
+    private final NodeFactory nodes;
+
+    /**
+     * Valida la sintaxis; cualquier variable es válida.
+     */
+    public ExpressionValidator() {
+        this(null, NodeFactory.allocating());
+    }
+
+    /**
+     * Valida la sintaxis y que solo se usen las variables dadas.
+     */
+    public ExpressionValidator(VariableSlots variables) {
+        this(variables, NodeFactory.allocating());
+    }
+
+    public ExpressionValidator(VariableSlots variables, NodeFactory nodes) {
+        this.variables = variables;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Primer error de la expresión, o null si es válida.
+     */
+    public Diagnostic check(CharSequence source) {
+        return parse(source).error();
+    }
+
+    public ParseResult parse(CharSequence source) {
+        Node ast;
+        try {
+            new Lexer(source).tokenize(buffer);
+            ast = new OperatorPrecedenceParser(buffer, nodes).parse();
+        } catch (ExpressionError e) {
+            return ParseResult.failed(e.diagnostic());
+        }
+        if (variables != null) {
+            for (int i = 0; i < buffer.size(); i++) {
+                if (buffer.type(i) == TokenType.VAR
+                        && variables.indexOf(buffer.source(), buffer.start(i), buffer.end(i)) < 0) {
+                    return ParseResult.failed(new Diagnostic(ErrorCode.UNDEFINED_VARIABLE, buffer.start(i), buffer.text(i)));
+                }
+            }
+        }
+        return ParseResult.of(ast);
+    }
+}
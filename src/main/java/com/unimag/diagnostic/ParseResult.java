@@ -0,0 +1,38 @@
+package com.unimag.diagnostic;
+
+import com.unimag.parser.astNodes.Node;
+
+/**
+ * Resultado de analizar una expresión sin excepciones: el AST si es válida
+ * o el Diagnostic del primer error; exactamente uno de los dos es null.
+ */
+public record ParseResult(Node ast, Diagnostic error) {
+
+    public ParseResult {
+        if ((ast == null) == (error == null)) {
+            throw new IllegalArgumentException("Se espera un AST o un error, no ambos ni ninguno");
+        }
+    }
+
+    public static ParseResult of(Node ast) {
+        return new ParseResult(ast, null);
+    }
+
+    public static ParseResult failed(Diagnostic error) {
+        return new ParseResult(null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * El AST, o el error como ExpressionError.
+     */
+    public Node orElseThrow() {
+        if (error != null) {
+            throw new ExpressionError(error);
+        }
+        return ast;
+    }
+}
@@ -0,0 +1,16 @@
+package com.unimag.diff;
+
+/**
+ * Número dual value + derivative·ε (ε² = 0): el resultado del modo hacia
+ * adelante, con el valor de la expresión y su derivada direccional.
+ */
+public record Dual(double value, double derivative) {
+
+    public static Dual constant(double value) {
+        return new Dual(value, 0);
+    }
+
+    public static Dual variable(double value) {
+        return new Dual(value, 1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.unimag.diff;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.parser.astNodes.*;
+
+/**
+ * Diferenciación automática hacia adelante con números duales.
+ *
+ * Un recorrido del árbol da el valor y la derivada en una dirección (una
+ * variable o una combinación de ellas), así que el gradiente completo
+ * cuesta un recorrido por variable: conviene con pocas entradas. Para
+ * muchas, ver ReverseGradient.
+ *
+ * El valor es idéntico al de BoundExpression.evaluate, incluida la
+ * ArithmeticException de una división por cero.
+ */
+public final class ForwardMode {
+
+    private ForwardMode() {
+    }
+
+    /**
+     * Valor y derivada respecto a la variable del slot dado.
+     */
+    public static Dual derivative(BoundExpression expression, double[] values, int slot) {
+        double[] direction = new double[values.length];
+        direction[slot] = 1;
+        return evaluate(expression.getRoot(), values, direction);
+    }
+
+    /**
+     * Gradiente completo: un recorrido por variable. Devuelve el valor.
+     */
+    public static double gradient(BoundExpression expression, double[] values, double[] gradient) {
+        double[] direction = new double[values.length];
+        double value = expression.evaluate(values);
+        for (int slot = 0; slot < values.length; slot++) {
+            direction[slot] = 1;
+            gradient[slot] = evaluate(expression.getRoot(), values, direction).derivative();
+            direction[slot] = 0;
+        }
+        return value;
+    }
+
+    /**
+     * Valor y derivada direccional de un árbol ligado: direction[slot] es la
+     * derivada de cada variable (1 en un slot y 0 en los demás da la parcial).
+     */
+    public static Dual evaluate(Node node, double[] values, double[] direction) {
+        if (node instanceof NumberNode n) {
+            return Dual.constant(n.getValue());
+        }
+        if (node instanceof VarNode v) {
+            int slot = v.getSlot();
+            if (slot < 0) {
+                throw new IllegalArgumentException(
+                    String.format("Error de diferenciación: variable '%s' no está ligada a un slot", v.getIdentifier())
+                );
+            }
+            return new Dual(values[slot], direction[slot]);
+        }
+        if (node instanceof UnaryNode u) {
+            Dual x = evaluate(u.getExpression(), values, direction);
+            return new Dual(-x.value(), -x.derivative());
+        }
+        if (node instanceof BinaryNode b) {
+            Dual l = evaluate(b.getLeft(), values, direction);
+            Dual r = evaluate(b.getRight(), values, direction);
+            return binary(b.getOperator(), l, r);
+        }
+        if (node instanceof FunctionNode f) {
+            Dual x = evaluate(f.getArgument(0), values, direction);
+            if (f.getArgumentCount() == 1) {
+                double value = f.getPrecision().apply(f.getFunction(), x.value());
+                return new Dual(value, LocalDerivatives.chain(LocalDerivatives.unary(f.getFunction(), x.value(), value), x.derivative()));
+            }
+            Dual y = evaluate(f.getArgument(1), values, direction);
+            double value = f.getPrecision().apply(f.getFunction(), x.value(), y.value());
+            return new Dual(value,
+                    LocalDerivatives.chain(LocalDerivatives.first(f.getFunction(), x.value(), y.value()), x.derivative())
+                    + LocalDerivatives.chain(LocalDerivatives.second(f.getFunction(), x.value(), y.value()), y.derivative()));
+        }
+        throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+    }
+
+    private static Dual binary(char operator, Dual l, Dual r) {
+        double x = l.value();
+        double y = r.value();
+        // Lanza la división por cero y el operador desconocido
+        double value = BinaryNode.apply(operator, x, y);
+        return switch (operator) {
+            case '+' -> new Dual(value, l.derivative() + r.derivative());
+            case '-' -> new Dual(value, l.derivative() - r.derivative());
+            case '*' -> new Dual(value, LocalDerivatives.chain(y, l.derivative()) + LocalDerivatives.chain(x, r.derivative()));
+            case '/' -> new Dual(value, (l.derivative() - LocalDerivatives.chain(value, r.derivative())) / y);
+            default -> new Dual(value, LocalDerivatives.chain(LocalDerivatives.powBase(x, y), l.derivative())
+                    + LocalDerivatives.chain(LocalDerivatives.powExponent(x, value), r.derivative()));
+        };
+    }
+}
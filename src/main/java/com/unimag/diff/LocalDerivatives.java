@@ -0,0 +1,88 @@
+package com.unimag.diff;
+
+import com.unimag.functions.MathFunction;
+
+/**
+ * Derivadas de cada operación respecto a sus operandos, compartidas por el
+ * modo hacia adelante y el inverso para que ambos den el mismo resultado.
+ *
+ * Se calculan con Math sea cual sea la TrigPrecision de la llamada. En los
+ * puntos sin derivada se usa un subgradiente: abs'(0) = 0, y min/max
+ * reparten la derivada a medias cuando sus argumentos empatan.
+ */
+final class LocalDerivatives {
+
+    private LocalDerivatives() {
+    }
+
+    /**
+     * f'(x), conocido también el valor f(x).
+     */
+    static double unary(MathFunction function, double x, double value) {
+        return switch (function) {
+            case SIN -> Math.cos(x);
+            case COS -> -Math.sin(x);
+            case TAN -> 1 + value * value;
+            case ASIN -> 1 / Math.sqrt(1 - x * x);
+            case ACOS -> -1 / Math.sqrt(1 - x * x);
+            case ATAN -> 1 / (1 + x * x);
+            case SINH -> Math.cosh(x);
+            case COSH -> Math.sinh(x);
+            case TANH -> 1 - value * value;
+            case SQRT -> 0.5 / value;
+            case EXP -> value;
+            case LOG -> 1 / x;
+            case ABS -> Math.signum(x);
+            case SIGNUM -> 0;
+            default -> throw new IllegalArgumentException("Función unaria desconocida: " + function.symbol());
+        };
+    }
+
+    /**
+     * ∂f/∂x de f(x, y).
+     */
+    static double first(MathFunction function, double x, double y) {
+        return switch (function) {
+            case ATAN2 -> y / (x * x + y * y);
+            case MIN -> x < y ? 1 : x > y ? 0 : 0.5;
+            case MAX -> x > y ? 1 : x < y ? 0 : 0.5;
+            default -> throw new IllegalArgumentException("Función binaria desconocida: " + function.symbol());
+        };
+    }
+
+    /**
+     * ∂f/∂y de f(x, y).
+     */
+    static double second(MathFunction function, double x, double y) {
+        return switch (function) {
+            case ATAN2 -> -x / (x * x + y * y);
+            case MIN, MAX -> 1 - first(function, x, y);
+            default -> throw new IllegalArgumentException("Función binaria desconocida: " + function.symbol());
+        };
+    }
+
+    /**
+     * Producto de la regla de la cadena con cero fuerte: si un factor es 0
+     * el término es 0, aunque el otro sea infinito o NaN (sqrt en 0, log de
+     * un negativo con exponente constante). Así un operando que no depende
+     * de la variable no aporta nada, como en la derivada simbólica, que
+     * descarta esos términos; ambos modos lo usan para coincidir.
+     */
+    static double chain(double a, double b) {
+        return a == 0 || b == 0 ? 0 : a * b;
+    }
+
+    /**
+     * ∂(x^y)/∂x.
+     */
+    static double powBase(double x, double y) {
+        return y * Math.pow(x, y - 1);
+    }
+
+    /**
+     * ∂(x^y)/∂y, conocido x^y. Vale 0 cuando x^y = 0 (evita 0·log 0).
+     */
+    static double powExponent(double x, double value) {
+        return value == 0 ? 0 : value * Math.log(x);
+    }
+}
@@ -0,0 +1,159 @@
+package com.unimag.diff;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.NodeTape;
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.parser.astNodes.*;
+
+import java.util.Arrays;
+
+import static com.unimag.eval.NodeTape.*;
+
+/**
+ * Diferenciación automática inversa: el gradiente completo respecto a todas
+ * las variables con una pasada hacia adelante y una hacia atrás, sea cual
+ * sea el número de variables.
+ *
+ * La expresión se graba una vez como cinta (ver NodeTape): los nodos en
+ * post-orden, cada hijo antes que su padre. La pasada hacia adelante
+ * guarda el valor de cada nodo; la inversa recorre la cinta desde la raíz
+ * acumulando en cada nodo la derivada de la raíz respecto a él (su
+ * adjunto). Un nodo compartido de un DAG (ver BoundExpression.shared())
+ * ocupa una sola entrada y acumula los adjuntos de todos sus usos.
+ *
+ * Las derivadas locales son las de ForwardMode (ver LocalDerivatives). Es
+ * inmutable; cada hilo usa su propio arreglo de trabajo (newScratch()).
+ */
+public final class ReverseGradient {
+    private final BoundExpression expression;
+    private final int[] kinds;
+    private final int[] operands;        // slot u operador según el tipo
+    private final int[] lefts;
+    private final int[] rights;
+    private final double[] constants;
+    private final MathFunction[] functions;
+    private final TrigPrecision[] precisions;
+    private final int slotCount;
+
+    private ReverseGradient(BoundExpression expression, NodeTape tape) {
+        this.expression = expression;
+        this.kinds = tape.kinds();
+        this.operands = tape.operands();
+        this.lefts = tape.lefts();
+        this.rights = tape.rights();
+        this.constants = tape.constants();
+        this.functions = new MathFunction[kinds.length];
+        this.precisions = new TrigPrecision[kinds.length];
+        Node[] nodes = tape.nodes();
+        for (int node = 0; node < nodes.length; node++) {
+            if (nodes[node] instanceof FunctionNode f) {
+                functions[node] = f.getFunction();
+                precisions[node] = f.getPrecision();
+            }
+        }
+        this.slotCount = expression.getSlots().size();
+    }
+
+    public static ReverseGradient of(BoundExpression expression) {
+        return new ReverseGradient(expression, NodeTape.record(expression.getRoot(), "diferenciación"));
+    }
+
+    /**
+     * Evalúa la expresión y deja en gradient[slot] su derivada respecto a
+     * cada variable. scratch debe venir de newScratch() y no compartirse
+     * entre hilos. Devuelve el valor, idéntico al de BoundExpression.evaluate.
+     */
+    public double evaluate(double[] values, double[] gradient, double[] scratch) {
+        int n = kinds.length;
+        // scratch[0, n): valores; scratch[n, 2n): adjuntos
+        for (int node = 0; node < n; node++) {
+            scratch[node] = forward(node, values, scratch);
+        }
+
+        Arrays.fill(gradient, 0, slotCount, 0.0);
+        Arrays.fill(scratch, n, 2 * n, 0.0);
+        scratch[2 * n - 1] = 1;
+        for (int node = n - 1; node >= 0; node--) {
+            double adjoint = scratch[n + node];
+            int l = lefts[node];
+            int r = rights[node];
+            switch (kinds[node]) {
+                case CONST -> {
+                }
+                case LOAD -> gradient[operands[node]] += adjoint;
+                case NEG -> scratch[n + l] -= adjoint;
+                case BINARY -> {
+                    double x = scratch[l];
+                    double y = scratch[r];
+                    switch (operands[node]) {
+                        case '+' -> {
+                            scratch[n + l] += adjoint;
+                            scratch[n + r] += adjoint;
+                        }
+                        case '-' -> {
+                            scratch[n + l] += adjoint;
+                            scratch[n + r] -= adjoint;
+                        }
+                        case '*' -> {
+                            scratch[n + l] += LocalDerivatives.chain(adjoint, y);
+                            scratch[n + r] += LocalDerivatives.chain(adjoint, x);
+                        }
+                        case '/' -> {
+                            scratch[n + l] += adjoint / y;
+                            scratch[n + r] -= LocalDerivatives.chain(adjoint, scratch[node]) / y;
+                        }
+                        default -> {
+                            scratch[n + l] += LocalDerivatives.chain(adjoint, LocalDerivatives.powBase(x, y));
+                            scratch[n + r] += LocalDerivatives.chain(adjoint, LocalDerivatives.powExponent(x, scratch[node]));
+                        }
+                    }
+                }
+                case CALL1 -> scratch[n + l] += LocalDerivatives.chain(adjoint,
+                        LocalDerivatives.unary(functions[node], scratch[l], scratch[node]));
+                default -> {
+                    scratch[n + l] += LocalDerivatives.chain(adjoint,
+                            LocalDerivatives.first(functions[node], scratch[l], scratch[r]));
+                    scratch[n + r] += LocalDerivatives.chain(adjoint,
+                            LocalDerivatives.second(functions[node], scratch[l], scratch[r]));
+                }
+            }
+        }
+        return scratch[n - 1];
+    }
+
+    /**
+     * Conveniencia para llamadas aisladas; reserva un arreglo de trabajo.
+     */
+    public double evaluate(double[] values, double[] gradient) {
+        return evaluate(values, gradient, newScratch());
+    }
+
+    public double[] newScratch() {
+        return new double[2 * kinds.length];
+    }
+
+    /**
+     * Entradas de la cinta (los nodos compartidos de un DAG cuentan una vez).
+     */
+    public int tapeLength() {
+        return kinds.length;
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    private double forward(int node, double[] values, double[] scratch) {
+        int l = lefts[node];
+        int r = rights[node];
+        return switch (kinds[node]) {
+            case CONST -> constants[node];
+            case LOAD -> values[operands[node]];
+            case NEG -> -scratch[l];
+            case BINARY -> BinaryNode.apply((char) operands[node], scratch[l], scratch[r]);
+            case CALL1 -> precisions[node].apply(functions[node], scratch[l]);
+            default -> precisions[node].apply(functions[node], scratch[l], scratch[r]);
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.unimag.diff;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.optimizer.Optimizer;
+import com.unimag.parser.astNodes.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Derivada simbólica: un AST nuevo que calcula ∂f/∂variable, evaluable con
+ * cualquier backend (árbol, compilador, máquina de pila, lotes).
+ *
+ * El resultado reutiliza por referencia los subárboles de f (u aparece en
+ * f y en f' al derivar sin(u)), así que conviene pasarlo por
+ * BoundExpression.shared() para calcular cada uno una vez. Mientras se
+ * construye se descartan los términos que son 0 y los factores 1; como en
+ * la derivación a mano, 0·u se toma como 0 aunque u sea infinito o NaN.
+ * Las funciones nuevas heredan la precisión de la llamada derivada.
+ *
+ * Las reglas coinciden con LocalDerivatives: abs'(u) = signum(u) y
+ * min/max reparten la derivada a medias cuando sus argumentos empatan.
+ */
+public final class SymbolicDerivative {
+    private static final Node ZERO = new NumberNode(0);
+    private static final Node ONE = new NumberNode(1);
+    private static final Node TWO = new NumberNode(2);
+
+    private final String variable;
+    // Derivada ya calculada de cada nodo: en un DAG, un subárbol compartido
+    // se deriva una vez y su derivada también queda compartida
+    private final Map<Node, Node> derivatives = new IdentityHashMap<>();
+
+    private SymbolicDerivative(String variable) {
+        this.variable = variable;
+    }
+
+    /**
+     * ∂ast/∂variable, sin simplificar más allá de los 0 y 1 triviales.
+     * Funciona igual sobre árboles ligados o sin ligar.
+     */
+    public static Node derive(Node ast, String variable) {
+        return new SymbolicDerivative(variable).derive(ast);
+    }
+
+    /**
+     * Derivada de una expresión ligada respecto a una de sus variables,
+     * optimizada (ver Optimizer) y ligada a la misma tabla de slots.
+     */
+    public static BoundExpression derivative(BoundExpression expression, String variable) {
+        if (expression.slotOf(variable) < 0) {
+            throw new IllegalArgumentException(
+                String.format("La variable '%s' no aparece en la expresión", variable)
+            );
+        }
+        Node derivative = Optimizer.optimize(derive(expression.getRoot(), variable));
+        return BoundExpression.bind(derivative, expression.getSlots());
+    }
+
+    private Node derive(Node node) {
+        Node derivative = derivatives.get(node);
+        if (derivative == null) {
+            derivative = deriveNode(node);
+            derivatives.put(node, derivative);
+        }
+        return derivative;
+    }
+
+    private Node deriveNode(Node node) {
+        if (node instanceof NumberNode) {
+            return ZERO;
+        }
+        if (node instanceof VarNode v) {
+            return v.getIdentifier().equals(variable) ? ONE : ZERO;
+        }
+        if (node instanceof UnaryNode u) {
+            return negate(derive(u.getExpression()));
+        }
+        if (node instanceof BinaryNode b) {
+            return deriveBinary(b);
+        }
+        if (node instanceof FunctionNode f) {
+            return deriveFunction(f);
+        }
+        throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+    }
+
+    private Node deriveBinary(BinaryNode node) {
+        Node u = node.getLeft();
+        Node v = node.getRight();
+        Node du = derive(u);
+        Node dv = derive(v);
+        return switch (node.getOperator()) {
+            case '+' -> add(du, dv);
+            case '-' -> subtract(du, dv);
+            case '*' -> add(multiply(du, v), multiply(u, dv));
+            // (u/v)' = u'/v - (u/v)·v'/v, sin elevar v al cuadrado
+            case '/' -> subtract(divide(du, v), divide(multiply(node, dv), v));
+            case '^' -> {
+                // Si el exponente no depende de la variable queda v·u^(v-1)·u',
+                // sin log(u), que sería NaN para u < 0
+                Node base = isZero(du) ? ZERO
+                        : multiply(multiply(v, new BinaryNode('^', u, subtract(v, ONE))), du);
+                // Con base 0, u^v·log(u) sería 0·(-∞): se toma 0, como en LocalDerivatives
+                Node exponent = isZero(dv) || isZero(u) ? ZERO
+                        : multiply(multiply(node, call(MathFunction.LOG, TrigPrecision.DEFAULT, u)), dv);
+                yield add(base, exponent);
+            }
+            default -> throw new IllegalArgumentException(
+                String.format("Operador desconocido: '%c'", node.getOperator())
+            );
+        };
+    }
+
+    private Node deriveFunction(FunctionNode node) {
+        MathFunction function = node.getFunction();
+        TrigPrecision precision = node.getPrecision();
+        Node u = node.getArgument(0);
+        Node du = derive(u);
+
+        if (function.arity() == 2) {
+            Node v = node.getArgument(1);
+            Node dv = derive(v);
+            if (isZero(du) && isZero(dv)) {
+                return ZERO;
+            }
+            return switch (function) {
+                // atan2(u, v)' = (v·u' - u·v') / (u² + v²)
+                case ATAN2 -> divide(subtract(multiply(v, du), multiply(u, dv)),
+                        new BinaryNode('+', new BinaryNode('*', u, u), new BinaryNode('*', v, v)));
+                // (u' + v' ± signum(v - u)·(u' - v')) / 2
+                case MIN -> divide(add(add(du, dv),
+                        multiply(call(MathFunction.SIGNUM, precision, new BinaryNode('-', v, u)), subtract(du, dv))), TWO);
+                case MAX -> divide(add(add(du, dv),
+                        multiply(call(MathFunction.SIGNUM, precision, new BinaryNode('-', u, v)), subtract(du, dv))), TWO);
+                default -> throw new IllegalArgumentException("Función binaria desconocida: " + function.symbol());
+            };
+        }
+
+        if (isZero(du)) {
+            return ZERO;
+        }
+        Node local = switch (function) {
+            case SIN -> call(MathFunction.COS, precision, u);
+            case COS -> negate(call(MathFunction.SIN, precision, u));
+            case TAN -> add(ONE, new BinaryNode('*', node, node));
+            case ASIN -> divide(ONE, call(MathFunction.SQRT, precision, subtract(ONE, new BinaryNode('*', u, u))));
+            case ACOS -> negate(divide(ONE, call(MathFunction.SQRT, precision, subtract(ONE, new BinaryNode('*', u, u)))));
+            case ATAN -> divide(ONE, add(ONE, new BinaryNode('*', u, u)));
+            case SINH -> call(MathFunction.COSH, precision, u);
+            case COSH -> call(MathFunction.SINH, precision, u);
+            case TANH -> subtract(ONE, new BinaryNode('*', node, node));
+            case SQRT -> divide(new NumberNode(0.5), node);
+            case EXP -> node;
+            case LOG -> divide(ONE, u);
+            case ABS -> call(MathFunction.SIGNUM, precision, u);
+            case SIGNUM -> ZERO;
+            default -> throw new IllegalArgumentException("Función unaria desconocida: " + function.symbol());
+        };
+        return multiply(local, du);
+    }
+
+    private static boolean isZero(Node node) {
+        return node instanceof NumberNode n && n.getValue() == 0;
+    }
+
+    private static boolean isOne(Node node) {
+        return node instanceof NumberNode n && n.getValue() == 1;
+    }
+
+    private static Node call(MathFunction function, TrigPrecision precision, Node argument) {
+        return new FunctionNode(function, precision, argument);
+    }
+
+    private static Node add(Node a, Node b) {
+        if (isZero(a)) {
+            return b;
+        }
+        return isZero(b) ? a : new BinaryNode('+', a, b);
+    }
+
+    private static Node subtract(Node a, Node b) {
+        if (isZero(b)) {
+            return a;
+        }
+        return isZero(a) ? negate(b) : new BinaryNode('-', a, b);
+    }
+
+    private static Node multiply(Node a, Node b) {
+        if (isZero(a) || isZero(b)) {
+            return ZERO;
+        }
+        if (isOne(a)) {
+            return b;
+        }
+        return isOne(b) ? a : new BinaryNode('*', a, b);
+    }
+
+    private static Node divide(Node a, Node b) {
+        if (isZero(a)) {
+            return ZERO;
+        }
+        return isOne(b) ? a : new BinaryNode('/', a, b);
+    }
+
+    private static Node negate(Node a) {
+        return isZero(a) ? ZERO : new UnaryNode(a);
+    }
+}
@@ -0,0 +1,161 @@
+package com.unimag.eval;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.optimizer.Optimizer;
+import com.unimag.parser.astNodes.*;
+
+import java.util.Map;
+
+/**
+ * Expresión cuyo árbol ya fue ligado a una tabla de slots.
+ *
+ * La resolución nombre → slot ocurre una sola vez en bind(); después,
+ * evaluate(double[]) no hace hashing, boxing ni reserva memoria, por lo que
+ * es el punto de entrada para evaluar el mismo AST con muchos valores.
+ *
+ * Es inmutable (el árbol y la tabla de slots también lo son), así que una
+ * misma instancia puede evaluarse desde muchos hilos a la vez; el estado de
+ * cada hilo va en su propio double[] o EvaluationContext.
+ */
+public final class BoundExpression {
+    private final Node root;
+    private final VariableSlots slots;
+
+    private BoundExpression(Node root, VariableSlots slots) {
+        this.root = root;
+        this.slots = slots;
+    }
+
+    /**
+     * Liga el árbol asignando slots en orden de primera aparición.
+     */
+    public static BoundExpression bind(Node ast) {
+        return bind(ast, VariableSlots.forTree(ast));
+    }
+
+    /**
+     * Liga el árbol a una tabla de slots dada; la tabla debe contener todas
+     * las variables del árbol.
+     */
+    public static BoundExpression bind(Node ast, VariableSlots slots) {
+        return new BoundExpression(ast.bind(slots.asMap()), slots);
+    }
+
+    /**
+     * Envuelve un árbol cuyas variables ya están ligadas a los slots de la
+     * tabla (por ejemplo, leído de un catálogo, ver ExpressionCatalog), sin
+     * recorrerlo de nuevo; así también se conserva un DAG. El llamador
+     * garantiza que cada VarNode lleva el slot de su nombre en la tabla.
+     */
+    public static BoundExpression ofBound(Node boundAst, VariableSlots slots) {
+        return new BoundExpression(boundAst, slots);
+    }
+
+    /**
+     * Misma expresión con el árbol optimizado (ver Optimizer); conserva la
+     * tabla de slots, aunque alguna variable haya desaparecido del árbol.
+     */
+    public BoundExpression optimized() {
+        return new BoundExpression(Optimizer.optimize(root), slots);
+    }
+
+    /**
+     * Misma expresión con los subárboles iguales compartidos (un DAG, ver
+     * NodeFactory). Compilador, máquina de pila y lotes calculan entonces
+     * cada subexpresión repetida una sola vez por evaluación; el recorrido
+     * del árbol (evaluate) sigue visitándola en cada uso.
+     *
+     * Conviene aplicarlo al final: bind, optimized y withPrecision
+     * reconstruyen el árbol y pierden lo compartido.
+     */
+    public BoundExpression shared() {
+        return new BoundExpression(NodeFactory.hashConsing().intern(root), slots);
+    }
+
+    /**
+     * Misma expresión con todas sus funciones evaluadas con la precisión
+     * dada (ver TrigPrecision). La respetan todos los backends que parten de
+     * esta expresión: árbol, compilador, máquina de pila y lotes.
+     */
+    public BoundExpression withPrecision(TrigPrecision precision) {
+        return new BoundExpression(withPrecision(root, precision), slots);
+    }
+
+    private static Node withPrecision(Node node, TrigPrecision precision) {
+        if (node instanceof UnaryNode u) {
+            return new UnaryNode(withPrecision(u.getExpression(), precision));
+        }
+        if (node instanceof BinaryNode b) {
+            return new BinaryNode(b.getOperator(),
+                    withPrecision(b.getLeft(), precision), withPrecision(b.getRight(), precision));
+        }
+        if (node instanceof FunctionNode f) {
+            Node[] arguments = new Node[f.getArgumentCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = withPrecision(f.getArgument(i), precision);
+            }
+            return f.withPrecision(precision).withArguments(arguments);
+        }
+        return node;
+    }
+
+    /**
+     * Modo de evaluación que comparte argumentos y reducción de rango entre
+     * llamadas sin/cos (ver FusedTrigExpression).
+     */
+    public FusedTrigExpression fusedTrig() {
+        return FusedTrigExpression.of(this);
+    }
+
+    public double evaluate(double[] values) {
+        return root.evaluate(values);
+    }
+
+    /**
+     * Conveniencia para llamadas aisladas; copia el mapa a un arreglo.
+     */
+    public double evaluate(Map<String, Double> env) {
+        double[] values = newValues();
+        for (int i = 0; i < values.length; i++) {
+            Double value = env.get(slots.name(i));
+            if (value == null) {
+                throw new ExpressionError(ErrorCode.UNDEFINED_VARIABLE, -1, slots.name(i));
+            }
+            values[i] = value;
+        }
+        return evaluate(values);
+    }
+
+    /**
+     * Contexto de evaluación nuevo, para uso de un solo hilo.
+     */
+    public EvaluationContext newContext() {
+        return new EvaluationContext(this);
+    }
+
+    /**
+     * Contexto que recalcula solo lo que depende de las variables que
+     * cambiaron (ver IncrementalContext), para uso de un solo hilo.
+     */
+    public IncrementalContext newIncrementalContext() {
+        return new IncrementalContext(this);
+    }
+
+    public double[] newValues() {
+        return new double[slots.size()];
+    }
+
+    public int slotOf(String name) {
+        return slots.indexOf(name);
+    }
+
+    public VariableSlots getSlots() {
+        return slots;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+}
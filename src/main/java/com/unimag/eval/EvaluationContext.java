@@ -0,0 +1,101 @@
+package com.unimag.eval;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.metrics.SlowEvaluationEvent;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Valores de las variables para evaluar una BoundExpression.
+ *
+ * Es el estado mutable que antes vivía dentro de Evaluator: cada hilo (o
+ * hilo virtual) crea el suyo con expression.newContext() y la expresión,
+ * inmutable, se comparte sin candados ni copias por llamada. Un contexto no
+ * es seguro para uso concurrente.
+ */
+public final class EvaluationContext {
+    private final BoundExpression expression;
+    private final double[] values;
+    private final boolean[] assigned;
+    private int missing;
+
+    EvaluationContext(BoundExpression expression) {
+        this.expression = expression;
+        this.values = expression.newValues();
+        this.assigned = new boolean[values.length];
+        this.missing = values.length;
+    }
+
+    public EvaluationContext set(int slot, double value) {
+        values[slot] = value;
+        if (!assigned[slot]) {
+            assigned[slot] = true;
+            missing--;
+        }
+        return this;
+    }
+
+    public EvaluationContext set(String name, double value) {
+        int slot = expression.slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                String.format("La variable '%s' no aparece en la expresión", name)
+            );
+        }
+        return set(slot, value);
+    }
+
+    /**
+     * Asigna las variables del mapa que aparecen en la expresión; las demás
+     * se ignoran, igual que en Evaluator.
+     */
+    public EvaluationContext setAll(Map<String, Double> variables) {
+        for (Map.Entry<String, Double> entry : variables.entrySet()) {
+            int slot = expression.slotOf(entry.getKey());
+            if (slot >= 0) {
+                set(slot, entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    public boolean isAssigned(int slot) {
+        return assigned[slot];
+    }
+
+    public double get(int slot) {
+        return values[slot];
+    }
+
+    public double evaluate() {
+        if (missing > 0) {
+            throw new ExpressionError(ErrorCode.UNDEFINED_VARIABLE, -1, firstMissing());
+        }
+        SlowEvaluationEvent event = new SlowEvaluationEvent();
+        event.begin();
+        double result = expression.evaluate(values);
+        event.finish(expression.getRoot());
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0.0);
+        Arrays.fill(assigned, false);
+        missing = values.length;
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    private String firstMissing() {
+        for (int slot = 0; slot < assigned.length; slot++) {
+            if (!assigned[slot]) {
+                return expression.getSlots().name(slot);
+            }
+        }
+        return "?";
+    }
+}
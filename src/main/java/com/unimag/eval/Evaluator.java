@@ -4,18 +4,33 @@ import com.unimag.parser.astNodes.Node;
 
 import java.util.*;
 
+/**
+ * Evaluador interactivo de un AST.
+ *
+ * Combina una expresión inmutable (BoundExpression, compartible entre
+ * hilos) con un EvaluationContext propio; por eso una instancia de
+ * Evaluator no debe compartirse entre hilos, pero varias pueden compartir
+ * la misma expresión.
+ */
 public class Evaluator {
-    private final Node ast;
+    private final BoundExpression expression;
+    private final EvaluationContext context;
+    // Todas las variables asignadas, incluidas las que no aparecen en el AST
     private final Map<String, Double> environment;
 
     public Evaluator(Node ast) {
-        this.ast = ast;
+        this(BoundExpression.bind(ast));
+    }
+
+    public Evaluator(BoundExpression expression) {
+        this.expression = expression;
+        this.context = expression.newContext();
         this.environment = new HashMap<>();
     }
 
     public Set<String> collectVariables() {
         Set<String> variables = new HashSet<>();
-        ast.collectVariables(variables);
+        expression.getRoot().collectVariables(variables);
         return variables;
     }
 
@@ -33,7 +48,7 @@ public class Evaluator {
             System.out.print("Ingrese valor para '" + var + "': ");
             try {
                 double value = Double.parseDouble(scanner.nextLine().trim());
-                environment.put(var, value);
+                setVariable(var, value);
             } catch (NumberFormatException e) {
                 throw new RuntimeException(
                     String.format("Error: valor inválido para variable '%s'. Se esperaba un número.", var)
@@ -45,14 +60,30 @@ public class Evaluator {
 
     public void setVariable(String varName, double value) {
         environment.put(varName, value);
+        int slot = expression.slotOf(varName);
+        if (slot >= 0) {
+            context.set(slot, value);
+        }
     }
 
     public void setVariables(Map<String, Double> variables) {
         environment.putAll(variables);
+        context.setAll(variables);
     }
 
     public double evaluate() throws Exception {
-        return ast.evaluate(environment);
+        return context.evaluate();
+    }
+
+    /**
+     * Liga el AST a slots para evaluaciones repetidas con double[].
+     */
+    public BoundExpression bind() {
+        return expression;
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
     }
 
     public Map<String, Double> getEnvironment() {
@@ -0,0 +1,245 @@
+package com.unimag.eval;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.SinCos;
+import com.unimag.parser.astNodes.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modo de evaluación que comparte el trabajo trigonométrico: las llamadas
+ * sin/cos cuyo argumento es estructuralmente el mismo se agrupan; cada
+ * grupo evalúa su argumento una vez y obtiene seno y coseno juntos con una
+ * sola reducción de rango (SinCos).
+ *
+ * La expresión se pasa primero por NodeFactory.hashConsing(), así que dos
+ * argumentos iguales son el mismo nodo y los grupos se indexan por
+ * identidad. Los recorridos visitan cada nodo distinto una vez; en un DAG
+ * (ver BoundExpression.shared()) el costo es lineal en los nodos y la
+ * reescritura conserva lo compartido.
+ *
+ * El árbol se reescribe reemplazando esas llamadas por lecturas de slots
+ * temporales que siguen a los de las variables. Los grupos se evalúan en
+ * orden (los internos primero) antes que la raíz. Los resultados pueden
+ * diferir de Math.sin/Math.cos en el último bit; como SinCos es fdlibm,
+ * cumple la cota de cualquier TrigPrecision de las llamadas reemplazadas.
+ *
+ * Es inmutable; cada hilo usa su propio arreglo de trabajo (newScratch()).
+ */
+public final class FusedTrigExpression {
+    private final BoundExpression source;
+    private final Node root;
+    private final Node[] arguments;
+    private final int slotCount;
+    private final int trigCalls;
+
+    private FusedTrigExpression(BoundExpression source, Node root, Node[] arguments, int trigCalls) {
+        this.source = source;
+        this.root = root;
+        this.arguments = arguments;
+        this.slotCount = source.getSlots().size();
+        this.trigCalls = trigCalls;
+    }
+
+    public static FusedTrigExpression of(BoundExpression expression) {
+        Node canonical = NodeFactory.hashConsing().intern(expression.getRoot());
+        Map<Node, Long> uses = countTrigCalls(canonical);
+
+        Rewriter rewriter = new Rewriter(uses, expression.getSlots().size());
+        Node root = rewriter.rewrite(canonical);
+        if (rewriter.arguments.isEmpty()) {
+            // Sin grupos no hay nada que reemplazar: se conserva el árbol original
+            root = expression.getRoot();
+        }
+        long trigCalls = 0;
+        for (long count : uses.values()) {
+            trigCalls = saturatedAdd(trigCalls, count);
+        }
+        return new FusedTrigExpression(expression, root, rewriter.arguments.toArray(new Node[0]),
+                (int) Math.min(trigCalls, Integer.MAX_VALUE));
+    }
+
+    /**
+     * values contiene las variables (como en BoundExpression); scratch debe
+     * venir de newScratch() y no compartirse entre hilos.
+     */
+    public double evaluate(double[] values, double[] scratch) {
+        if (arguments.length == 0) {
+            return root.evaluate(values);
+        }
+        System.arraycopy(values, 0, scratch, 0, slotCount);
+        for (int group = 0; group < arguments.length; group++) {
+            SinCos.sinCos(arguments[group].evaluate(scratch), scratch, slotCount + 2 * group);
+        }
+        return root.evaluate(scratch);
+    }
+
+    /**
+     * Conveniencia para llamadas aisladas; reserva un arreglo de trabajo.
+     */
+    public double evaluate(double[] values) {
+        return evaluate(values, newScratch());
+    }
+
+    public double[] newScratch() {
+        return new double[slotCount + 2 * arguments.length];
+    }
+
+    /**
+     * Número de argumentos distintos compartidos (cada uno, una reducción).
+     */
+    public int groupCount() {
+        return arguments.length;
+    }
+
+    /**
+     * Número de llamadas sin/cos del árbol original.
+     */
+    public int trigCallCount() {
+        return trigCalls;
+    }
+
+    public BoundExpression getSource() {
+        return source;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    private static boolean isSinOrCos(Node node) {
+        return node instanceof FunctionNode f
+                && (f.getFunction() == MathFunction.SIN || f.getFunction() == MathFunction.COS);
+    }
+
+    /**
+     * Llamadas sin/cos del árbol expandido por argumento. En el DAG cada
+     * nodo se cuenta tantas veces como caminos llegan a él desde la raíz:
+     * los nodos en post-orden (cada uno una vez) y los caminos propagados
+     * de cada padre a sus hijos, recorriendo ese orden al revés.
+     */
+    private static Map<Node, Long> countTrigCalls(Node root) {
+        List<Node> order = new ArrayList<>();
+        postOrder(root, Collections.newSetFromMap(new IdentityHashMap<>()), order);
+
+        Map<Node, Long> paths = new IdentityHashMap<>();
+        paths.put(root, 1L);
+        Map<Node, Long> uses = new IdentityHashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Node node = order.get(i);
+            long count = paths.get(node);
+            if (isSinOrCos(node)) {
+                uses.merge(((FunctionNode) node).getArgument(), count, FusedTrigExpression::saturatedAdd);
+            }
+            for (Node child : children(node)) {
+                paths.merge(child, count, FusedTrigExpression::saturatedAdd);
+            }
+        }
+        return uses;
+    }
+
+    private static void postOrder(Node node, Set<Node> seen, List<Node> order) {
+        if (!seen.add(node)) {
+            return;
+        }
+        for (Node child : children(node)) {
+            postOrder(child, seen, order);
+        }
+        order.add(node);
+    }
+
+    private static Node[] children(Node node) {
+        if (node instanceof UnaryNode u) {
+            return new Node[]{u.getExpression()};
+        }
+        if (node instanceof BinaryNode b) {
+            return new Node[]{b.getLeft(), b.getRight()};
+        }
+        if (node instanceof FunctionNode f) {
+            Node[] arguments = new Node[f.getArgumentCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = f.getArgument(i);
+            }
+            return arguments;
+        }
+        return new Node[0];
+    }
+
+    // El número de caminos de un DAG puede exceder un long
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static final class Rewriter {
+        private final Map<Node, Long> uses;
+        private final Map<Node, Integer> groups = new IdentityHashMap<>();
+        private final Map<Node, Node> rewritten = new IdentityHashMap<>();
+        private final List<Node> arguments = new ArrayList<>();
+        private final int firstTemp;
+
+        Rewriter(Map<Node, Long> uses, int firstTemp) {
+            this.uses = uses;
+            this.firstTemp = firstTemp;
+        }
+
+        // Cada nodo se reescribe una vez; sus otros usos reciben el mismo resultado
+        Node rewrite(Node node) {
+            Node done = rewritten.get(node);
+            if (done == null) {
+                done = rewriteNode(node);
+                rewritten.put(node, done);
+            }
+            return done;
+        }
+
+        private Node rewriteNode(Node node) {
+            if (node instanceof UnaryNode u) {
+                Node expression = rewrite(u.getExpression());
+                return expression == u.getExpression() ? u : new UnaryNode(expression);
+            }
+            if (node instanceof BinaryNode b) {
+                Node left = rewrite(b.getLeft());
+                Node right = rewrite(b.getRight());
+                return left == b.getLeft() && right == b.getRight()
+                        ? b
+                        : new BinaryNode(b.getOperator(), left, right);
+            }
+            if (node instanceof FunctionNode f) {
+                if (isSinOrCos(f) && uses.get(f.getArgument()) > 1) {
+                    return shared(f);
+                }
+                Node[] arguments = new Node[f.getArgumentCount()];
+                boolean changed = false;
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = rewrite(f.getArgument(i));
+                    changed |= arguments[i] != f.getArgument(i);
+                }
+                return changed ? f.withArguments(arguments) : f;
+            }
+            return node;
+        }
+
+        // Lectura del slot temporal del grupo; el seno va primero y el coseno después
+        private Node shared(FunctionNode call) {
+            Node key = call.getArgument();
+            Integer group = groups.get(key);
+            if (group == null) {
+                // El argumento se reescribe antes de registrar el grupo para
+                // que sus propios grupos queden antes en el orden de evaluación
+                Node argument = rewrite(key);
+                group = arguments.size();
+                arguments.add(argument);
+                groups.put(key, group);
+            }
+            boolean sine = call.getFunction() == MathFunction.SIN;
+            int slot = firstTemp + 2 * group + (sine ? 0 : 1);
+            return new VarNode((sine ? "#sin" : "#cos") + group, slot);
+        }
+    }
+}
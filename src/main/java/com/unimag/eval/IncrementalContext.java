@@ -0,0 +1,281 @@
+package com.unimag.eval;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.metrics.SlowEvaluationEvent;
+import com.unimag.parser.astNodes.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.unimag.eval.NodeTape.*;
+
+/**
+ * Contexto de evaluación incremental: guarda el valor de cada subárbol y
+ * las variables de las que depende (las mismas que su collectVariables), de
+ * modo que al cambiar una variable solo se recalculan los nodos en los
+ * caminos que van de ella a la raíz.
+ *
+ * Pensado para barridos de parámetros, donde entre una evaluación y la
+ * siguiente suele cambiar una sola variable. Los nodos se guardan en
+ * post-orden (cada hijo antes que su padre), así que recalcular la lista
+ * ordenada de nodos afectados respeta las dependencias. Un DAG (ver
+ * BoundExpression.shared()) aporta cada nodo compartido una sola vez.
+ *
+ * Los resultados son idénticos a los de BoundExpression.evaluate. Como
+ * EvaluationContext, no es seguro para uso concurrente.
+ */
+public final class IncrementalContext {
+    private final BoundExpression expression;
+    private final double[] values;
+    private final boolean[] assigned;
+    private int missing;
+
+    // Nodos en post-orden (ver NodeTape); la raíz es el último
+    private final int[] kinds;
+    private final int[] operands;       // slot u operador según el tipo
+    private final Node[] sources;
+    private final int[] lefts;
+    private final int[] rights;
+    private final double[] cache;
+    // dependents[slot]: nodos que dependen de la variable, en orden creciente
+    private final int[][] dependents;
+
+    private final boolean[] dirty;
+    private final int[] dirtySlots;
+    private int dirtyCount;
+    private boolean valid;
+
+    // Espacio para unir las listas de varias variables sin duplicados
+    private final int[] affected;
+    private final int[] marks;
+    private int mark;
+
+    private int lastRecomputed;
+
+    IncrementalContext(BoundExpression expression) {
+        this.expression = expression;
+        this.values = expression.newValues();
+        this.assigned = new boolean[values.length];
+        this.missing = values.length;
+
+        NodeTape tape = NodeTape.record(expression.getRoot(), "evaluación incremental");
+        int count = tape.length();
+        this.kinds = tape.kinds();
+        this.operands = tape.operands();
+        this.sources = tape.nodes();
+        this.lefts = tape.lefts();
+        this.rights = tape.rights();
+        this.cache = tape.constants();
+        this.dependents = dependents(values.length, kinds, operands, lefts, rights);
+
+        this.dirty = new boolean[values.length];
+        this.dirtySlots = new int[values.length];
+        this.affected = new int[count];
+        this.marks = new int[count];
+    }
+
+    public IncrementalContext set(int slot, double value) {
+        if (assigned[slot] && Double.doubleToRawLongBits(values[slot]) == Double.doubleToRawLongBits(value)) {
+            return this;
+        }
+        values[slot] = value;
+        if (!assigned[slot]) {
+            assigned[slot] = true;
+            missing--;
+        }
+        if (!dirty[slot]) {
+            dirty[slot] = true;
+            dirtySlots[dirtyCount++] = slot;
+        }
+        return this;
+    }
+
+    public IncrementalContext set(String name, double value) {
+        int slot = expression.slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                String.format("La variable '%s' no aparece en la expresión", name)
+            );
+        }
+        return set(slot, value);
+    }
+
+    /**
+     * Asigna las variables del mapa que aparecen en la expresión; las demás
+     * se ignoran, igual que en EvaluationContext.
+     */
+    public IncrementalContext setAll(Map<String, Double> variables) {
+        for (Map.Entry<String, Double> entry : variables.entrySet()) {
+            int slot = expression.slotOf(entry.getKey());
+            if (slot >= 0) {
+                set(slot, entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    public double get(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Recalcula los nodos afectados por las variables que cambiaron desde la
+     * última evaluación. Si un nodo lanza una excepción, las variables
+     * siguen marcadas y la próxima evaluación lo reintenta.
+     */
+    public double evaluate() {
+        if (missing > 0) {
+            throw new ExpressionError(ErrorCode.UNDEFINED_VARIABLE, -1, firstMissing());
+        }
+        SlowEvaluationEvent event = new SlowEvaluationEvent();
+        event.begin();
+        lastRecomputed = 0;
+        if (!valid) {
+            for (int node = 0; node < kinds.length; node++) {
+                recompute(node);
+            }
+            valid = true;
+        } else if (dirtyCount == 1) {
+            for (int node : dependents[dirtySlots[0]]) {
+                recompute(node);
+            }
+        } else if (dirtyCount > 1) {
+            int count = collectAffected();
+            Arrays.sort(affected, 0, count);
+            for (int i = 0; i < count; i++) {
+                recompute(affected[i]);
+            }
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[dirtySlots[i]] = false;
+        }
+        dirtyCount = 0;
+        event.finish(expression.getRoot());
+        return cache[kinds.length - 1];
+    }
+
+    /**
+     * Nodos recalculados en la última llamada a evaluate().
+     */
+    public int lastRecomputed() {
+        return lastRecomputed;
+    }
+
+    /**
+     * Nodos distintos de la expresión (los compartidos de un DAG cuentan una vez).
+     */
+    public int nodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Olvida valores y resultados guardados; la próxima evaluación es completa.
+     */
+    public void clear() {
+        Arrays.fill(values, 0.0);
+        Arrays.fill(assigned, false);
+        missing = values.length;
+        Arrays.fill(dirty, false);
+        dirtyCount = 0;
+        valid = false;
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    private int collectAffected() {
+        if (++mark == 0) {
+            Arrays.fill(marks, 0);
+            mark = 1;
+        }
+        int count = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            for (int node : dependents[dirtySlots[i]]) {
+                if (marks[node] != mark) {
+                    marks[node] = mark;
+                    affected[count++] = node;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void recompute(int node) {
+        lastRecomputed++;
+        switch (kinds[node]) {
+            case CONST -> {
+            }
+            case LOAD -> cache[node] = values[operands[node]];
+            case NEG -> cache[node] = -cache[lefts[node]];
+            case BINARY -> cache[node] = BinaryNode.apply((char) operands[node], cache[lefts[node]], cache[rights[node]]);
+            case CALL1 -> {
+                FunctionNode f = (FunctionNode) sources[node];
+                cache[node] = f.getPrecision().apply(f.getFunction(), cache[lefts[node]]);
+            }
+            case CALL2 -> {
+                FunctionNode f = (FunctionNode) sources[node];
+                cache[node] = f.getPrecision().apply(f.getFunction(), cache[lefts[node]], cache[rights[node]]);
+            }
+            default -> throw new IllegalStateException("Tipo de nodo desconocido: " + kinds[node]);
+        }
+    }
+
+    private String firstMissing() {
+        for (int slot = 0; slot < assigned.length; slot++) {
+            if (!assigned[slot]) {
+                return expression.getSlots().name(slot);
+            }
+        }
+        return "?";
+    }
+
+    /**
+     * Para cada slot, las entradas de la cinta que dependen de la variable,
+     * en orden creciente. El conjunto de variables de cada entrada es una
+     * máscara de bits por slot, unión de las de sus hijos (que la preceden).
+     */
+    private static int[][] dependents(int slotCount, int[] kinds, int[] operands, int[] lefts, int[] rights) {
+        int count = kinds.length;
+        int words = (slotCount + 63) >>> 6;
+        long[][] masks = new long[count][words];
+        int[] sizes = new int[slotCount];
+        for (int node = 0; node < count; node++) {
+            long[] mask = masks[node];
+            if (kinds[node] == LOAD) {
+                mask[operands[node] >>> 6] |= 1L << operands[node];
+            }
+            if (lefts[node] >= 0) {
+                or(mask, masks[lefts[node]]);
+            }
+            if (rights[node] >= 0) {
+                or(mask, masks[rights[node]]);
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                if ((mask[slot >>> 6] & (1L << slot)) != 0) {
+                    sizes[slot]++;
+                }
+            }
+        }
+        int[][] dependents = new int[slotCount][];
+        for (int slot = 0; slot < slotCount; slot++) {
+            dependents[slot] = new int[sizes[slot]];
+            sizes[slot] = 0;
+        }
+        for (int node = 0; node < count; node++) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if ((masks[node][slot >>> 6] & (1L << slot)) != 0) {
+                    dependents[slot][sizes[slot]++] = node;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= source[i];
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.unimag.eval;
+
+import com.unimag.parser.astNodes.*;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Árbol ligado aplanado en post-orden (cada hijo antes que su padre), con
+ * cada nodo identificado por su posición. Un nodo compartido de un DAG (ver
+ * BoundExpression.shared()) ocupa una sola entrada. La raíz es la última.
+ *
+ * Es la base común de los evaluadores que recorren la expresión como una
+ * lista en lugar de un árbol: IncrementalContext y ReverseGradient. Es
+ * inmutable; los getters de arreglos devuelven copias.
+ */
+public final class NodeTape {
+    public static final int CONST = 0;
+    public static final int LOAD = 1;
+    public static final int NEG = 2;
+    public static final int BINARY = 3;
+    public static final int CALL1 = 4;
+    public static final int CALL2 = 5;
+
+    private final int[] kinds;
+    private final int[] operands;       // slot u operador según el tipo
+    private final int[] lefts;
+    private final int[] rights;
+    private final double[] constants;
+    private final Node[] nodes;
+
+    private NodeTape(Recorder recorder) {
+        int count = recorder.count;
+        this.kinds = Arrays.copyOf(recorder.kinds, count);
+        this.operands = Arrays.copyOf(recorder.operands, count);
+        this.lefts = Arrays.copyOf(recorder.lefts, count);
+        this.rights = Arrays.copyOf(recorder.rights, count);
+        this.constants = Arrays.copyOf(recorder.constants, count);
+        this.nodes = Arrays.copyOf(recorder.nodes, count);
+    }
+
+    /**
+     * Aplana un árbol ligado. operation nombra al llamador en el error de
+     * una variable sin slot (ej: "diferenciación").
+     */
+    public static NodeTape record(Node boundAst, String operation) {
+        Recorder recorder = new Recorder(operation);
+        recorder.record(boundAst);
+        return new NodeTape(recorder);
+    }
+
+    public int length() {
+        return kinds.length;
+    }
+
+    /**
+     * Tipo de cada entrada: CONST, LOAD, NEG, BINARY, CALL1 o CALL2.
+     */
+    public int[] kinds() {
+        return kinds.clone();
+    }
+
+    /**
+     * Slot (LOAD) u operador (BINARY) de cada entrada; 0 en las demás.
+     */
+    public int[] operands() {
+        return operands.clone();
+    }
+
+    /**
+     * Primer operando o argumento de cada entrada, -1 en las hojas.
+     */
+    public int[] lefts() {
+        return lefts.clone();
+    }
+
+    /**
+     * Segundo operando o argumento de cada entrada, -1 si no lo tiene.
+     */
+    public int[] rights() {
+        return rights.clone();
+    }
+
+    /**
+     * Valor de cada constante (CONST); 0 en las demás entradas.
+     */
+    public double[] constants() {
+        return constants.clone();
+    }
+
+    /**
+     * Nodo del árbol de cada entrada.
+     */
+    public Node[] nodes() {
+        return nodes.clone();
+    }
+
+    private static final class Recorder {
+        private final String operation;
+        private final Map<Node, Integer> indices = new IdentityHashMap<>();
+        private int[] kinds = new int[16];
+        private int[] operands = new int[16];
+        private int[] lefts = new int[16];
+        private int[] rights = new int[16];
+        private double[] constants = new double[16];
+        private Node[] nodes = new Node[16];
+        private int count = 0;
+
+        Recorder(String operation) {
+            this.operation = operation;
+        }
+
+        int record(Node node) {
+            Integer known = indices.get(node);
+            if (known != null) {
+                return known;
+            }
+            int kind;
+            int operand = 0;
+            int left = -1;
+            int right = -1;
+            double constant = 0;
+            if (node instanceof NumberNode n) {
+                kind = CONST;
+                constant = n.getValue();
+            } else if (node instanceof VarNode v) {
+                if (!v.isBound()) {
+                    throw new IllegalArgumentException(
+                        String.format("Error de %s: variable '%s' no está ligada a un slot", operation, v.getIdentifier())
+                    );
+                }
+                kind = LOAD;
+                operand = v.getSlot();
+            } else if (node instanceof UnaryNode u) {
+                kind = NEG;
+                left = record(u.getExpression());
+            } else if (node instanceof BinaryNode b) {
+                kind = BINARY;
+                operand = b.getOperator();
+                left = record(b.getLeft());
+                right = record(b.getRight());
+            } else if (node instanceof FunctionNode f) {
+                kind = f.getArgumentCount() == 1 ? CALL1 : CALL2;
+                left = record(f.getArgument(0));
+                if (kind == CALL2) {
+                    right = record(f.getArgument(1));
+                }
+            } else {
+                throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+            }
+
+            if (count == kinds.length) {
+                grow();
+            }
+            kinds[count] = kind;
+            operands[count] = operand;
+            lefts[count] = left;
+            rights[count] = right;
+            constants[count] = constant;
+            nodes[count] = node;
+            indices.put(node, count);
+            return count++;
+        }
+
+        private void grow() {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            lefts = Arrays.copyOf(lefts, capacity);
+            rights = Arrays.copyOf(rights, capacity);
+            constants = Arrays.copyOf(constants, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+        }
+    }
+}
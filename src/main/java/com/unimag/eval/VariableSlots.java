@@ -0,0 +1,97 @@
+package com.unimag.eval;
+
+import com.unimag.parser.astNodes.Node;
+
+import java.util.*;
+
+/**
+ * Tabla inmutable nombre de variable → slot (índice en un double[]).
+ */
+public final class VariableSlots {
+    private final String[] names;
+    private final Map<String, Integer> indices;
+
+    private VariableSlots(String[] names) {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (map.put(names[i], i) != null) {
+                throw new IllegalArgumentException(
+                    String.format("Variable duplicada: '%s'", names[i])
+                );
+            }
+        }
+        this.names = names;
+        this.indices = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Slots en el orden dado por el llamador.
+     */
+    public static VariableSlots of(String... names) {
+        return new VariableSlots(names.clone());
+    }
+
+    public static VariableSlots of(Collection<String> names) {
+        return new VariableSlots(names.toArray(new String[0]));
+    }
+
+    /**
+     * Slots para las variables del árbol, en orden de primera aparición.
+     */
+    public static VariableSlots forTree(Node ast) {
+        Set<String> variables = new LinkedHashSet<>();
+        ast.collectVariables(variables);
+        return of(variables);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Slot de la variable o -1 si no existe.
+     */
+    public int indexOf(String name) {
+        Integer index = indices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Slot de la variable cuyo nombre es source[start, end), o -1. No crea
+     * objetos; recorre la tabla, como MathFunction.lookup con las funciones.
+     */
+    public int indexOf(CharSequence source, int start, int end) {
+        int length = end - start;
+        for (int slot = 0; slot < names.length; slot++) {
+            String name = names[slot];
+            if (name.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length && name.charAt(i) == source.charAt(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public List<String> names() {
+        return List.of(names);
+    }
+
+    public Map<String, Integer> asMap() {
+        return indices;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
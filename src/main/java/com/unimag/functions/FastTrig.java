@@ -0,0 +1,129 @@
+package com.unimag.functions;
+
+/**
+ * sin, cos y tan aproximados con error absoluto ≤ 1e-9 (modo FAST_1E9).
+ *
+ * Reducción: k = rint(x·2/π), r = x - k·π/2 con la constante partida en dos
+ * (Cody-Waite). El redondeo de k se hace sumando 1.5·2^52, que además deja
+ * el cuadrante en los bits bajos. La parte alta tiene 33 bits, así que
+ * k·PIO2_HI es exacto mientras |k| < 2^20; por eso se atiende |x| ≤ 2^19 y
+ * el resto se delega en Math. El error de r es menor que
+ * 2^20 · 2e-27 + ulp(r), despreciable.
+ *
+ * Núcleos en [-π/4, π/4]: los polinomios minimax de fdlibm (error de
+ * aproximación ≤ 2^-58) truncados. Los términos descartados acotan el error:
+ *   seno:   |S6|·(π/4)^13 ≤ 7e-12
+ *   coseno: |C5|·(π/4)^12 + |C6|·(π/4)^14 ≤ 1.2e-10
+ * Sumando el redondeo de la evaluación (unos pocos ulp de 1), el error
+ * absoluto de sin y cos es < 1.3e-10. tan = s/c usa los mismos núcleos, cuyo
+ * error relativo es < 1.7e-10 (el coseno del núcleo nunca baja de 0.7), así
+ * que |error| ≤ 1e-9·max(1, |tan x|) siempre que r tenga error relativo
+ * despreciable.
+ *
+ * Eso no lo da la reducción en dos partes cerca de los polos de tan: a unos
+ * ulps de k·π/2, r es del orden de 1e-18 y el error absoluto de r (hasta
+ * k·6e-27 por el redondeo de PIO2_LO) se vuelve un error relativo de 1e-7 o
+ * más en el resultado. Por eso tan reduce en tres partes, como el caso
+ * medio de fdlibm: PIO2_HI y PIO2_MID tienen 33 bits (k·PIO2_MID también es
+ * exacto), la resta x - k·PIO2_HI es exacta por Sterbenz y el redondeo de
+ * restar k·PIO2_MID se recupera con TwoSum. Queda el error de PIO2_TAIL,
+ * k·1.3e-37 ≤ 1.4e-31, frente a |r| ≥ 4.6e-19 (ningún double está más
+ * cerca de un múltiplo de π/2; ver Muller, "Elementary Functions"): error
+ * relativo de r menor que 1e-12. sin y cos se conforman con dos partes, porque cerca
+ * de sus ceros la cota es absoluta.
+ */
+public final class FastTrig {
+    /** Mayor |x| que se reduce aquí; fuera de ese rango se usa Math. */
+    public static final double MAX_ARGUMENT = 0x1p19;
+
+    private static final double INV_PIO2 = 6.36619772367581382433e-01;
+    private static final double PIO2_HI = 1.57079632673412561417e+00;
+    private static final double PIO2_LO = 6.07710050650619224932e-11;
+    // π/2 = PIO2_HI + PIO2_MID + PIO2_TAIL, las dos primeras de 33 bits
+    private static final double PIO2_MID = 6.07710050630396597660e-11;
+    private static final double PIO2_TAIL = 2.02226624879595063154e-21;
+    private static final double ROUNDING_SHIFT = 0x1.8p52;
+
+    private static final double S1 = -1.66666666666666324348e-01;
+    private static final double S2 = 8.33333333332248946124e-03;
+    private static final double S3 = -1.98412698298579493134e-04;
+    private static final double S4 = 2.75573137070700676789e-06;
+    private static final double S5 = -2.50507602534068634195e-08;
+
+    private static final double C1 = 4.16666666666666019037e-02;
+    private static final double C2 = -1.38888888888741095749e-03;
+    private static final double C3 = 2.48015872894767294178e-05;
+    private static final double C4 = -2.75573143513906633035e-07;
+
+    private FastTrig() {
+    }
+
+    public static double sin(double x) {
+        if (!(Math.abs(x) <= MAX_ARGUMENT) || x == 0) {
+            // Fuera de rango, Inf, NaN o ±0 (el polinomio perdería el signo del cero)
+            return Math.sin(x);
+        }
+        double shifted = x * INV_PIO2 + ROUNDING_SHIFT;
+        double k = shifted - ROUNDING_SHIFT;
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+        return quadrant(r, Double.doubleToRawLongBits(shifted));
+    }
+
+    public static double cos(double x) {
+        if (!(Math.abs(x) <= MAX_ARGUMENT)) {
+            return Math.cos(x);
+        }
+        double shifted = x * INV_PIO2 + ROUNDING_SHIFT;
+        double k = shifted - ROUNDING_SHIFT;
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+        // cos(r + q·π/2) = sin(r + (q+1)·π/2)
+        return quadrant(r, Double.doubleToRawLongBits(shifted) + 1);
+    }
+
+    public static double tan(double x) {
+        if (!(Math.abs(x) <= MAX_ARGUMENT) || x == 0) {
+            return Math.tan(x);
+        }
+        double shifted = x * INV_PIO2 + ROUNDING_SHIFT;
+        double k = shifted - ROUNDING_SHIFT;
+        double t = x - k * PIO2_HI;
+        double w = -(k * PIO2_MID);
+        // TwoSum: hi + lo = t + w exactamente
+        double hi = t + w;
+        double wPart = hi - t;
+        double lo = (t - (hi - wPart)) + (w - wPart);
+        double r = hi + (lo - k * PIO2_TAIL);
+        double z = r * r;
+        double s = sinKernel(r, z);
+        double c = cosKernel(z);
+        // tan(r + π/2) = -cos(r)/sin(r)
+        long odd = -(Double.doubleToRawLongBits(shifted) & 1);
+        return select(odd, -c, s) / select(odd, s, c);
+    }
+
+    /**
+     * sin(r + q·π/2), con q en los bits bajos. Se evalúan ambos núcleos y se
+     * elige con máscaras de bits: con argumentos aleatorios el cuadrante no
+     * es predecible y un salto mal predicho cuesta más que el polinomio extra.
+     */
+    private static double quadrant(double r, long q) {
+        double z = r * r;
+        double v = select(-(q & 1), cosKernel(z), sinKernel(r, z));
+        // Cuadrantes 2 y 3: cambio de signo
+        return Double.longBitsToDouble(Double.doubleToRawLongBits(v) ^ ((q & 2) << 62));
+    }
+
+    // mask todo unos elige a, todo ceros elige b
+    private static double select(long mask, double a, double b) {
+        return Double.longBitsToDouble((Double.doubleToRawLongBits(a) & mask)
+                | (Double.doubleToRawLongBits(b) & ~mask));
+    }
+
+    private static double sinKernel(double r, double z) {
+        return r + r * z * (S1 + z * (S2 + z * (S3 + z * (S4 + z * S5))));
+    }
+
+    private static double cosKernel(double z) {
+        return 1.0 + z * (-0.5 + z * (C1 + z * (C2 + z * (C3 + z * C4))));
+    }
+}
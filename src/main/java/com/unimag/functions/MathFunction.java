@@ -0,0 +1,172 @@
+package com.unimag.functions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro de funciones matemáticas reconocidas por el lenguaje.
+ *
+ * El nombre se resuelve una sola vez (al tokenizar/analizar) a una
+ * constante del enum; después la evaluación despacha por ordinal, sin
+ * comparar cadenas. Lo que se persiste (programas, catálogos) usa el código
+ * explícito de cada función, no el ordinal: añadir una función al enum no
+ * debe cambiar el significado de los archivos ya escritos, así que las
+ * funciones nuevas se declaran y reciben código siempre al final. Todas
+ * corresponden a un método de java.lang.Math con el mismo nombre, lo que
+ * permite a cada backend tratarlas como intrínsecas.
+ */
+public enum MathFunction {
+    SIN("sin", 1, 0),
+    COS("cos", 1, 1),
+    TAN("tan", 1, 2),
+    ASIN("asin", 1, 3),
+    ACOS("acos", 1, 4),
+    ATAN("atan", 1, 5),
+    ATAN2("atan2", 2, 6),
+    SINH("sinh", 1, 7),
+    COSH("cosh", 1, 8),
+    TANH("tanh", 1, 9),
+    SQRT("sqrt", 1, 10),
+    EXP("exp", 1, 11),
+    LOG("log", 1, 12),
+    ABS("abs", 1, 13),
+    MIN("min", 2, 14),
+    MAX("max", 2, 15),
+    SIGNUM("signum", 1, 16);
+
+    private static final MathFunction[] VALUES = values();
+    private static final Map<String, MathFunction> BY_NAME = new HashMap<>();
+    private static final MathFunction[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (MathFunction function : VALUES) {
+            BY_NAME.put(function.symbol, function);
+            maxCode = Math.max(maxCode, function.code);
+        }
+        BY_CODE = new MathFunction[maxCode + 1];
+        for (MathFunction function : VALUES) {
+            if (BY_CODE[function.code] != null) {
+                throw new ExceptionInInitializerError(
+                    String.format("Código de función repetido: %d", function.code));
+            }
+            BY_CODE[function.code] = function;
+        }
+        // Alias en español aceptado históricamente por FunctionNode
+        BY_NAME.put("sen", SIN);
+    }
+
+    private final String symbol;
+    private final int arity;
+    private final int code;
+
+    MathFunction(String symbol, int arity, int code) {
+        this.symbol = symbol;
+        this.arity = arity;
+        this.code = code;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * Código estable con el que se serializa la función.
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Nombre del método estático equivalente en java.lang.Math.
+     */
+    public String javaMethod() {
+        return symbol;
+    }
+
+    /**
+     * Descriptor JVM del método de java.lang.Math: (D)D o (DD)D.
+     */
+    public String javaDescriptor() {
+        return arity == 1 ? "(D)D" : "(DD)D";
+    }
+
+    public double apply(double x) {
+        return switch (this) {
+            case SIN -> Math.sin(x);
+            case COS -> Math.cos(x);
+            case TAN -> Math.tan(x);
+            case ASIN -> Math.asin(x);
+            case ACOS -> Math.acos(x);
+            case ATAN -> Math.atan(x);
+            case SINH -> Math.sinh(x);
+            case COSH -> Math.cosh(x);
+            case TANH -> Math.tanh(x);
+            case SQRT -> Math.sqrt(x);
+            case EXP -> Math.exp(x);
+            case LOG -> Math.log(x);
+            case ABS -> Math.abs(x);
+            case SIGNUM -> Math.signum(x);
+            default -> throw arityError(1);
+        };
+    }
+
+    public double apply(double x, double y) {
+        return switch (this) {
+            case ATAN2 -> Math.atan2(x, y);
+            case MIN -> Math.min(x, y);
+            case MAX -> Math.max(x, y);
+            default -> throw arityError(2);
+        };
+    }
+
+    private RuntimeException arityError(int given) {
+        return new IllegalArgumentException(
+            String.format("La función '%s' espera %d argumento(s), se recibieron %d", symbol, arity, given)
+        );
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Función con el código dado, o null si el código no está asignado.
+     */
+    public static MathFunction fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Función por nombre (incluye alias) o null si no existe.
+     */
+    public static MathFunction lookup(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Función cuyo nombre canónico coincide con source[start, end), o null.
+     * No crea objetos; la usa el Lexer para reconocer palabras reservadas.
+     */
+    public static MathFunction lookup(CharSequence source, int start, int end) {
+        int length = end - start;
+        for (MathFunction function : VALUES) {
+            String symbol = function.symbol;
+            if (symbol.length() != length || symbol.charAt(0) != source.charAt(start)) {
+                continue;
+            }
+            int i = 1;
+            while (i < length && symbol.charAt(i) == source.charAt(start + i)) {
+                i++;
+            }
+            if (i == length) {
+                return function;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.unimag.functions;
+
+/**
+ * Seno y coseno del mismo argumento con una sola reducción de rango.
+ *
+ * Port de los núcleos de fdlibm (__kernel_sin, __kernel_cos y la reducción
+ * Cody-Waite de __ieee754_rem_pio2): el argumento se reduce una vez a
+ * y0 + y1 en [-π/4, π/4] con n cuadrantes, y de ahí salen ambos valores.
+ * Con |x| ≤ 2^19·π/2 el resultado coincide bit a bit con StrictMath; los
+ * argumentos mayores (raros) se delegan en StrictMath por separado.
+ */
+public final class SinCos {
+    private static final double S1 = -1.66666666666666324348e-01;
+    private static final double S2 = 8.33333333332248946124e-03;
+    private static final double S3 = -1.98412698298579493134e-04;
+    private static final double S4 = 2.75573137070700676789e-06;
+    private static final double S5 = -2.50507602534068634195e-08;
+    private static final double S6 = 1.58969099521155010221e-10;
+
+    private static final double C1 = 4.16666666666666019037e-02;
+    private static final double C2 = -1.38888888888741095749e-03;
+    private static final double C3 = 2.48015872894767294178e-05;
+    private static final double C4 = -2.75573143513906633035e-07;
+    private static final double C5 = 2.08757232129817482790e-09;
+    private static final double C6 = -1.13596475577881948265e-11;
+
+    // π/2 partido en tres trozos de 33 bits y sus colas
+    private static final double INV_PIO2 = 6.36619772367581382433e-01;
+    private static final double PIO2_1 = 1.57079632673412561417e+00;
+    private static final double PIO2_1T = 6.07710050650619224932e-11;
+    private static final double PIO2_2 = 6.07710050630396597660e-11;
+    private static final double PIO2_2T = 2.02226624879595063154e-21;
+    private static final double PIO2_3 = 2.02226624871116645580e-21;
+    private static final double PIO2_3T = 8.47842766036889956997e-32;
+
+    private SinCos() {
+    }
+
+    /**
+     * Escribe sin(x) en out[offset] y cos(x) en out[offset + 1].
+     */
+    public static void sinCos(double x, double[] out, int offset) {
+        int ix = highWord(x) & 0x7fffffff;
+
+        // |x| ≤ π/4: sin reducción
+        if (ix <= 0x3fe921fb) {
+            out[offset] = kernelSin(x, 0.0, false);
+            out[offset + 1] = kernelCos(x, 0.0);
+            return;
+        }
+        // Inf o NaN
+        if (ix >= 0x7ff00000) {
+            out[offset] = x - x;
+            out[offset + 1] = x - x;
+            return;
+        }
+        // Fuera del rango de la reducción Cody-Waite
+        if (ix > 0x413921fb) {
+            out[offset] = StrictMath.sin(x);
+            out[offset + 1] = StrictMath.cos(x);
+            return;
+        }
+
+        double y0;
+        double y1;
+        int n;
+
+        if (ix < 0x4002d97c) {
+            // |x| < 3π/4: un solo cuadrante, como en fdlibm
+            if (x > 0) {
+                double z = x - PIO2_1;
+                if (ix != 0x3ff921fb) {
+                    y0 = z - PIO2_1T;
+                    y1 = (z - y0) - PIO2_1T;
+                } else {
+                    // x cerca de π/2: hacen falta 33 bits más de π/2
+                    z -= PIO2_2;
+                    y0 = z - PIO2_2T;
+                    y1 = (z - y0) - PIO2_2T;
+                }
+                n = 1;
+            } else {
+                double z = x + PIO2_1;
+                if (ix != 0x3ff921fb) {
+                    y0 = z + PIO2_1T;
+                    y1 = (z - y0) + PIO2_1T;
+                } else {
+                    z += PIO2_2;
+                    y0 = z + PIO2_2T;
+                    y1 = (z - y0) + PIO2_2T;
+                }
+                n = -1;
+            }
+        } else {
+            double t = Math.abs(x);
+            n = (int) (t * INV_PIO2 + 0.5);
+            double fn = n;
+            double r = t - fn * PIO2_1;
+            double w = fn * PIO2_1T;
+            int j = ix >> 20;
+            y0 = r - w;
+            int i = j - ((highWord(y0) >> 20) & 0x7ff);
+            if (i > 16) {
+                // Cancelación grande: segunda iteración (118 bits)
+                t = r;
+                w = fn * PIO2_2;
+                r = t - w;
+                w = fn * PIO2_2T - ((t - r) - w);
+                y0 = r - w;
+                i = j - ((highWord(y0) >> 20) & 0x7ff);
+                if (i > 49) {
+                    // Tercera iteración (151 bits)
+                    t = r;
+                    w = fn * PIO2_3;
+                    r = t - w;
+                    w = fn * PIO2_3T - ((t - r) - w);
+                    y0 = r - w;
+                }
+            }
+            y1 = (r - y0) - w;
+            if (x < 0) {
+                y0 = -y0;
+                y1 = -y1;
+                n = -n;
+            }
+        }
+
+        double s = kernelSin(y0, y1, true);
+        double c = kernelCos(y0, y1);
+        switch (n & 3) {
+            case 0 -> {
+                out[offset] = s;
+                out[offset + 1] = c;
+            }
+            case 1 -> {
+                out[offset] = c;
+                out[offset + 1] = -s;
+            }
+            case 2 -> {
+                out[offset] = -s;
+                out[offset + 1] = -c;
+            }
+            default -> {
+                out[offset] = -c;
+                out[offset + 1] = s;
+            }
+        }
+    }
+
+    /**
+     * sin(x + y) en [-π/4, π/4]; y es la cola de la reducción.
+     */
+    private static double kernelSin(double x, double y, boolean hasTail) {
+        int ix = highWord(x) & 0x7fffffff;
+        if (ix < 0x3e400000 && (int) x == 0) {
+            // |x| < 2^-27: sin(x) = x (y lanza inexacto en C)
+            return x;
+        }
+        double z = x * x;
+        double v = z * x;
+        double r = S2 + z * (S3 + z * (S4 + z * (S5 + z * S6)));
+        if (!hasTail) {
+            return x + v * (S1 + z * r);
+        }
+        return x - ((z * (0.5 * y - v * r) - y) - v * S1);
+    }
+
+    /**
+     * cos(x + y) en [-π/4, π/4].
+     */
+    private static double kernelCos(double x, double y) {
+        int ix = highWord(x) & 0x7fffffff;
+        if (ix < 0x3e400000 && (int) x == 0) {
+            return 1.0;
+        }
+        double z = x * x;
+        double r = z * (C1 + z * (C2 + z * (C3 + z * (C4 + z * (C5 + z * C6)))));
+        if (ix < 0x3fd33333) {
+            // |x| < 0.3
+            return 1.0 - (0.5 * z - (z * r - x * y));
+        }
+        double qx = ix > 0x3fe90000
+                ? 0.28125
+                : Double.longBitsToDouble((long) (ix - 0x00200000) << 32);
+        double hz = 0.5 * z - qx;
+        double a = 1.0 - qx;
+        return a - (hz - (z * r - x * y));
+    }
+
+    private static int highWord(double x) {
+        return (int) (Double.doubleToRawLongBits(x) >>> 32);
+    }
+}
@@ -0,0 +1,124 @@
+package com.unimag.functions;
+
+/**
+ * Precisión con la que se evalúan las funciones de una expresión.
+ *
+ * - STRICT: StrictMath (fdlibm) para todas las funciones; resultados
+ *   idénticos en cualquier plataforma, ≤ 1 ulp.
+ * - FAST_1ULP: Math, el comportamiento por defecto. HotSpot usa intrínsecas
+ *   de la plataforma; la especificación garantiza ≤ 1 ulp.
+ * - FAST_1E9: sin/cos/tan con FastTrig, |error| ≤ 1e-9 (relativo si
+ *   |tan x| > 1); el resto de funciones como en FAST_1ULP.
+ */
+public enum TrigPrecision {
+    STRICT(0),
+    FAST_1ULP(1),
+    FAST_1E9(2);
+
+    public static final TrigPrecision DEFAULT = FAST_1ULP;
+
+    private static final TrigPrecision[] VALUES = values();
+    private static final TrigPrecision[] BY_CODE = new TrigPrecision[VALUES.length];
+
+    static {
+        for (TrigPrecision precision : VALUES) {
+            BY_CODE[precision.code] = precision;
+        }
+    }
+
+    private static final String MATH = "java/lang/Math";
+    private static final String STRICT_MATH = "java/lang/StrictMath";
+    private static final String FAST_TRIG = "com/unimag/functions/FastTrig";
+
+    private final int code;
+
+    TrigPrecision(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Código estable con el que se serializa la precisión (ver MathFunction.code()).
+     */
+    public int code() {
+        return code;
+    }
+
+    public double apply(MathFunction function, double x) {
+        return switch (this) {
+            case FAST_1ULP -> function.apply(x);
+            case STRICT -> strict(function, x);
+            case FAST_1E9 -> switch (function) {
+                case SIN -> FastTrig.sin(x);
+                case COS -> FastTrig.cos(x);
+                case TAN -> FastTrig.tan(x);
+                default -> function.apply(x);
+            };
+        };
+    }
+
+    public double apply(MathFunction function, double x, double y) {
+        if (this != STRICT) {
+            return function.apply(x, y);
+        }
+        return switch (function) {
+            case ATAN2 -> StrictMath.atan2(x, y);
+            case MIN -> StrictMath.min(x, y);
+            case MAX -> StrictMath.max(x, y);
+            default -> function.apply(x, y);
+        };
+    }
+
+    /**
+     * Clase (nombre interno de la JVM) cuyo método estático function.javaMethod()
+     * implementa la función con esta precisión; la usa el compilador a bytecode.
+     */
+    public String implementationClass(MathFunction function) {
+        return switch (this) {
+            case STRICT -> STRICT_MATH;
+            case FAST_1ULP -> MATH;
+            case FAST_1E9 -> isTrig(function) ? FAST_TRIG : MATH;
+        };
+    }
+
+    /**
+     * Indica si esta precisión cambia la implementación de la función.
+     */
+    public boolean affects(MathFunction function) {
+        return this == STRICT || (this == FAST_1E9 && isTrig(function));
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Precisión con el código dado, o null si el código no está asignado.
+     */
+    public static TrigPrecision fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    private static boolean isTrig(MathFunction function) {
+        return function == MathFunction.SIN || function == MathFunction.COS || function == MathFunction.TAN;
+    }
+
+    private static double strict(MathFunction function, double x) {
+        return switch (function) {
+            case SIN -> StrictMath.sin(x);
+            case COS -> StrictMath.cos(x);
+            case TAN -> StrictMath.tan(x);
+            case ASIN -> StrictMath.asin(x);
+            case ACOS -> StrictMath.acos(x);
+            case ATAN -> StrictMath.atan(x);
+            case SINH -> StrictMath.sinh(x);
+            case COSH -> StrictMath.cosh(x);
+            case TANH -> StrictMath.tanh(x);
+            case SQRT -> StrictMath.sqrt(x);
+            case EXP -> StrictMath.exp(x);
+            case LOG -> StrictMath.log(x);
+            case ABS -> StrictMath.abs(x);
+            case SIGNUM -> StrictMath.signum(x);
+            default -> function.apply(x);
+        };
+    }
+}
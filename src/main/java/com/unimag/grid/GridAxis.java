@@ -0,0 +1,53 @@
+package com.unimag.grid;
+
+/**
+ * Eje de una grilla: la variable toma los valores start + i·step para
+ * i = 0 .. count-1. Cada valor se calcula a partir del índice, sin acumular
+ * sumas, así que el último punto no arrastra error de redondeo.
+ */
+public record GridAxis(String variable, double start, double step, int count) {
+
+    public GridAxis {
+        if (count <= 0) {
+            throw new IllegalArgumentException(
+                String.format("El eje '%s' debe tener al menos un punto", variable)
+            );
+        }
+        if (!Double.isFinite(start) || !Double.isFinite(step)) {
+            throw new IllegalArgumentException(
+                String.format("El eje '%s' necesita inicio y paso finitos", variable)
+            );
+        }
+    }
+
+    /**
+     * Desde start hasta end (incluido si cae en la grilla) con el paso dado.
+     */
+    public static GridAxis range(String variable, double start, double end, double step) {
+        if (!(step > 0) || !(end >= start)) {
+            throw new IllegalArgumentException(
+                String.format("Rango inválido para '%s': [%s, %s] con paso %s", variable, start, end, step)
+            );
+        }
+        // Tolerancia relativa para que 0..1 con paso 0.1 incluya el 1
+        double points = Math.floor((end - start) / step * (1 + 1e-12)) + 1;
+        if (points > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("El eje '%s' tiene demasiados puntos", variable)
+            );
+        }
+        return new GridAxis(variable, start, step, (int) points);
+    }
+
+    /**
+     * count puntos equiespaciados entre start y end, ambos incluidos (para
+     * gráficas).
+     */
+    public static GridAxis samples(String variable, double start, double end, int count) {
+        return new GridAxis(variable, start, count > 1 ? (end - start) / (count - 1) : 0, count);
+    }
+
+    public double value(int index) {
+        return start + index * step;
+    }
+}
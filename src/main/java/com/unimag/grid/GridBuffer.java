@@ -0,0 +1,92 @@
+package com.unimag.grid;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/**
+ * Arreglo de double fuera del heap indexado con long, para grillas de más
+ * de Integer.MAX_VALUE puntos.
+ *
+ * Un DoubleBuffer directo se indexa con int y no pasa de 2^31 - 1 bytes,
+ * así que los valores se reparten en varios buffers de 2^k posiciones
+ * (2^27 por omisión, 1 GiB cada uno). La posición index está en el buffer
+ * index >>> k, en index & (2^k - 1): sin divisiones por acceso. Los buffers
+ * usan el orden de bytes nativo.
+ *
+ * No es seguro entre hilos salvo que cada hilo escriba posiciones
+ * distintas, como hace GridTabulator.
+ */
+public final class GridBuffer {
+    public static final int MAX_CHUNK_SIZE = 1 << 27;
+
+    private final DoubleBuffer[] chunks;
+    private final int shift;
+    private final int mask;
+    private final long size;
+
+    private GridBuffer(long size, int chunkSize) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño del buffer debe ser positivo");
+        }
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException(
+                String.format("El tamaño de trozo debe ser una potencia de dos hasta %d: %d", MAX_CHUNK_SIZE, chunkSize)
+            );
+        }
+        this.shift = Integer.numberOfTrailingZeros(chunkSize);
+        this.mask = chunkSize - 1;
+        this.size = size;
+        long count = ((size - 1) >>> shift) + 1;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("%d posiciones necesitan demasiados trozos de %d", size, chunkSize)
+            );
+        }
+        this.chunks = new DoubleBuffer[(int) count];
+        for (int c = 0; c < chunks.length; c++) {
+            long length = Math.min(chunkSize, size - ((long) c << shift));
+            chunks[c] = ByteBuffer.allocateDirect((int) length * Double.BYTES)
+                    .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Buffer de size posiciones en trozos de MAX_CHUNK_SIZE.
+     */
+    public static GridBuffer allocateDirect(long size) {
+        return new GridBuffer(size, MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Buffer de size posiciones en trozos de chunkSize (potencia de dos,
+     * como mucho MAX_CHUNK_SIZE).
+     */
+    public static GridBuffer allocateDirect(long size, int chunkSize) {
+        return new GridBuffer(size, chunkSize);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public double get(long index) {
+        return chunks[(int) (index >>> shift)].get((int) index & mask);
+    }
+
+    public void put(long index, double value) {
+        chunks[(int) (index >>> shift)].put((int) index & mask, value);
+    }
+
+    public int chunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * Vista del trozo c: la posición 0 de la vista es la posición
+     * c · tamaño de trozo del buffer completo.
+     */
+    public DoubleBuffer chunk(int c) {
+        return chunks[c].duplicate();
+    }
+}
@@ -0,0 +1,292 @@
+package com.unimag.grid;
+
+import com.unimag.compile.CompiledExpression;
+import com.unimag.compile.ExpressionCompiler;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.VariableSlots;
+import com.unimag.metrics.BatchJobEvent;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tabulación de una expresión sobre una grilla de 1, 2, 3 o más ejes.
+ *
+ * El resultado se escribe en orden de filas: el último eje es el que varía
+ * más rápido, así que el punto (i, j, k) de una grilla n0 × n1 × n2 queda
+ * en (i·n1 + j)·n2 + k. La grilla se reparte en un ForkJoinPool por rangos
+ * de índices; cada hilo del pool reutiliza su propio arreglo de variables
+ * y la expresión se compila una vez (el código generado no tiene estado),
+ * de modo que el bucle no reserva memoria por punto.
+ *
+ * Las variables de la expresión que no tienen eje toman su valor de
+ * fixedValues. Una división por cero en cualquier punto se propaga como
+ * ArithmeticException. Es inmutable y puede compartirse entre hilos.
+ */
+public final class GridTabulator {
+    // Puntos por tarea: suficientes para amortizar el reparto
+    private static final int LEAF_SIZE = 1 << 14;
+
+    private final BoundExpression expression;
+    private final CompiledExpression compiled;
+    private final ForkJoinPool pool;
+    private final GridAxis[] axes;
+    private final int[] axisSlots;
+    private final double[] fixedValues;
+    private final long size;
+    // Arreglo de variables de cada hilo, reutilizado en todas sus tareas
+    private final ThreadLocal<double[]> threadValues;
+
+    /**
+     * Todas las variables de la expresión necesitan un eje; usa el pool común.
+     */
+    public GridTabulator(BoundExpression expression, GridAxis... axes) {
+        this(expression, ForkJoinPool.commonPool(), requireAllAxes(expression, axes), axes);
+    }
+
+    /**
+     * @param fixedValues valores de las variables sin eje, con la misma
+     *                    disposición que expression.newValues()
+     */
+    public GridTabulator(BoundExpression expression, ForkJoinPool pool, double[] fixedValues, GridAxis... axes) {
+        if (axes.length == 0) {
+            throw new IllegalArgumentException("La grilla necesita al menos un eje");
+        }
+        int slotCount = expression.getSlots().size();
+        if (fixedValues.length < slotCount) {
+            throw new IllegalArgumentException(
+                String.format("Se esperaban %d valores fijos, se recibieron %d", slotCount, fixedValues.length)
+            );
+        }
+        this.axisSlots = new int[axes.length];
+        long size = 1;
+        for (int a = 0; a < axes.length; a++) {
+            int slot = expression.slotOf(axes[a].variable());
+            if (slot < 0) {
+                throw new IllegalArgumentException(
+                    String.format("La variable '%s' no aparece en la expresión", axes[a].variable())
+                );
+            }
+            for (int b = 0; b < a; b++) {
+                if (axisSlots[b] == slot) {
+                    throw new IllegalArgumentException(
+                        String.format("La variable '%s' tiene dos ejes", axes[a].variable())
+                    );
+                }
+            }
+            axisSlots[a] = slot;
+            size = Math.multiplyExact(size, axes[a].count());
+        }
+        this.expression = expression;
+        this.compiled = ExpressionCompiler.compile(expression);
+        this.pool = pool;
+        this.axes = axes.clone();
+        this.fixedValues = fixedValues.clone();
+        this.size = size;
+        this.threadValues = ThreadLocal.withInitial(this.fixedValues::clone);
+    }
+
+    private static double[] requireAllAxes(BoundExpression expression, GridAxis[] axes) {
+        VariableSlots slots = expression.getSlots();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            String name = slots.name(slot);
+            boolean covered = false;
+            for (GridAxis axis : axes) {
+                covered |= axis.variable().equals(name);
+            }
+            if (!covered) {
+                throw new IllegalArgumentException(
+                    String.format("La variable '%s' no tiene eje ni valor fijo", name)
+                );
+            }
+        }
+        return expression.newValues();
+    }
+
+    /**
+     * Número de puntos de la grilla.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tabula en un arreglo nuevo.
+     */
+    public double[] tabulate() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(
+                String.format("La grilla tiene %d puntos: use tabulate(DoubleBuffer) o subdivídala", size)
+            );
+        }
+        double[] out = new double[(int) size];
+        tabulate(out);
+        return out;
+    }
+
+    /**
+     * Tabula en out[0 .. size()).
+     */
+    public void tabulate(double[] out) {
+        if (out.length < size) {
+            throw new IllegalArgumentException(
+                String.format("El arreglo tiene %d posiciones, la grilla %d puntos", out.length, size)
+            );
+        }
+        run(new TabulateTask(new ArrayOutput(out), 0, size));
+    }
+
+    /**
+     * Tabula en out[0 .. size()) con escrituras absolutas (la posición del
+     * buffer no cambia). Un DoubleBuffer se indexa con int; para grillas
+     * mayores, tabulate(GridBuffer).
+     */
+    public void tabulate(DoubleBuffer out) {
+        if (out.capacity() < size) {
+            throw new IllegalArgumentException(
+                String.format("El buffer tiene %d posiciones, la grilla %d puntos", out.capacity(), size)
+            );
+        }
+        run(new TabulateTask(new BufferOutput(out), 0, size));
+    }
+
+    /**
+     * Tabula en out[0 .. size()) fuera del heap, sin límite de int (ver
+     * newDirectBuffer()).
+     */
+    public void tabulate(GridBuffer out) {
+        if (out.size() < size) {
+            throw new IllegalArgumentException(
+                String.format("El buffer tiene %d posiciones, la grilla %d puntos", out.size(), size)
+            );
+        }
+        run(new TabulateTask(out::put, 0, size));
+    }
+
+    private void run(TabulateTask task) {
+        BatchJobEvent event = new BatchJobEvent();
+        event.begin();
+        try {
+            pool.invoke(task);
+            event.finish("grilla", expression.getRoot(), size);
+        } catch (RuntimeException e) {
+            // Si falló otro hilo, el pool relanza una copia sin mensaje con
+            // la excepción original como causa: se relanza la original
+            if (e.getCause() instanceof RuntimeException cause && cause.getClass() == e.getClass()) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Buffer fuera del heap del tamaño de la grilla, en el orden de bytes
+     * nativo, repartido en trozos si no cabe en un solo DoubleBuffer.
+     */
+    public GridBuffer newDirectBuffer() {
+        return GridBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Valor de la variable del eje en el punto de índice plano index.
+     */
+    public double coordinate(int axis, long index) {
+        long stride = 1;
+        for (int a = axes.length - 1; a > axis; a--) {
+            stride *= axes[a].count();
+        }
+        return axes[axis].value((int) (index / stride % axes[axis].count()));
+    }
+
+    public GridAxis axis(int index) {
+        return axes[index];
+    }
+
+    public int axisCount() {
+        return axes.length;
+    }
+
+    public BoundExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evalúa los puntos [from, to) recorriendo la grilla como un odómetro:
+     * solo se recalculan las coordenadas que cambian, sin divisiones por punto.
+     */
+    private void tabulateRange(Output out, long from, long to, double[] values) {
+        int last = axes.length - 1;
+        int[] index = new int[axes.length];
+        long rest = from;
+        for (int a = last; a >= 0; a--) {
+            index[a] = (int) (rest % axes[a].count());
+            rest /= axes[a].count();
+            values[axisSlots[a]] = axes[a].value(index[a]);
+        }
+
+        GridAxis inner = axes[last];
+        int innerSlot = axisSlots[last];
+        long point = from;
+        while (point < to) {
+            int run = (int) Math.min(inner.count() - index[last], to - point);
+            for (int k = 0; k < run; k++) {
+                values[innerSlot] = inner.value(index[last] + k);
+                out.put(point + k, compiled.eval(values));
+            }
+            point += run;
+            // Avanza los ejes externos
+            index[last] = 0;
+            for (int a = last - 1; a >= 0; a--) {
+                if (++index[a] < axes[a].count()) {
+                    values[axisSlots[a]] = axes[a].value(index[a]);
+                    break;
+                }
+                index[a] = 0;
+                values[axisSlots[a]] = axes[a].value(0);
+            }
+        }
+    }
+
+    private interface Output {
+        void put(long index, double value);
+    }
+
+    // Los destinos indexados con int ya comprobaron que la grilla cabe
+    private record ArrayOutput(double[] out) implements Output {
+        @Override
+        public void put(long index, double value) {
+            out[Math.toIntExact(index)] = value;
+        }
+    }
+
+    private record BufferOutput(DoubleBuffer out) implements Output {
+        @Override
+        public void put(long index, double value) {
+            out.put(Math.toIntExact(index), value);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class TabulateTask extends RecursiveAction {
+        private final Output out;
+        private final long from;
+        private final long to;
+
+        TabulateTask(Output out, long from, long to) {
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                tabulateRange(out, from, to, threadValues.get());
+                return;
+            }
+            long middle = (from + to) >>> 1;
+            invokeAll(new TabulateTask(out, from, middle), new TabulateTask(out, middle, to));
+        }
+    }
+}
@@ -75,7 +75,7 @@ public class ParserGUI extends JFrame {
         
         topPanel.add(inputPanel, BorderLayout.NORTH);
         
-        JLabel infoLabel = new JLabel("<html><b>Operadores:</b> +, -, *, /, ^  |  <b>Funciones:</b> sin, cos, tan  |  <b>Constantes:</b> pi, e  |  <b>Variables:</b> x, y, z, etc.</html>");
+        JLabel infoLabel = new JLabel("<html><b>Operadores:</b> +, -, *, /, ^  |  <b>Funciones:</b> sin, cos, tan, sqrt, exp, log, min, max...  |  <b>Constantes:</b> pi, e  |  <b>Variables:</b> x, y, z, etc.</html>");
         infoLabel.setFont(new Font("Arial", Font.PLAIN, 11));
         topPanel.add(infoLabel, BorderLayout.SOUTH);
         
@@ -219,7 +219,11 @@ class ASTPanel extends JPanel {
         if (node == null) return 0;
         if (node instanceof NumberNode || node instanceof VarNode) return 1;
         if (node instanceof UnaryNode u) return calculateWidth(u.getExpression());
-        if (node instanceof FunctionNode f) return calculateWidth(f.getArgument());
+        if (node instanceof FunctionNode f) {
+            int width = 0;
+            for (int i = 0; i < f.getArgumentCount(); i++) width += calculateWidth(f.getArgument(i));
+            return width;
+        }
         if (node instanceof BinaryNode b) return calculateWidth(b.getLeft()) + calculateWidth(b.getRight());
         return 1;
     }
@@ -239,7 +243,19 @@ class ASTPanel extends JPanel {
         } else if (node instanceof UnaryNode u) {
             positionNode(u.getExpression(), x, y + LEVEL_HEIGHT, horizontalSpace);
         } else if (node instanceof FunctionNode f) {
-            positionNode(f.getArgument(), x, y + LEVEL_HEIGHT, horizontalSpace);
+            if (f.getArgumentCount() == 1) {
+                positionNode(f.getArgument(), x, y + LEVEL_HEIGHT, horizontalSpace);
+                return;
+            }
+            // Varios argumentos: se reparten de izquierda a derecha según su ancho
+            int totalWidth = calculateWidth(f);
+            int left = x - horizontalSpace / 2;
+            for (int i = 0; i < f.getArgumentCount(); i++) {
+                Node argument = f.getArgument(i);
+                int space = (int) (horizontalSpace * ((double) calculateWidth(argument) / totalWidth));
+                positionNode(argument, left + space / 2, y + LEVEL_HEIGHT, space);
+                left += space;
+            }
         }
     }
     
@@ -273,7 +289,7 @@ class ASTPanel extends JPanel {
         } else if (node instanceof UnaryNode u) {
             drawEdgeToChild(g2d, parentPos, u.getExpression());
         } else if (node instanceof FunctionNode f) {
-            drawEdgeToChild(g2d, parentPos, f.getArgument());
+            for (int i = 0; i < f.getArgumentCount(); i++) drawEdgeToChild(g2d, parentPos, f.getArgument(i));
         }
     }
     
@@ -329,7 +345,7 @@ class ASTPanel extends JPanel {
         } else if (node instanceof UnaryNode u) {
             drawNodes(g2d, u.getExpression());
         } else if (node instanceof FunctionNode f) {
-            drawNodes(g2d, f.getArgument());
+            for (int i = 0; i < f.getArgumentCount(); i++) drawNodes(g2d, f.getArgument(i));
         }
     }
     
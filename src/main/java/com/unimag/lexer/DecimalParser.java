@@ -0,0 +1,110 @@
+package com.unimag.lexer;
+
+/**
+ * Conversión de texto decimal a double sin crear un String intermedio.
+ *
+ * Usa el camino rápido clásico (mantisa exacta en 53 bits y potencia de 10
+ * exacta en double, |exp| ≤ 22): una sola operación de punto flotante, por
+ * lo que el resultado es el redondeo correcto. Cualquier otro caso se delega
+ * en Double.parseDouble.
+ */
+public final class DecimalParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private DecimalParser() {
+    }
+
+    /**
+     * Convierte source[start, end) a double. Acepta signo, parte decimal y
+     * exponente (ej: -3.5e-2, .5, 10).
+     */
+    public static double parse(CharSequence source, int start, int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+            negative = source.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+
+        while (i < end && isDigit(source.charAt(i))) {
+            exact &= accumulate(mantissa, source.charAt(i));
+            mantissa = mantissa * 10 + (source.charAt(i) - '0');
+            digits++;
+            i++;
+        }
+
+        if (i < end && source.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(source.charAt(i))) {
+                exact &= accumulate(mantissa, source.charAt(i));
+                mantissa = mantissa * 10 + (source.charAt(i) - '0');
+                exponent--;
+                digits++;
+                i++;
+            }
+        }
+
+        if (digits == 0) {
+            return slowPath(source, start, end);
+        }
+
+        if (i < end && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (source.charAt(i) == '-' || source.charAt(i) == '+')) {
+                negativeExponent = source.charAt(i) == '-';
+                i++;
+            }
+            int explicit = 0;
+            int exponentDigits = 0;
+            while (i < end && isDigit(source.charAt(i))) {
+                if (explicit < 100_000) {
+                    explicit = explicit * 10 + (source.charAt(i) - '0');
+                }
+                exponentDigits++;
+                i++;
+            }
+            if (exponentDigits == 0) {
+                return slowPath(source, start, end);
+            }
+            exponent += negativeExponent ? -explicit : explicit;
+        }
+
+        if (i != end || !exact || exponent < -22 || exponent > 22) {
+            return slowPath(source, start, end);
+        }
+
+        double value = (double) mantissa;
+        value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    public static double parse(CharSequence source) {
+        return parse(source, 0, source.length());
+    }
+
+    // Indica si la mantisa sigue siendo exacta después de agregar el dígito
+    private static boolean accumulate(long mantissa, char digit) {
+        return mantissa <= (MAX_EXACT_MANTISSA - (digit - '0')) / 10;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static double slowPath(CharSequence source, int start, int end) {
+        return Double.parseDouble(source.subSequence(start, end).toString());
+    }
+}
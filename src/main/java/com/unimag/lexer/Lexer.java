@@ -1,19 +1,25 @@
 package com.unimag.lexer;
 
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.functions.MathFunction;
+
 import java.util.*;
 
 public class Lexer {
-    private final String input;
+    private final CharSequence input;
     private int position;
     private char currentChar;
 
-    // Palabras reservadas: funciones y constantes
-    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
-            "sin", "cos", "tan", "pi", "e"
-    ));
+    // Inicio del último token reconocido por scan()
+    private int tokenStart;
+
+    // Palabras reservadas: constantes (las funciones vienen de MathFunction)
+    private static final String[] KEYWORDS = {"pi", "e"};
+    private static final TokenType[] KEYWORD_TYPES = {TokenType.PI, TokenType.E};
 
 
-    public Lexer(String input) {
+    public Lexer(CharSequence input) {
         this.input = input;
         this.position = 0;
         this.currentChar = input.length() > 0 ? input.charAt(0) : '\0';
@@ -42,91 +48,89 @@ public class Lexer {
         }
     }
 
-    private Token readNumber() {
+    private TokenType readNumber() {
         int startPos = position;
-        StringBuilder number = new StringBuilder();
         boolean hasDecimalPoint = false;
 
         // Caso especial: número que empieza con punto (.5)
         if (currentChar == '.') {
             hasDecimalPoint = true;
-            number.append(currentChar);
             advance();
 
             // Debe haber al menos un dígito después del punto
             if (!Character.isDigit(currentChar)) {
-                throw new RuntimeException(
-                        String.format("Error léxico en posición %d: número mal formado '%s'",
-                                startPos, number)
-                );
+                throw new ExpressionError(ErrorCode.MALFORMED_NUMBER, startPos,
+                        input.subSequence(startPos, position).toString());
             }
         }
 
         // Leer dígitos antes del punto decimal
         while (Character.isDigit(currentChar)) {
-            number.append(currentChar);
             advance();
         }
 
         // Leer parte decimal si existe
         if (currentChar == '.' && !hasDecimalPoint) {
-            hasDecimalPoint = true;
-            number.append(currentChar);
             advance();
 
             // Leer dígitos después del punto
             while (Character.isDigit(currentChar)) {
-                number.append(currentChar);
                 advance();
             }
         }
 
         // Verificar si hay dos puntos consecutivos (error)
         if (currentChar == '.') {
-            throw new RuntimeException(
-                    String.format("Error léxico en posición %d: número mal formado con múltiples puntos decimales",
-                            position)
-            );
+            throw new ExpressionError(ErrorCode.MULTIPLE_DECIMAL_POINTS, position);
         }
 
-        return new Token(TokenType.NUMBER, number.toString(), startPos);
+        return TokenType.NUMBER;
     }
 
-    private Token readIdentifier() {
+    private TokenType readIdentifier() {
         int startPos = position;
-        StringBuilder identifier = new StringBuilder();
 
         // Primer carácter: letra o underscore
         if (Character.isLetter(currentChar) || currentChar == '_') {
-            identifier.append(currentChar);
             advance();
         }
 
         // Siguientes caracteres: letra, dígito o underscore
         while (Character.isLetterOrDigit(currentChar) || currentChar == '_') {
-            identifier.append(currentChar);
             advance();
         }
 
-        String id = identifier.toString();
-
-        // Verificar si es palabra reservada
-        if (KEYWORDS.contains(id)) {
-            return switch (id) {
-                case "sin" -> new Token(TokenType.SIN, id, startPos);
-                case "cos" -> new Token(TokenType.COS, id, startPos);
-                case "tan" -> new Token(TokenType.TAN, id, startPos);
-                case "pi" -> new Token(TokenType.PI, id, startPos);
-                case "e" -> new Token(TokenType.E, id, startPos);
-                default -> new Token(TokenType.VAR, id, startPos);
-            };
+        // Verificar si es palabra reservada sin materializar el identificador
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            if (matches(startPos, KEYWORDS[i])) {
+                return KEYWORD_TYPES[i];
+            }
+        }
+        if (MathFunction.lookup(input, startPos, position) != null) {
+            return TokenType.FUNCTION;
         }
 
         // Es una variable
-        return new Token(TokenType.VAR, id, startPos);
+        return TokenType.VAR;
     }
 
-    public Token getNextToken() {
+    private boolean matches(int start, String keyword) {
+        if (position - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (input.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reconoce el siguiente token sin crear objetos: deja su inicio en
+     * tokenStart y su fin en position.
+     */
+    private TokenType scan() {
         while (currentChar != '\0') {
             // Ignorar espacios en blanco
             if (Character.isWhitespace(currentChar)) {
@@ -134,6 +138,8 @@ public class Lexer {
                 continue;
             }
 
+            tokenStart = position;
+
             // Números (incluyendo .5)
             if (Character.isDigit(currentChar) ||
                 (currentChar == '.' && Character.isDigit(peek()))) {
@@ -146,38 +152,29 @@ public class Lexer {
             }
 
             // Operadores y símbolos
-            int currentPos = position;
-            switch (currentChar) {
-                case '+':
-                    advance();
-                    return new Token(TokenType.PLUS, "+", currentPos);
-                case '-':
-                    advance();
-                    return new Token(TokenType.MINUS, "-", currentPos);
-                case '*':
-                    advance();
-                    return new Token(TokenType.MULTI, "*", currentPos);
-                case '/':
-                    advance();
-                    return new Token(TokenType.DIV, "/", currentPos);
-                case '^':
-                    advance();
-                    return new Token(TokenType.POW, "^", currentPos);
-                case '(':
-                    advance();
-                    return new Token(TokenType.L_PAR, "(", currentPos);
-                case ')':
-                    advance();
-                    return new Token(TokenType.R_PAR, ")", currentPos);
-                default:
-                    throw new RuntimeException(
-                            String.format("Error léxico en posición %d: carácter desconocido '%c'",
-                                    position, currentChar)
-                    );
-            }
+            TokenType type = switch (currentChar) {
+                case '+' -> TokenType.PLUS;
+                case '-' -> TokenType.MINUS;
+                case '*' -> TokenType.MULTI;
+                case '/' -> TokenType.DIV;
+                case '^' -> TokenType.POW;
+                case '(' -> TokenType.L_PAR;
+                case ')' -> TokenType.R_PAR;
+                case ',' -> TokenType.COMMA;
+                default -> throw new ExpressionError(ErrorCode.UNKNOWN_CHARACTER, position, currentChar);
+            };
+            advance();
+            return type;
         }
 
-        return new Token(TokenType.EOF, "", position);
+        tokenStart = position;
+        return TokenType.EOF;
+    }
+
+    public Token getNextToken() {
+        TokenType type = scan();
+        String value = input.subSequence(tokenStart, position).toString();
+        return new Token(type, value, tokenStart);
     }
 
     public List<Token> tokenize() {
@@ -192,6 +189,22 @@ public class Lexer {
         return tokens;
     }
 
+    /**
+     * Tokeniza en un buffer reutilizable, sin crear Token ni String por lexema.
+     * El buffer se reinicia y queda asociado a la entrada de este lexer.
+     */
+    public TokenBuffer tokenize(TokenBuffer buffer) {
+        buffer.reset(input);
+        TokenType type;
+
+        do {
+            type = scan();
+            buffer.add(type, tokenStart, position);
+        } while (type != TokenType.EOF);
+
+        return buffer;
+    }
+
     public void printTokens() {
         List<Token> tokens = tokenize();
         System.out.println("=== TOKENS ===");
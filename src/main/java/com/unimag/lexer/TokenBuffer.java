@@ -0,0 +1,139 @@
+package com.unimag.lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffer reutilizable de tokens en forma de "struct of arrays".
+ *
+ * Cada token ocupa una posición en tres arreglos paralelos: el ordinal de su
+ * TokenType y los desplazamientos [inicio, fin) dentro de la fuente. No se
+ * crea ningún Token ni String mientras se tokeniza; el texto de un token se
+ * materializa solo cuando se pide con text(i) o token(i).
+ *
+ * Un mismo buffer puede reutilizarse para muchas expresiones: reset() solo
+ * reinicia el contador y los arreglos crecen cuando hace falta.
+ */
+public final class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int INITIAL_CAPACITY = 32;
+
+    private CharSequence source;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int size;
+
+    public TokenBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public TokenBuffer(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.types = new byte[initial];
+        this.starts = new int[initial];
+        this.ends = new int[initial];
+        this.source = "";
+        this.size = 0;
+    }
+
+    /**
+     * Vacía el buffer y lo asocia a una nueva fuente.
+     */
+    public void reset(CharSequence source) {
+        this.source = source;
+        this.size = 0;
+    }
+
+    void add(TokenType type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int typeOrdinal(int index) {
+        return types[index];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    public int length(int index) {
+        return ends[index] - starts[index];
+    }
+
+    public char charAt(int index, int offset) {
+        return source.charAt(starts[index] + offset);
+    }
+
+    /**
+     * Compara el texto del token con una cadena sin materializarlo.
+     */
+    public boolean textEquals(int index, String text) {
+        int start = starts[index];
+        int length = ends[index] - start;
+        if (length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Valor numérico de un token NUMBER, convertido directamente desde la fuente.
+     */
+    public double numberValue(int index) {
+        return DecimalParser.parse(source, starts[index], ends[index]);
+    }
+
+    /**
+     * Materializa el texto del token (crea un String).
+     */
+    public String text(int index) {
+        return source.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * Materializa el token como un Token tradicional.
+     */
+    public Token token(int index) {
+        return new Token(type(index), text(index), starts[index]);
+    }
+
+    public List<Token> toTokens() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(token(i));
+        }
+        return tokens;
+    }
+}
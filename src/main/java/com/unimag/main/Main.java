@@ -1,15 +1,85 @@
 package com.unimag.main;
 
+import com.unimag.batch.ArithmeticPolicy;
+import com.unimag.batch.BatchEvaluator;
+import com.unimag.bulk.BulkLoader;
+import com.unimag.bulk.BulkResult;
+import com.unimag.bulk.CsvPipeline;
+import com.unimag.bulk.CsvSummary;
+import com.unimag.bulk.LineError;
+import com.unimag.cache.CacheStats;
+import com.unimag.cache.ExpressionCache;
+import com.unimag.catalog.CatalogEntry;
+import com.unimag.catalog.ExpressionCatalog;
+import com.unimag.columnar.ColumnarEvaluator;
+import com.unimag.columnar.ColumnarFile;
+import com.unimag.compile.CompiledExpression;
+import com.unimag.compile.ExpressionCompiler;
+import com.unimag.diagnostic.Diagnostic;
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.diagnostic.ExpressionValidator;
+import com.unimag.diagnostic.ParseResult;
+import com.unimag.diff.ForwardMode;
+import com.unimag.diff.ReverseGradient;
+import com.unimag.diff.SymbolicDerivative;
+import com.unimag.eval.BoundExpression;
+import com.unimag.eval.EvaluationContext;
 import com.unimag.eval.Evaluator;
+import com.unimag.eval.FusedTrigExpression;
+import com.unimag.eval.IncrementalContext;
+import com.unimag.eval.VariableSlots;
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.SinCos;
+import com.unimag.functions.TrigPrecision;
+import com.unimag.grid.GridAxis;
+import com.unimag.grid.GridBuffer;
+import com.unimag.grid.GridTabulator;
 import com.unimag.lexer.Lexer;
 import com.unimag.lexer.Token;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.metrics.ErrorCategory;
+import com.unimag.metrics.HistogramSnapshot;
+import com.unimag.metrics.LatencyHistogram;
+import com.unimag.metrics.MetricsSnapshot;
+import com.unimag.metrics.Phase;
+import com.unimag.metrics.PipelineMetrics;
+import com.unimag.metrics.SlowEvaluationEvent;
+import com.unimag.optimizer.Optimizer;
+import com.unimag.parser.OperatorPrecedenceParser;
 import com.unimag.parser.Parser;
+import com.unimag.parser.SourceSpan;
+import com.unimag.parser.SourceSpans;
 import com.unimag.parser.astNodes.*;
+import com.unimag.profiler.ExpressionProfiler;
+import com.unimag.profiler.NodeProfile;
+import com.unimag.profiler.ProfileReport;
+import com.unimag.vm.Linearizer;
+import com.unimag.vm.Opcodes;
+import com.unimag.vm.Program;
 
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jfr.EventType;
+import jdk.jfr.Recording;
+import jdk.jfr.SettingDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 /**
  * Programa principal - Parser y Evaluador de Expresiones Trigonométricas
@@ -39,21 +109,45 @@ public class Main {
     private static int testsPassed = 0;
     private static int testsFailed = 0;
 
+    // Métricas de las expresiones del modo interactivo (comando 'metrics')
+    private static final PipelineMetrics METRICS = new PipelineMetrics();
+
+    // Evaluaciones del comando 'profile'
+    private static final int PROFILE_EVALUATIONS = 200_000;
+
+    // Pruebas de evaluación incremental y de grilla: a y b cambian poco, c en cada punto
+    private static final String SWEEP_EXPRESSION =
+            "sin(a)*exp(cos(a)/2) + atan2(b, a+2) * sqrt(abs(sin(b)*cos(a))) + log(1 + c^2) * tanh(a*b) + cosh(b/3)*c";
+
+    // Gramática de randomExpression
+    private static final String[] RANDOM_VARIABLES = {"x", "y", "z", "t"};
+    private static final String[] RANDOM_UNARY = {"sin", "cos", "tan", "sqrt", "exp", "log", "abs", "atan", "tanh"};
+    private static final String[] RANDOM_BINARY = {"atan2", "min", "max"};
+
     private static final String BANNER = """
             ╔════════════════════════════════════════════════════════════╗
             ║   PARSER Y EVALUADOR DE EXPRESIONES TRIGONOMÉTRICAS        ║
             ║                                                            ║
             ║   Operadores: +, -, *, /, ^                                ║
-            ║   Funciones:  sin, cos, tan                                ║
+            ║   Funciones:  sin, cos, tan, asin, acos, atan, atan2,      ║
+            ║               sinh, cosh, tanh, sqrt, exp, log, abs,       ║
+            ║               signum, min, max                             ║
             ║   Constantes: pi, e                                        ║
             ║   Variables:  x, y, z, etc.                                ║
             ║                                                            ║
             ║   Comandos:   'exit' para salir                            ║
             ║               'test' para ejecutar pruebas                 ║
+            ║               'metrics' para ver las métricas              ║
+            ║               'profile <expr>' para perfilar por nodo      ║
             ╚════════════════════════════════════════════════════════════╝
             """;
 
     public static void main(String[] args) {
+        // Modo por lotes: csv <expresión> <entrada.csv> <salida.csv>
+        if (args.length > 0 && args[0].equalsIgnoreCase("csv")) {
+            System.exit(runCsvPipeline(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         // Mostrar banner
@@ -71,6 +165,21 @@ public class Main {
                     break;
                 }
 
+                if (input.equalsIgnoreCase("metrics") || input.equalsIgnoreCase("metricas")) {
+                    System.out.println("\n" + METRICS.snapshot() + "\n");
+                    continue;
+                }
+
+                if (input.equalsIgnoreCase("metrics export")) {
+                    System.out.println(METRICS.snapshot().export());
+                    continue;
+                }
+
+                if (input.regionMatches(true, 0, "profile ", 0, 8)) {
+                    System.out.println("\n" + profile(input.substring(8)));
+                    continue;
+                }
+
                 if (input.equalsIgnoreCase("test") || input.equalsIgnoreCase("pruebas")) {
                     System.out.println("\nEjecutando casos de prueba...");
                     System.out.println("╔══════════════════════════════════════════════════════════╗");
@@ -134,6 +243,22 @@ public class Main {
                     // 15. Múltiplo de pi
                     testExpression("2*pi", null, 2*Math.PI, "2*π ≈ 6.28318", 0.00001);
 
+                    // FUNCIONES DEL REGISTRO
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             FUNCIONES DEL REGISTRO");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testExpression("sqrt(16) + abs(-3)", null, 7.0, "sqrt(16) + abs(-3) = 7");
+                    testExpression("signum(-2.5) + signum(0) + signum(x)", Map.of("x", 4.0), 0.0, "signum(-2.5) + signum(0) + signum(4) = 0");
+                    testExpression("atan2(1, 1) * 4", null, Math.PI, "atan2(1, 1) * 4 = π", 0.00001);
+                    testExpression("min(x, 2) + max(x, 2)", vars1, 5.0, "min(x, 2) + max(x, 2) con x=3");
+                    testExpression("log(exp(x)) + cosh(0) - tanh(0)", vars1, 4.0, "log(exp(x)) + cosh(0) - tanh(0)");
+                    testExpression("asin(1) + acos(1) + atan(0) + sinh(0)", null, Math.PI / 2,
+                        "asin(1) + acos(1) + atan(0) + sinh(0) = π/2", 0.00001);
+                    testExpressionError("atan2(1)", "Error sintáctico: aridad incorrecta");
+                    testExpressionError("(1, 2)", "Error sintáctico: coma fuera de una función");
+                    testStableFunctionCodes();
+
                     // CASOS ERRÓNEOS
                     System.out.println("\n═══════════════════════════════════════════════════════════");
                     System.out.println("             CASOS ERRÓNEOS (15 pruebas)");
@@ -166,6 +291,125 @@ public class Main {
                     // 25. Error: múltiples operadores
                     testExpressionError("3++4", "Error sintáctico: múltiples operadores");
 
+                    // OPTIMIZADOR
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             OPTIMIZADOR");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testOptimizer();
+
+                    // CACHÉ
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             CACHÉ DE EXPRESIONES");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testCache();
+
+                    // CONCURRENCIA
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             EVALUACIÓN CONCURRENTE");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testConcurrentEvaluation();
+
+                    // CARGA MASIVA
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             CARGA MASIVA DE ARCHIVOS");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testBulkLoad();
+
+                    // TRIGONOMETRÍA COMPARTIDA
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             TRIGONOMETRÍA COMPARTIDA");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testFusedTrig();
+
+                    // PRECISIÓN
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             PRECISIÓN TRIGONOMÉTRICA");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testTrigPrecision();
+
+                    // SUBEXPRESIONES COMPARTIDAS
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             SUBEXPRESIONES COMPARTIDAS");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testSharedSubexpressions();
+
+                    // EVALUACIÓN INCREMENTAL
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             EVALUACIÓN INCREMENTAL");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testIncrementalEvaluation();
+
+                    // DIFERENCIACIÓN AUTOMÁTICA
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             DIFERENCIACIÓN AUTOMÁTICA");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testDifferentiation();
+
+                    // TABULACIÓN EN GRILLA
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             TABULACIÓN EN GRILLA");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testGridTabulation();
+
+                    // CSV EN FLUJO
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             CSV EN FLUJO");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testCsvPipeline();
+
+                    // FORMATO COLUMNAR
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             FORMATO COLUMNAR");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testColumnarFormat();
+
+                    // CATÁLOGO BINARIO
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             CATÁLOGO BINARIO");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testExpressionCatalog();
+
+                    // MÉTRICAS
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             MÉTRICAS");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testMetrics();
+
+                    // EVENTOS JFR
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             EVENTOS JFR");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testFlightRecorderEvents();
+
+                    // PERFILADOR
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             PERFILADOR");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testProfiler();
+
+                    // ERRORES SIN EXCEPCIONES
+                    System.out.println("\n═══════════════════════════════════════════════════════════");
+                    System.out.println("             ERRORES SIN EXCEPCIONES");
+                    System.out.println("═══════════════════════════════════════════════════════════\n");
+
+                    testErrorChannel();
+
                     continue;
                 }
 
@@ -184,11 +428,61 @@ public class Main {
         scanner.close();
     }
 
+    // Evalúa la expresión con las variables recorriendo [0, 1); la primera
+    // pasada solo calienta el JIT y se descarta con reset()
+    private static ProfileReport profile(String source) {
+        ExpressionProfiler profiler = ExpressionProfiler.of(source);
+        double[] values = profiler.newValues();
+        for (int pass = 0; pass < 2; pass++) {
+            profiler.reset();
+            for (int i = 0; i < PROFILE_EVALUATIONS; i++) {
+                for (int slot = 0; slot < values.length; slot++) {
+                    values[slot] = (double) ((i + slot * 7_919) % PROFILE_EVALUATIONS) / PROFILE_EVALUATIONS;
+                }
+                profiler.evaluate(values);
+            }
+        }
+        return profiler.report();
+    }
+
+    private static int runCsvPipeline(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Uso: csv <expresión> <entrada.csv> <salida.csv>");
+            return 2;
+        }
+        try {
+            BoundExpression expression = BoundExpression.bind(parse(args[1])).optimized();
+            Path input = Path.of(args[2]);
+            long start = System.nanoTime();
+            CsvSummary summary = new CsvPipeline(expression).run(input, Path.of(args[3]));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s en %.2f s (%.1f MB/s, kernels %s)%n", summary, seconds,
+                    Files.size(input) / 1e6 / seconds, new BatchEvaluator(expression).kernelName());
+            for (LineError error : summary.errors()) {
+                System.out.println("   " + error);
+            }
+            if (summary.errorCount() > summary.errors().size()) {
+                System.out.printf("   ... y %d errores más%n", summary.errorCount() - summary.errors().size());
+            }
+            return summary.hasErrors() ? 1 : 0;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ " + e.getMessage());
+            return 2;
+        }
+    }
+
     private static void processExpression(String input, Scanner scanner) throws Exception {
         // 1. TOKENIZACIÓN
         System.out.println("\n--- FASE 1: TOKENIZACIÓN ---");
-        Lexer lexer = new Lexer(input);
-        List<Token> tokens = lexer.tokenize();
+        long start = METRICS.start();
+        List<Token> tokens;
+        try {
+            tokens = new Lexer(input).tokenize();
+        } catch (RuntimeException e) {
+            METRICS.fail(Phase.LEX, start, e);
+            throw e;
+        }
+        METRICS.stop(Phase.LEX, start);
         System.out.println("Tokens generados: " + (tokens.size()-1));
         for (Token token : tokens) {
             if (token.type().name().equals("EOF")) continue;
@@ -197,19 +491,44 @@ public class Main {
 
         // 2. PARSING
         System.out.println("\n--- FASE 2: ANÁLISIS SINTÁCTICO ---");
-        Parser parser = new Parser(tokens);
-        Node ast = parser.parse();
+        start = METRICS.start();
+        Node ast;
+        try {
+            ast = new Parser(tokens).parse();
+        } catch (RuntimeException e) {
+            METRICS.fail(Phase.PARSE, start, e);
+            throw e;
+        }
+        METRICS.stop(Phase.PARSE, start);
+        METRICS.recordTree(ast);
         System.out.println("✓ AST construido correctamente");
 
         // 3. EVALUACIÓN
         System.out.println("\n--- FASE 3: EVALUACIÓN ---");
-        Evaluator evaluator = new Evaluator(ast);
+        start = METRICS.start();
+        BoundExpression expression;
+        try {
+            expression = BoundExpression.bind(ast);
+        } catch (RuntimeException e) {
+            METRICS.fail(Phase.BIND, start, e);
+            throw e;
+        }
+        METRICS.stop(Phase.BIND, start);
+        Evaluator evaluator = new Evaluator(expression);
 
         // Recolectar y pedir variables
         evaluator.requestVariableValues(scanner);
 
         // Evaluar
-        double result = evaluator.evaluate();
+        start = METRICS.start();
+        double result;
+        try {
+            result = evaluator.evaluate();
+        } catch (Exception e) {
+            METRICS.fail(Phase.EVALUATE, start, e);
+            throw e;
+        }
+        METRICS.stop(Phase.EVALUATE, start);
 
         // Mostrar resultado
         System.out.println("\n╔══════════════════════════════════════════════╗");
@@ -238,7 +557,12 @@ public class Main {
 
             double result = evaluator.evaluate();
 
-            if (Math.abs(result - expected) < tolerance) {
+            String mismatch = checkAlternatives(expression, ast, variables, result);
+
+            if (mismatch != null) {
+                System.out.printf("   ✗ %s%n%n", mismatch);
+                testsFailed++;
+            } else if (Math.abs(result - expected) < tolerance) {
                 System.out.printf("   ✓ Resultado: %.10f (esperado: %.10f)%n%n", result, expected);
                 testsPassed++;
             } else {
@@ -251,6 +575,1226 @@ public class Main {
         }
     }
 
+    /**
+     * Evalúa la expresión por los caminos alternativos (buffer de tokens, ...)
+     * y devuelve una descripción del primer resultado que difiera, o null.
+     */
+    private static String checkAlternatives(String expression, Node ast, Map<String, Double> variables,
+                                            double expected) throws Exception {
+        Map<String, Double> env = variables != null ? variables : new HashMap<>();
+
+        TokenBuffer buffer = new Lexer(expression).tokenize(new TokenBuffer());
+        double fromBuffer = new Parser(buffer).parse().evaluate(env);
+        if (Double.compare(fromBuffer, expected) != 0) {
+            return String.format("Buffer de tokens: %.10f (evaluador: %.10f)", fromBuffer, expected);
+        }
+
+        double fromPrecedence = new OperatorPrecedenceParser(buffer).parse().evaluate(env);
+        if (Double.compare(fromPrecedence, expected) != 0) {
+            return String.format("Parser de precedencia: %.10f (evaluador: %.10f)", fromPrecedence, expected);
+        }
+
+        BoundExpression bound = BoundExpression.bind(ast);
+        double[] values = bound.newValues();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = env.get(bound.getSlots().name(i));
+        }
+        double fromSlots = bound.evaluate(values);
+        if (Double.compare(fromSlots, expected) != 0) {
+            return String.format("Evaluación por slots: %.10f (evaluador: %.10f)", fromSlots, expected);
+        }
+
+        // Las potencias reducidas a productos pueden diferir en el último bit
+        double optimized = bound.optimized().evaluate(values);
+        if (Math.abs(optimized - expected) > 1e-12 * Math.max(1.0, Math.abs(expected))) {
+            return String.format("Árbol optimizado: %.10f (evaluador: %.10f)", optimized, expected);
+        }
+
+        // El sincos de fdlibm puede diferir de Math.sin/cos en el último bit
+        double fused = bound.fusedTrig().evaluate(values);
+        if (Math.abs(fused - expected) > 1e-12 * Math.max(1.0, Math.abs(expected))) {
+            return String.format("Trigonometría compartida: %.10f (evaluador: %.10f)", fused, expected);
+        }
+
+        double compiled = ExpressionCompiler.compile(bound).eval(values);
+        if (Double.compare(compiled, expected) != 0) {
+            return String.format("Expresión compilada: %.10f (evaluador: %.10f)", compiled, expected);
+        }
+
+        Program program = Linearizer.linearize(bound);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        program.write(new DataOutputStream(serialized));
+        Program restored = Program.read(new DataInputStream(new ByteArrayInputStream(serialized.toByteArray())));
+        double fromVm = restored.evaluate(values, restored.newStack());
+        if (Double.compare(fromVm, expected) != 0) {
+            return String.format("Máquina de pila: %.10f (evaluador: %.10f)", fromVm, expected);
+        }
+
+        // Calcular una sola vez cada repetición no cambia ninguna operación
+        BoundExpression shared = bound.shared();
+        double sharedVm = Linearizer.linearize(shared).evaluate(values);
+        double sharedCompiled = ExpressionCompiler.compile(shared).eval(values);
+        if (Double.compare(sharedVm, expected) != 0 || Double.compare(sharedCompiled, expected) != 0) {
+            return String.format("DAG compartido: %.10f / %.10f (evaluador: %.10f)", sharedVm, sharedCompiled, expected);
+        }
+
+        // Columnas con más filas que carriles SIMD para cubrir también la cola escalar
+        int rows = 37;
+        double[][] columns = new double[values.length][rows];
+        for (int i = 0; i < values.length; i++) {
+            Arrays.fill(columns[i], values[i]);
+        }
+        double[] out = new double[rows];
+        BatchEvaluator batch = new BatchEvaluator(bound);
+        batch.scalar().evaluate(columns, out);
+        if (Double.compare(out[rows - 1], expected) != 0) {
+            return String.format("Lotes escalar: %.10f (evaluador: %.10f)", out[rows - 1], expected);
+        }
+        batch.evaluate(columns, out);
+        for (double value : out) {
+            // Los kernels SIMD garantizan 1 ulp por operación, no igualdad exacta
+            if (Math.abs(value - expected) > 1e-12 * Math.max(1.0, Math.abs(expected))) {
+                return String.format("Lotes %s: %.10f (evaluador: %.10f)", batch.kernelName(), value, expected);
+            }
+        }
+
+        return null;
+    }
+
+    private static void testOptimizer() {
+        BoundExpression power = BoundExpression.bind(parse("sin(x)^0 + y^0*2"));
+        String optimized = power.optimized().getRoot().toString();
+        check(optimized.equals("3.0"),
+                "x^0 → 1 con base ligada: sin(x)^0 + y^0*2 → " + optimized);
+        double[] nan = {Double.NaN, Double.POSITIVE_INFINITY};
+        check(power.optimized().evaluate(nan) == power.evaluate(nan), "Mismo valor con NaN e infinito: " + power.evaluate(nan));
+        String kept = BoundExpression.bind(parse("(1/x)^0")).optimized().getRoot().toString();
+        String unbound = Optimizer.optimize(parse("x^0")).toString();
+        check(kept.equals("((1.0/x)^0.0)") && unbound.equals("(x^0.0)"),
+                "Se conserva si la base puede fallar: " + kept + ", " + unbound + " sin ligar");
+    }
+
+    private static void testCache() {
+        ExpressionCache cache = new ExpressionCache(2, 1_000);
+
+        BoundExpression first = cache.get("x*2+y");
+        BoundExpression second = cache.get("  x*2+y ");
+        check(first == second, "Misma fuente normalizada devuelve la misma expresión");
+
+        cache.get("sin(x)");
+        cache.get("cos(x)");
+        CacheStats stats = cache.stats();
+        check(stats.hits() == 1 && stats.misses() == 3, "Contadores: " + stats);
+        check(stats.size() == 2 && stats.evictions() == 1, "Límite de entradas respetado: guarda las 2 más recientes");
+
+        // 100 entradas en 8 segmentos: los límites por segmento suman 100, no 104
+        ExpressionCache segmented = new ExpressionCache(100, 1_000_000);
+        for (int i = 0; i < 1_000; i++) {
+            segmented.get("x+" + i);
+        }
+        check(segmented.size() == 100, "Límite repartido entre segmentos sin exceso: " + segmented.size() + " de 100");
+
+        try {
+            cache.get("3+*4");
+            check(false, "Fuente inválida debería fallar");
+        } catch (RuntimeException e) {
+            check(cache.getIfPresent("3+*4") == null, "Los errores no se guardan en caché");
+        }
+    }
+
+    private static void testConcurrentEvaluation() {
+        BoundExpression shared = new Evaluator(new Parser(new Lexer("x*2+sin(y)").tokenize()).parse()).getExpression();
+        AtomicInteger failures = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 1_000; t++) {
+                int seed = t;
+                executor.submit(() -> {
+                    // Cada hilo tiene su propio contexto; la expresión es compartida
+                    EvaluationContext context = shared.newContext();
+                    for (int i = 0; i < 100; i++) {
+                        double x = seed + i;
+                        context.set("x", x).set("y", 0.0);
+                        if (context.evaluate() != x * 2) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        check(failures.get() == 0, "1000 hilos virtuales evalúan la misma expresión sin candados");
+
+        try {
+            shared.newContext().set("x", 1.0).evaluate();
+            check(false, "Contexto incompleto debería fallar");
+        } catch (RuntimeException e) {
+            check(e.getMessage().contains("'y'"), "Contexto incompleto: " + e.getMessage());
+        }
+    }
+
+    private static void testBulkLoad() {
+        try {
+            Path file = Files.createTempFile("expresiones", ".txt");
+            try {
+                Files.writeString(file, "x*2+y\r\n3+*4\nsin(pi/2)\n");
+                BulkResult<BoundExpression> result = new BulkLoader().load(file, BoundExpression::bind);
+
+                check(result.lineCount() == 3, "Una entrada por línea, en orden: " + result.lineCount());
+                check(result.errors().size() == 1 && result.errors().get(0).line() == 2,
+                        "Error reportado por línea: " + result.errors());
+                check(result.line(3).evaluate(new double[0]) == 1.0, "sin(pi/2) cargado desde archivo");
+
+                // Una suma de 100 000 términos es un árbol de 100 000 niveles: la
+                // rechaza el parser, antes de que bind lo recorra
+                String deep = "x" + "+1".repeat(100_000);
+                String nested = "(".repeat(100_000) + "x" + ")".repeat(100_000);
+                Files.writeString(file, deep + "\n" + nested + "\n");
+                result = new BulkLoader().load(file, BoundExpression::bind);
+                // El límite se pasa al reducir la suma número 2000, al ver el '+' siguiente
+                int position = 1 + 2 * OperatorPrecedenceParser.DEFAULT_MAX_DEPTH;
+                String expected = new Diagnostic(ErrorCode.EXPRESSION_TOO_DEEP, position,
+                        OperatorPrecedenceParser.DEFAULT_MAX_DEPTH).message();
+                check(result.errors().size() == 1 && result.errors().get(0).line() == 1
+                        && result.errors().get(0).message().equals(expected),
+                        "Árbol demasiado profundo reportado como error de línea: " + result.errors());
+                check(result.line(2) != null, "Los paréntesis redundantes no suman profundidad");
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            check(false, "Carga masiva: " + e.getMessage());
+        }
+    }
+
+    private static void testCsvPipeline() {
+        try {
+            Path input = Files.createTempFile("valores", ".csv");
+            Path output = Files.createTempFile("resultados", ".csv");
+            try {
+                BoundExpression expression = BoundExpression.bind(parse("sin(x)*y + 1/z"));
+                StringBuilder csv = new StringBuilder("id, y ,x,z,extra\r\n");
+                int rows = 5000;
+                for (int row = 1; row <= rows; row++) {
+                    csv.append(row).append(',').append(row * 0.25).append(',').append(row % 7 - 3.5e-1)
+                            .append(',').append(row % 100 == 0 ? "0" : String.valueOf(row % 9 + 1)).append(",ignorada\n");
+                }
+                csv.append("5001,abc,1,2\n5002,1,2");
+                Files.writeString(input, csv);
+
+                // Trozos pequeños y un pool propio para forzar varios trozos en paralelo
+                ForkJoinPool pool = new ForkJoinPool(3);
+                CsvSummary summary;
+                try {
+                    summary = new CsvPipeline(expression, pool, 4096).run(input, output);
+                } finally {
+                    pool.shutdown();
+                }
+                List<String> lines = Files.readAllLines(output);
+                check(summary.rows() == rows + 2 && lines.size() == rows + 3 && lines.get(0).equals(CsvPipeline.RESULT_HEADER),
+                        "Una línea de salida por fila, en orden: " + summary);
+
+                boolean same = true;
+                for (int row = 1; row <= rows; row++) {
+                    double z = row % 100 == 0 ? 0 : row % 9 + 1;
+                    String expected = z == 0 ? "" : String.valueOf(
+                            expression.evaluate(Map.of("x", row % 7 - 3.5e-1, "y", row * 0.25, "z", z)));
+                    same &= lines.get(row).equals(expected);
+                }
+                check(same, "Resultados iguales a la evaluación fila a fila");
+                check(summary.errorCount() == rows / 100 + 2 && summary.errors().get(0).line() == 101,
+                        "Divisiones por cero ubicadas por fila: " + summary.errors().get(0));
+                List<LineError> errors = summary.errors();
+                check(errors.get(errors.size() - 2).message().contains("'y'")
+                                && errors.get(errors.size() - 1).message().startsWith("Faltan columnas"),
+                        "Campo no numérico y fila incompleta: " + errors.get(errors.size() - 1));
+
+                try {
+                    new CsvPipeline(BoundExpression.bind(parse("w + x"))).run(input, output);
+                    check(false, "Una variable sin columna debería fallar");
+                } catch (IllegalArgumentException e) {
+                    check(e.getMessage().startsWith("La variable 'w'"), e.getMessage());
+                }
+            } finally {
+                Files.deleteIfExists(input);
+                Files.deleteIfExists(output);
+            }
+        } catch (IOException e) {
+            check(false, "CSV en flujo: " + e.getMessage());
+        }
+    }
+
+    private static void testColumnarFormat() {
+        Path dataset = null;
+        Path first = null;
+        Path second = null;
+        try {
+            dataset = Files.createTempFile("datos", ".trgc");
+            first = Files.createTempFile("pasada1", ".trgc");
+            second = Files.createTempFile("pasada2", ".trgc");
+            int rows = 10_000;
+            double[] x = new double[rows];
+            double[] y = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                x[row] = row * 0.001 - 3;
+                y[row] = Math.cos(row);
+            }
+            ColumnarFile.write(dataset, List.of("x", "y"), x, y);
+            ColumnarFile input = ColumnarFile.open(dataset);
+            check(input.names().equals(List.of("x", "y")) && input.rowCount() == rows
+                            && input.column("y").get(rows - 1) == y[rows - 1],
+                    "Encabezado y columnas leídos del archivo mapeado: " + input.names());
+
+            // Dos pasadas encadenadas: la salida de la primera es entrada de la segunda
+            BoundExpression u = BoundExpression.bind(parse("sin(x)*y"));
+            BoundExpression v = BoundExpression.bind(parse("u^2 + x"));
+            ForkJoinPool pool = new ForkJoinPool(3);
+            try {
+                new ColumnarEvaluator(u, pool).evaluate(first, "u", input);
+                ColumnarFile result = new ColumnarEvaluator(v, pool).evaluate(second, "v", input, ColumnarFile.open(first));
+                boolean same = true;
+                for (int row = 0; row < rows; row++) {
+                    double expected = v.evaluate(Map.of("u", u.evaluate(Map.of("x", x[row], "y", y[row])), "x", x[row]));
+                    same &= result.column("v").get(row) == expected;
+                }
+                check(same, "Pasadas encadenadas u = sin(x)*y, v = u^2 + x: " + rows + " filas");
+            } finally {
+                pool.shutdown();
+            }
+
+            try {
+                new ColumnarEvaluator(BoundExpression.bind(parse("1/(x+3)"))).evaluate(second, "w", input);
+                check(false, "División por cero debería fallar");
+            } catch (ArithmeticException e) {
+                check(true, "Columnar: " + e.getMessage());
+            }
+            try {
+                new ColumnarEvaluator(BoundExpression.bind(parse("x + z"))).evaluate(second, "w", input);
+                check(false, "Una variable sin columna debería fallar");
+            } catch (IllegalArgumentException e) {
+                check(true, e.getMessage());
+            }
+
+            Files.writeString(second, "x,y\n1,2\n");
+            try {
+                ColumnarFile.open(second);
+                check(false, "Un CSV no debería abrirse como archivo columnar");
+            } catch (IOException e) {
+                check(e.getMessage().startsWith("No es un archivo columnar"), e.getMessage());
+            }
+
+            // Número de columnas corrupto (little-endian, posición 16): error, no falta de memoria
+            byte[] corrupt = Files.readAllBytes(dataset);
+            corrupt[16] = corrupt[17] = corrupt[18] = (byte) 0xFF;
+            corrupt[19] = 0x7F;
+            Files.write(second, corrupt);
+            try {
+                ColumnarFile.open(second);
+                check(false, "Un encabezado con 2^31 - 1 columnas debería fallar");
+            } catch (IOException e) {
+                check(e.getMessage().startsWith("Encabezado inválido"), e.getMessage());
+            }
+        } catch (IOException e) {
+            check(false, "Formato columnar: " + e.getMessage());
+        } finally {
+            for (Path path : new Path[]{dataset, first, second}) {
+                try {
+                    if (path != null) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException ignored) {
+                    // Archivo temporal; el sistema lo limpiará
+                }
+            }
+        }
+    }
+
+    private static void testExpressionCatalog() {
+        Path file = null;
+        try {
+            file = Files.createTempFile("catalogo", ".tcat");
+            List<CatalogEntry> entries = randomCatalogue(2000, 11);
+            BoundExpression shared = BoundExpression.bind(parse("sin(x*y) + cos(sin(x*y)) * sin(x*y)")).shared();
+            BoundExpression fast = BoundExpression.bind(parse("sin(x)^2 + 123456789.123*y - 0.1")).withPrecision(TrigPrecision.FAST_1E9);
+            entries.add(CatalogEntry.optimizing(shared));
+            entries.add(CatalogEntry.of(fast));
+            ExpressionCatalog.write(file, entries);
+
+            List<CatalogEntry> loaded = ExpressionCatalog.open(file).loadAll();
+            boolean same = loaded.size() == entries.size();
+            boolean values = true;
+            for (int i = 0; same && i < entries.size(); i++) {
+                CatalogEntry original = entries.get(i);
+                CatalogEntry copy = loaded.get(i);
+                same = copy.expression().getRoot().toString().equals(original.expression().getRoot().toString())
+                        && copy.hasOptimized() == original.hasOptimized()
+                        && (!copy.hasOptimized()
+                            || copy.optimized().getRoot().toString().equals(original.optimized().getRoot().toString()))
+                        && copy.expression().getSlots().names().equals(original.expression().getSlots().names());
+                double[] point = new double[original.expression().getSlots().size()];
+                Arrays.fill(point, 0.75);
+                values &= Double.compare(evaluateOrNaN(copy.best(), point), evaluateOrNaN(original.best(), point)) == 0;
+            }
+            check(same, String.format("Ida y vuelta de %d expresiones con formas optimizadas: %d bytes",
+                    entries.size(), Files.size(file)));
+            check(values, "Mismos valores al evaluar lo cargado");
+            CatalogEntry dag = loaded.get(entries.size() - 2);
+            check(dag.optimized() == dag.expression(), "Forma optimizada sin cambios: se guarda una sola vez");
+            check(NodeFactory.findShared(dag.expression().getRoot()).size() == NodeFactory.findShared(shared.getRoot()).size()
+                            && Linearizer.linearize(dag.expression()).tempCount() == Linearizer.linearize(shared).tempCount(),
+                    "El DAG se conserva: " + Linearizer.linearize(dag.expression()).tempCount() + " temporales");
+            check(loaded.get(entries.size() - 1).expression().getRoot().toString().equals(fast.getRoot().toString()),
+                    "Precisión y constantes exactas: " + fast.getRoot());
+
+            // Un catálogo truncado falla al abrirlo o al leer la entrada afectada
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+            try {
+                ExpressionCatalog truncated = ExpressionCatalog.open(file);
+                truncated.get(truncated.size() - 1);
+                check(false, "Un catálogo truncado debería fallar");
+            } catch (IOException e) {
+                check(true, "Catálogo truncado: " + e.getMessage());
+            }
+            Files.writeString(file, "sin(x)\n");
+            try {
+                ExpressionCatalog.open(file);
+                check(false, "Un archivo de texto no es un catálogo");
+            } catch (IOException e) {
+                check(true, e.getMessage());
+            }
+        } catch (IOException e) {
+            check(false, "Catálogo: " + e.getMessage());
+        } finally {
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException ignored) {
+                // Archivo temporal; el sistema lo limpiará
+            }
+        }
+    }
+
+    private static void testMetrics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i);
+        }
+        HistogramSnapshot h = histogram.snapshot();
+        check(h.count() == 1_000 && h.max() == 1_000 && h.mean() == 500.5,
+                "Histograma: %d muestras, media %.1f, máx %d".formatted(h.count(), h.mean(), h.max()));
+        check(closeTo(h.percentile(0.5), 500, 500 / 16.0) && closeTo(h.percentile(0.99), 990, 990 / 16.0)
+                && h.percentile(1.0) == 1_000,
+                "Percentiles con error ≤ 1/16: p50 %d, p99 %d".formatted(h.percentile(0.5), h.percentile(0.99)));
+
+        PipelineMetrics metrics = new PipelineMetrics();
+        ExpressionCache cache = new ExpressionCache(16, 1_000, metrics);
+        cache.get("x*2 + sin(y)");
+        cache.get("x*2 + sin(y)");
+        for (String invalid : new String[]{"3@4", "3+*4", "(1"}) {
+            try {
+                cache.get(invalid);
+            } catch (RuntimeException e) {
+                // Se cuenta en las métricas
+            }
+        }
+        MetricsSnapshot snapshot = metrics.snapshot();
+        check(snapshot.cacheHits() == 1 && snapshot.cacheMisses() == 4, "Caché: 1 acierto, 4 fallos");
+        check(snapshot.latency(Phase.LEX).count() == 4 && snapshot.latency(Phase.PARSE).count() == 3
+                && snapshot.latency(Phase.BIND).count() == 1,
+                "Una latencia por fase ejecutada (lex 4, parse 3, bind 1)");
+        check(snapshot.errors(ErrorCategory.LEXICAL) == 1 && snapshot.errors(ErrorCategory.SYNTAX) == 2
+                && snapshot.totalErrors() == 3, "Errores por categoría: 1 léxico, 2 sintácticos");
+        check(snapshot.treeSizes().count() == 1 && snapshot.treeSizes().max() == 6, "Tamaño del árbol: 6 nodos");
+        check(ErrorCategory.of(Phase.EVALUATE, new ArithmeticException()) == ErrorCategory.ARITHMETIC
+                && ErrorCategory.of(Phase.EVALUATE, new RuntimeException()) == ErrorCategory.SEMANTIC,
+                "Errores de evaluación: aritméticos y semánticos");
+
+        String text = snapshot.export();
+        check(text.contains("trig_errors_total{category=\"syntax\"} 2")
+                && text.contains("trig_cache_requests_total{result=\"hit\"} 1")
+                && text.contains("trig_phase_latency_nanoseconds_count{phase=\"bind\"} 1"),
+                "Exportación en texto (formato Prometheus)");
+
+        AtomicInteger done = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        metrics.stop(Phase.EVALUATE, metrics.start());
+                    }
+                    done.incrementAndGet();
+                });
+            }
+        }
+        check(done.get() == 4 && metrics.snapshot().latency(Phase.EVALUATE).count() == 40_000,
+                "4 hilos registran 40000 latencias sin perder ninguna");
+
+        PipelineMetrics disabled = PipelineMetrics.DISABLED;
+        disabled.stop(Phase.LEX, disabled.start());
+        disabled.fail(Phase.PARSE, disabled.start(), new RuntimeException());
+        disabled.cacheHit();
+        MetricsSnapshot empty = disabled.snapshot();
+        check(disabled.start() == 0 && empty.latency(Phase.LEX).count() == 0 && empty.totalErrors() == 0
+                && empty.cacheHits() == 0, "Métricas desactivadas: no registran nada");
+    }
+
+    private static void testFlightRecorderEvents() {
+        String source = "sin(x)*cos(y) + x/2";
+        try {
+            Path file = Files.createTempFile("eventos", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("com.unimag.Parse");
+                recording.enable("com.unimag.Compile");
+                // Umbral cero: se registran también las evaluaciones rápidas
+                recording.enable("com.unimag.SlowEvaluation").withThreshold(Duration.ZERO);
+                recording.enable("com.unimag.BatchJob").withThreshold(Duration.ZERO);
+                recording.start();
+
+                Node ast = new Parser(new Lexer(source).tokenize()).parse();
+                new OperatorPrecedenceParser(new Lexer(source).tokenize(new TokenBuffer())).parse();
+                BoundExpression expression = BoundExpression.bind(ast);
+                ExpressionCompiler.compile(expression);
+                Linearizer.linearize(expression);
+                expression.newContext().set("x", 1.0).set("y", 2.0).evaluate();
+                new BatchEvaluator(expression).evaluate(new double[][]{new double[100], new double[100]}, new double[100]);
+                // 100 cuadrados anidados: 101 nodos distintos, pero 2^100 usos de x
+                NodeFactory factory = NodeFactory.hashConsing();
+                Node dag = factory.variable("x");
+                for (int i = 0; i < 100; i++) {
+                    dag = factory.binary('*', dag, dag);
+                }
+                SlowEvaluationEvent dagEvaluation = new SlowEvaluationEvent();
+                dagEvaluation.begin();
+                dagEvaluation.finish(dag);
+
+                recording.stop();
+                recording.dump(file);
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+                List<RecordedEvent> parses = eventsNamed(events, "com.unimag.Parse");
+                check(parses.size() == 2 && parses.stream().allMatch(e -> e.getInt("sourceLength") == source.length()
+                                && e.getLong("nodeCount") == 9 && e.getInt("tokenCount") == 14),
+                        "Un evento por análisis, con longitud, tokens y nodos (%d)".formatted(parses.size()));
+                List<RecordedEvent> compiles = eventsNamed(events, "com.unimag.Compile");
+                check(compiles.stream().anyMatch(e -> e.getString("backend").equals("bytecode") && e.getInt("codeSize") > 0)
+                                && compiles.stream().anyMatch(e -> e.getString("backend").equals("pila")),
+                        "Compilación a bytecode y a la máquina de pila");
+                List<RecordedEvent> slow = eventsNamed(events, "com.unimag.SlowEvaluation");
+                check(slow.size() == 2 && slow.stream().anyMatch(e -> e.getString("expression").equals(expression.getRoot().toString())),
+                        "Evaluación con umbral cero: " + slow.size() + " eventos");
+                String prefix = "(".repeat(100) + "x*x)*";
+                check(slow.stream().anyMatch(e -> e.getLong("nodeCount") == 101 && e.getString("expression").length() == 256
+                                && e.getString("expression").startsWith(prefix) && e.getString("expression").endsWith("...")),
+                        "Evento de un DAG: nodos distintos y texto recortado sin recorrer cada uso");
+                List<RecordedEvent> batches = eventsNamed(events, "com.unimag.BatchJob");
+                check(batches.size() == 1 && batches.get(0).getLong("rows") == 100
+                        && batches.get(0).getString("job").equals("lotes"), "Trabajo por lotes de 100 filas");
+            } finally {
+                Files.deleteIfExists(file);
+            }
+
+            String threshold = EventType.getEventType(SlowEvaluationEvent.class).getSettingDescriptors().stream()
+                    .filter(setting -> setting.getName().equals("threshold"))
+                    .map(SettingDescriptor::getDefaultValue).findFirst().orElse("?");
+            check(threshold.equals("1 ms"), "Umbral por omisión de las evaluaciones lentas: " + threshold);
+
+            // Con un umbral alto las evaluaciones cortas no se registran
+            file = Files.createTempFile("eventos", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("com.unimag.SlowEvaluation").withThreshold(Duration.ofSeconds(10));
+                recording.start();
+                BoundExpression expression = BoundExpression.bind(parse("x + 1"));
+                for (int i = 0; i < 1_000; i++) {
+                    expression.newContext().set("x", i).evaluate();
+                }
+                recording.stop();
+                recording.dump(file);
+                check(eventsNamed(RecordingFile.readAllEvents(file), "com.unimag.SlowEvaluation").isEmpty(),
+                        "Bajo el umbral, las evaluaciones no generan eventos");
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            check(false, "Eventos JFR: " + e.getMessage());
+        }
+    }
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+
+    private static double evaluateOrNaN(BoundExpression expression, double[] values) {
+        try {
+            return expression.evaluate(values);
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static void testProfiler() {
+        SourceSpans spans = new SourceSpans();
+        Node ast = new Parser(new Lexer("(x+1)*2 - sin( y )").tokenize(), NodeFactory.allocating(), spans).parse();
+        BinaryNode difference = (BinaryNode) ast;
+        BinaryNode product = (BinaryNode) difference.getLeft();
+        check(spans.get(ast).equals(new SourceSpan(0, 18)) && spans.get(product).equals(new SourceSpan(0, 7))
+                && spans.get(product.getLeft()).equals(new SourceSpan(1, 4))
+                && spans.get(difference.getRight()).text("(x+1)*2 - sin( y )").equals("sin( y )"),
+                "Tramos de la fuente: (x+1)*2 → [0, 7), x+1 → [1, 4), sin( y ) → [10, 18)");
+        check(spans.size() == 8,
+                "Un tramo por nodo, sin contar los paréntesis");
+
+        String source = "(x + 1) + sin(x)*cos(y)*exp(x)*log(y + 2)*atan(x*y)";
+        ExpressionProfiler profiler = ExpressionProfiler.of(source);
+        BoundExpression expected = BoundExpression.bind(parse(source));
+        double[] values = profiler.newValues();
+        int evaluations = 100_000;
+        boolean same = true;
+        for (int pass = 0; pass < 2; pass++) {
+            // La primera pasada calienta el JIT
+            profiler.reset();
+            for (int i = 0; i < evaluations; i++) {
+                values[profiler.slotOf("x")] = i * 1e-5;
+                values[profiler.slotOf("y")] = 1 - i * 1e-5;
+                same &= profiler.evaluate(values) == expected.evaluate(values);
+            }
+        }
+        check(same, "Mismo resultado que BoundExpression en " + evaluations + " evaluaciones");
+
+        ProfileReport report = profiler.report();
+        long samples = 0;
+        boolean counted = true;
+        for (NodeProfile node : report.nodes()) {
+            counted &= node.calls() == evaluations;
+            samples += node.samples() + node.discarded();
+        }
+        check(report.evaluations() == evaluations && report.nodes().size() == 13 && counted,
+                "13 subexpresiones, cada una evaluada " + evaluations + " veces");
+        check(samples == evaluations, "Un solo nodo medido por evaluación: " + samples + " mediciones");
+
+        NodeProfile cheap = null;
+        NodeProfile expensive = null;
+        for (NodeProfile node : report.nodes()) {
+            String text = node.text(source);
+            if (text.equals("x + 1")) {
+                cheap = node;
+            } else if (text.equals("sin(x)*cos(y)*exp(x)*log(y + 2)*atan(x*y)")) {
+                expensive = node;
+            }
+        }
+        check(cheap != null && expensive != null && expensive.totalNanos() > cheap.totalNanos(),
+                "Las cinco llamadas cuestan más que x + 1");
+        System.out.print(report.toString().indent(3));
+
+        ExpressionProfiler fromTree = ExpressionProfiler.of(parse("x^2 + y"));
+        fromTree.evaluate(fromTree.newValues());
+        ProfileReport treeReport = fromTree.report();
+        check(treeReport.nodes().stream().allMatch(n -> n.span() == null)
+                && treeReport.nodes().stream().anyMatch(n -> n.text(null).equals("((x^2.0)+y)")),
+                "Árbol sin fuente: forma canónica en lugar del texto");
+
+        profiler.reset();
+        check(profiler.report().evaluations() == 0
+                && profiler.report().nodes().stream().allMatch(n -> n.calls() == 0 && n.totalNanos() == 0),
+                "reset() pone los contadores en cero");
+    }
+
+    private static void testErrorChannel() {
+        ExpressionValidator validator = new ExpressionValidator();
+        Object[][] cases = {
+            {"3+*4", ErrorCode.UNEXPECTED_TOKEN, 2},
+            {"5..3", ErrorCode.MULTIPLE_DECIMAL_POINTS, 2},
+            {"3@4", ErrorCode.UNKNOWN_CHARACTER, 1},
+            {"", ErrorCode.EMPTY_EXPRESSION, 0},
+            {"(1 + 2", ErrorCode.UNCLOSED_PARENTHESIS, 6},
+            {"sin(x", ErrorCode.UNCLOSED_CALL, 5},
+            {"sin x", ErrorCode.MISSING_CALL_PARENTHESIS, 4},
+            {"atan2(1)", ErrorCode.WRONG_ARITY, 0},
+            {"1 2", ErrorCode.TRAILING_TOKENS, 2},
+        };
+        for (Object[] c : cases) {
+            String source = (String) c[0];
+            Diagnostic diagnostic = validator.check(source);
+            String thrown = null;
+            try {
+                parse(source);
+            } catch (RuntimeException e) {
+                thrown = e.getMessage();
+            }
+            check(diagnostic != null && diagnostic.code() == c[1] && diagnostic.position() == (int) c[2]
+                    && diagnostic.message().equals(thrown),
+                    "'%s' → %s en %d, mismo mensaje que el parser".formatted(source, c[1], c[2]));
+        }
+
+        ParseResult valid = validator.parse("x*2 + sin(y)");
+        check(valid.isValid() && valid.ast().toString().equals(parse("x*2 + sin(y)").toString())
+                && validator.check("x*2 + sin(y)") == null, "Expresión válida: AST sin error");
+
+        ExpressionValidator restricted = new ExpressionValidator(VariableSlots.of("x", "y"));
+        Diagnostic undefined = restricted.check("x + z*2");
+        Diagnostic prefix = restricted.check("y*x + xy");
+        check(restricted.check("y*x + x") == null && prefix != null && prefix.position() == 6,
+                "Variables comparadas por rango: xy no es x: " + prefix);
+        check(undefined != null && undefined.code() == ErrorCode.UNDEFINED_VARIABLE && undefined.position() == 4
+                && undefined.code().category() == ErrorCategory.SEMANTIC,
+                "Variable fuera de la tabla: " + undefined);
+
+        AtomicInteger formatted = new AtomicInteger();
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "w";
+            }
+        };
+        Diagnostic lazy = new Diagnostic(ErrorCode.UNDEFINED_VARIABLE, -1, argument);
+        boolean untouched = formatted.get() == 0;
+        check(untouched && lazy.message().equals(lazy.message()) && formatted.get() == 1,
+                "El mensaje se formatea una sola vez y solo cuando se pide");
+
+        try {
+            new Lexer("2 # 3").tokenize();
+            check(false, "Un carácter desconocido debería fallar");
+        } catch (ExpressionError e) {
+            check(e.code() == ErrorCode.UNKNOWN_CHARACTER && e.getStackTrace().length == 0
+                    && e.getMessage().equals("Error léxico en posición 2: carácter desconocido '#'"),
+                    "ExpressionError sin pila: " + e.getMessage());
+        }
+
+        try {
+            parse("(1 + 2");
+            check(false, "Un paréntesis sin cerrar debería fallar");
+        } catch (ExpressionError e) {
+            // El argumento es un Token, que no es serializable: viaja como texto
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(e);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                ExpressionError copy = (ExpressionError) in.readObject();
+                check(copy.code() == e.code() && copy.position() == e.position()
+                        && copy.getMessage().equals(e.getMessage()),
+                        "ExpressionError serializable: " + copy.code() + " en " + copy.position());
+            } catch (IOException | ClassNotFoundException ex) {
+                check(false, "ExpressionError serializable: " + ex);
+            }
+        }
+
+        BoundExpression ratio = BoundExpression.bind(parse("x / y"));
+        // 20 filas: pasan por los carriles vectoriales y por la cola escalar
+        double[][] columns = new double[2][20];
+        for (int i = 0; i < 20; i++) {
+            columns[0][i] = new double[]{1, -1, 0, 6}[i % 4];
+            columns[1][i] = new double[]{2, 0, 0, 3}[i % 4];
+        }
+        double[] out = new double[20];
+        for (BatchEvaluator evaluator : new BatchEvaluator[]{new BatchEvaluator(ratio), new BatchEvaluator(ratio).scalar()}) {
+            try {
+                evaluator.evaluate(columns, out);
+                check(false, "THROW debería fallar con un divisor cero");
+            } catch (ArithmeticException e) {
+                check(evaluator.arithmeticPolicy() == ArithmeticPolicy.THROW,
+                        "THROW (" + evaluator.kernelName() + "): " + e.getMessage());
+            }
+            evaluator.withArithmeticPolicy(ArithmeticPolicy.NAN).evaluate(columns, out);
+            boolean nan = true;
+            for (int i = 0; i < out.length; i += 4) {
+                nan &= out[i] == 0.5 && Double.isNaN(out[i + 1]) && Double.isNaN(out[i + 2]) && out[i + 3] == 2;
+            }
+            check(nan, "NAN (" + evaluator.kernelName() + "): " + Arrays.toString(Arrays.copyOf(out, 4)) + "...");
+            evaluator.withArithmeticPolicy(ArithmeticPolicy.INFINITY).evaluate(columns, out);
+            boolean infinity = true;
+            for (int i = 0; i < out.length; i += 4) {
+                infinity &= out[i] == 0.5 && out[i + 1] == Double.NEGATIVE_INFINITY && Double.isNaN(out[i + 2])
+                        && out[i + 3] == 2;
+            }
+            check(infinity, "INFINITY (" + evaluator.kernelName() + "): " + Arrays.toString(Arrays.copyOf(out, 4)) + "...");
+        }
+
+        // (x/y)^0 da 1 en todas las filas: el fallo solo se ve en la máscara
+        BatchEvaluator hidden = new BatchEvaluator(BoundExpression.bind(parse("(x/y)^0")))
+                .withArithmeticPolicy(ArithmeticPolicy.NAN);
+        for (BatchEvaluator evaluator : new BatchEvaluator[]{hidden, hidden.scalar()}) {
+            boolean[] faults = new boolean[20];
+            evaluator.evaluate(columns, out, faults, 0, 20);
+            boolean masked = true;
+            for (int i = 0; i < out.length; i++) {
+                masked &= out[i] == 1 && faults[i] == (columns[1][i] == 0);
+            }
+            check(masked, "Máscara de divisiones por cero (" + evaluator.kernelName() + "): aunque el resultado sea 1");
+        }
+
+        try {
+            Path input = Files.createTempFile("politica", ".csv");
+            Path output = Files.createTempFile("politica", ".csv");
+            try {
+                Files.writeString(input, "x,y\n4,2\n-1,1\n1,0\n9,3\n");
+                CsvSummary summary = new CsvPipeline(BoundExpression.bind(parse("sqrt(x)/y"))).run(input, output);
+                List<String> lines = Files.readAllLines(output);
+                check(lines.equals(List.of(CsvPipeline.RESULT_HEADER, "1.0", "NaN", "", "1.0"))
+                        && summary.errorCount() == 1 && summary.errors().get(0).line() == 4,
+                        "CSV: sqrt(-1) da NaN y solo la división por cero es error");
+                summary = new CsvPipeline(BoundExpression.bind(parse("(1/y)^0 + x"))).run(input, output);
+                check(Files.readAllLines(output).equals(List.of(CsvPipeline.RESULT_HEADER, "5.0", "0.0", "", "10.0"))
+                        && summary.errorCount() == 1 && summary.errors().get(0).line() == 4,
+                        "CSV: (1/0)^0 es error aunque el resultado no sea NaN");
+            } finally {
+                Files.deleteIfExists(input);
+                Files.deleteIfExists(output);
+            }
+        } catch (IOException e) {
+            check(false, "CSV con NaN: " + e.getMessage());
+        }
+    }
+
+    private static void testFusedTrig() {
+        FusedTrigExpression identity = BoundExpression.bind(parse("cos(x)^2 + sin(x)^2")).fusedTrig();
+        check(identity.groupCount() == 1 && identity.trigCallCount() == 2,
+                "cos(x)^2 + sin(x)^2: 2 llamadas, 1 reducción de rango");
+        check(Math.abs(identity.evaluate(new double[]{0.7}) - 1.0) < 1e-15, "Identidad con sincos fusionado");
+
+        FusedTrigExpression nested = BoundExpression.bind(parse("sin(x+1)*cos(x+1) + cos(sin(x+1))")).fusedTrig();
+        check(nested.groupCount() == 1 && nested.trigCallCount() == 4,
+                "Argumento compartido también dentro de otra llamada: " + nested.getRoot());
+
+        // a ← sin(a)*cos(a) + a, 40 veces sobre un DAG: 3^40 caminos hasta x
+        NodeFactory factory = NodeFactory.hashConsing();
+        Node level = factory.variable("x", 0);
+        for (int i = 0; i < 40; i++) {
+            Node product = factory.binary('*', factory.function(MathFunction.SIN, level), factory.function(MathFunction.COS, level));
+            level = factory.binary('+', product, level);
+        }
+        Node square = factory.binary('*', level, level);
+        FusedTrigExpression chain = BoundExpression.ofBound(square, VariableSlots.of("x")).fusedTrig();
+        double a = 0.3;
+        for (int i = 0; i < 40; i++) {
+            a = StrictMath.sin(a) * StrictMath.cos(a) + a;
+        }
+        BinaryNode rewritten = (BinaryNode) chain.getRoot();
+        check(chain.groupCount() == 40 && chain.trigCallCount() == Integer.MAX_VALUE
+                        && rewritten.getLeft() == rewritten.getRight() && chain.evaluate(new double[]{0.3}) == a * a,
+                "DAG de 40 niveles: recorridos lineales, un grupo por nivel y lo compartido se conserva");
+
+        // Con |x| ≤ 2^19·π/2 el resultado es el de fdlibm (StrictMath) bit a bit
+        double[] sinCos = new double[2];
+        double[] samples = {0.0, -0.0, 1e-300, 0.5, Math.PI / 2, -Math.PI, 3.0, 1e5, -823549.6, 1e22,
+                Double.NaN, Double.POSITIVE_INFINITY};
+        boolean exact = true;
+        for (double x : samples) {
+            SinCos.sinCos(x, sinCos, 0);
+            exact &= Double.compare(sinCos[0], StrictMath.sin(x)) == 0
+                    && Double.compare(sinCos[1], StrictMath.cos(x)) == 0;
+        }
+        check(exact, "SinCos coincide con StrictMath.sin/cos");
+    }
+
+    private static void testTrigPrecision() {
+        double[] samples = TrigPrecisionSuite.samples(20_000, 13);
+        for (TrigPrecision precision : TrigPrecision.values()) {
+            for (MathFunction function : TrigPrecisionSuite.trigFunctions()) {
+                double error = TrigPrecisionSuite.maxError(precision, function, samples);
+                String unit = TrigPrecisionSuite.unit(precision);
+                check(error <= TrigPrecisionSuite.bound(precision),
+                        String.format("%s %s: error máximo %.3g%s (cota %.3g%s)", precision, function.symbol(),
+                                error, unit, TrigPrecisionSuite.bound(precision), unit));
+            }
+        }
+
+        // La precisión elegida llega a todos los backends
+        BoundExpression fast = BoundExpression.bind(parse("sin(x)*cos(x) + tan(x/3)"))
+                .withPrecision(TrigPrecision.FAST_1E9);
+        double[] values = {1.234};
+        double tree = fast.evaluate(values);
+        check(tree == ExpressionCompiler.compile(fast).eval(values)
+                        && tree == Linearizer.linearize(fast).evaluate(values)
+                        && tree != BoundExpression.bind(parse("sin(x)*cos(x) + tan(x/3)")).evaluate(values),
+                "FAST_1E9 en árbol, compilador y máquina de pila: " + tree);
+    }
+
+    private static void testStableFunctionCodes() {
+        // Los programas ya escritos guardan abs/min/max como 13/14/15: signum,
+        // añadido después, no puede desplazarlos
+        BoundExpression bound = BoundExpression.bind(parse("abs(x) + min(x, 2) * max(x, 2) - signum(x)"));
+        Program program = Linearizer.linearize(bound);
+        StringBuilder codes = new StringBuilder();
+        for (int pc = 0; pc < program.length(); pc++) {
+            int opcode = Opcodes.opcode(program.instruction(pc));
+            if (opcode == Opcodes.CALL1 || opcode == Opcodes.CALL2) {
+                codes.append(Opcodes.operand(program.instruction(pc)) & Opcodes.FUNCTION_MASK).append(' ');
+            }
+        }
+        double[] values = {-3.0};
+        boolean same = false;
+        try {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            program.write(new DataOutputStream(serialized));
+            Program restored = Program.read(new DataInputStream(new ByteArrayInputStream(serialized.toByteArray())));
+            same = restored.evaluate(values) == bound.evaluate(values);
+        } catch (IOException e) {
+            System.out.printf("   ✗ %s%n", e.getMessage());
+        }
+        check(codes.toString().equals("13 14 15 16 ") && same,
+                "Códigos estables en el programa serializado (abs, min, max, signum): " + codes.toString().trim());
+    }
+
+    private static void testSharedSubexpressions() {
+        String source = "sin(x*y+z)^2 + cos(sin(x*y+z)) * sin(x*y+z) - (x*y+z)";
+        NodeFactory factory = NodeFactory.hashConsing();
+        Node dag = new OperatorPrecedenceParser(new Lexer(source).tokenize(), factory).parse();
+        Node tree = parse(source);
+        check(factory.size() == 12 && factory.requests() > factory.size(),
+                String.format("%d nodos pedidos, %d distintos", factory.requests(), factory.size()));
+        check(dag.toString().equals(tree.toString()), "El DAG representa la misma expresión: " + dag);
+
+        BoundExpression shared = BoundExpression.bind(tree).shared();
+        Program program = Linearizer.linearize(shared);
+        int sinCalls = 0;
+        for (int pc = 0; pc < program.length(); pc++) {
+            int instruction = program.instruction(pc);
+            if (Opcodes.opcode(instruction) == Opcodes.CALL1
+                    && Program.function(Opcodes.operand(instruction)) == MathFunction.SIN) {
+                sinCalls++;
+            }
+        }
+        check(program.tempCount() == 2 && sinCalls == 1,
+                String.format("sin(x*y+z) y x*y+z se calculan una vez (%d temporales, %d llamada a sin)",
+                        program.tempCount(), sinCalls));
+
+        double[] values = {0.3, -1.7, 2.5};
+        double expected = BoundExpression.bind(tree).evaluate(values);
+        double[][] columns = {{values[0]}, {values[1]}, {values[2]}};
+        double[] out = new double[1];
+        new BatchEvaluator(shared).scalar().evaluate(columns, out);
+        boolean same = false;
+        try {
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            program.write(new DataOutputStream(serialized));
+            Program restored = Program.read(new DataInputStream(new ByteArrayInputStream(serialized.toByteArray())));
+            same = restored.equals(program)
+                    && restored.evaluate(values) == expected
+                    && ExpressionCompiler.compile(shared).eval(values) == expected
+                    && shared.evaluate(values) == expected
+                    && out[0] == expected;
+        } catch (IOException e) {
+            System.out.printf("   ✗ %s%n", e.getMessage());
+        }
+        check(same, "Árbol, DAG, máquina de pila, compilador y lotes coinciden: " + expected);
+    }
+
+    private static void testIncrementalEvaluation() {
+        BoundExpression sweep = sweepExpression();
+        double fullSum = sweep(sweep.newContext());
+        double incrementalSum = sweep(sweep.newIncrementalContext());
+        check(Double.compare(fullSum, incrementalSum) == 0,
+                "Barrido a × b × c: mismo resultado que la evaluación completa: " + incrementalSum);
+
+        BoundExpression bound = BoundExpression.bind(parse("sin(a)*cos(b) + exp(a*b) + c^2"));
+        IncrementalContext context = bound.newIncrementalContext();
+        context.set("a", 0.5).set("b", 1.5).set("c", 2.0).evaluate();
+        check(context.lastRecomputed() == context.nodeCount(), "Primera evaluación completa: " + context.nodeCount() + " nodos");
+        double value = context.set("c", 3.0).evaluate();
+        check(context.lastRecomputed() == 3 && value == bound.evaluate(new double[]{0.5, 1.5, 3.0}),
+                "Cambia c: solo c, c^2 y la suma de la raíz (" + context.lastRecomputed() + " nodos)");
+        context.set("c", 3.0).evaluate();
+        check(context.lastRecomputed() == 0, "Mismo valor: nada que recalcular");
+        value = context.set("a", -1.0).set("b", 0.25).evaluate();
+        check(value == bound.evaluate(new double[]{-1.0, 0.25, 3.0}),
+                "Cambian a y b a la vez: " + context.lastRecomputed() + " nodos");
+
+        // Tras un error, las variables siguen pendientes y se recalculan después
+        IncrementalContext division = BoundExpression.bind(parse("1/(x-y) + sin(z)")).newIncrementalContext();
+        division.set("x", 2.0).set("y", 1.0).set("z", 0.5).evaluate();
+        try {
+            division.set("y", 2.0).evaluate();
+            check(false, "División por cero debería fallar");
+        } catch (ArithmeticException e) {
+            value = division.set("x", 4.0).evaluate();
+            check(value == 1.0 / 2.0 + Math.sin(0.5), "Recupera el estado tras " + e.getMessage());
+        }
+
+        // En un DAG cada subárbol compartido se guarda y recalcula una vez
+        BoundExpression repeated = BoundExpression.bind(parse("sin(x*y) + cos(sin(x*y)) * sin(x*y)"));
+        int treeNodes = repeated.newIncrementalContext().nodeCount();
+        int dagNodes = repeated.shared().newIncrementalContext().nodeCount();
+        check(dagNodes < treeNodes, String.format("DAG: %d nodos en lugar de %d", dagNodes, treeNodes));
+    }
+
+    private static void testDifferentiation() {
+        BoundExpression f = BoundExpression.bind(
+                parse("sin(x*y) + x^3/z - atan2(y, x) + sqrt(x^2+y^2)*exp(-z) + log(cosh(y)) + max(x, z)"));
+        double[] point = {0.7, -1.3, 2.1};
+        double[] forward = new double[3];
+        double[] reverse = new double[3];
+        double value = ForwardMode.gradient(f, point, forward);
+        ReverseGradient tape = ReverseGradient.of(f);
+        check(tape.evaluate(point, reverse) == value && value == f.evaluate(point),
+                "Ambos modos devuelven el valor de la expresión: " + value);
+
+        boolean agree = true;
+        boolean symbolic = true;
+        boolean finite = true;
+        for (int slot = 0; slot < 3; slot++) {
+            agree &= closeTo(forward[slot], reverse[slot], 1e-14);
+            BoundExpression derivative = SymbolicDerivative.derivative(f, f.getSlots().name(slot)).shared();
+            symbolic &= closeTo(ExpressionCompiler.compile(derivative).eval(point), reverse[slot], 1e-12)
+                    && closeTo(Linearizer.linearize(derivative).evaluate(point), reverse[slot], 1e-12);
+            finite &= closeTo(centralDifference(f, point, slot), reverse[slot], 1e-7);
+        }
+        check(agree, "Adelante y inverso coinciden: " + Arrays.toString(reverse));
+        check(symbolic, "Derivadas simbólicas compiladas y en máquina de pila coinciden");
+        check(finite, "Diferencias finitas centrales coinciden (1e-7)");
+
+        // Cada función del registro contra diferencias finitas
+        StringBuilder failed = new StringBuilder();
+        for (MathFunction function : MathFunction.values()) {
+            String source = function.symbol() + (function.arity() == 1 ? "(x)" : "(x, 0.8)");
+            BoundExpression g = BoundExpression.bind(parse(source));
+            double[] x = {0.3};
+            double[] gradient = new double[1];
+            ReverseGradient.of(g).evaluate(x, gradient);
+            double symbolicValue = SymbolicDerivative.derivative(g, "x").evaluate(x);
+            if (!closeTo(gradient[0], centralDifference(g, x, 0), 1e-7)
+                    || !closeTo(ForwardMode.derivative(g, x, 0).derivative(), gradient[0], 1e-14)
+                    || !closeTo(symbolicValue, gradient[0], 1e-14)) {
+                failed.append(' ').append(function.symbol());
+            }
+        }
+        check(failed.isEmpty(), "Derivada de cada función del registro" + (failed.isEmpty() ? "" : ":" + failed));
+
+        // En un DAG los subárboles repetidos ocupan una entrada de la cinta
+        BoundExpression repeated = BoundExpression.bind(parse("sin(x*y)^2 + cos(sin(x*y)) * sin(x*y)"));
+        double[] treeGradient = new double[2];
+        double[] dagGradient = new double[2];
+        ReverseGradient dagTape = ReverseGradient.of(repeated.shared());
+        ReverseGradient.of(repeated).evaluate(new double[]{0.4, 1.1}, treeGradient);
+        dagTape.evaluate(new double[]{0.4, 1.1}, dagGradient);
+        check(Arrays.equals(treeGradient, dagGradient) && dagTape.tapeLength() < ReverseGradient.of(repeated).tapeLength(),
+                String.format("Cinta del DAG: %d entradas en lugar de %d, mismo gradiente",
+                        dagTape.tapeLength(), ReverseGradient.of(repeated).tapeLength()));
+
+        try {
+            ReverseGradient.of(BoundExpression.bind(parse("1/(x-1)"))).evaluate(new double[]{1}, new double[1]);
+            check(false, "División por cero debería fallar en el modo inverso");
+        } catch (ArithmeticException e) {
+            check(true, "Modo inverso: " + e.getMessage());
+        }
+    }
+
+    private static void testGridTabulation() {
+        GridAxis[] axes = {
+            GridAxis.samples("a", 0, 2, 20), GridAxis.samples("b", -2, 2, 30), GridAxis.range("c", 0, 3.99, 0.01)
+        };
+        BoundExpression sweep = sweepExpression();
+        GridTabulator tabulator = new GridTabulator(sweep, axes);
+        double[] reference = new double[(int) tabulator.size()];
+        sequential(ExpressionCompiler.compile(sweep), axes, reference);
+        double[] parallel = tabulator.tabulate();
+        check(Arrays.equals(reference, parallel),
+                String.format("Grilla 3D de %d puntos: igual que el bucle secuencial", tabulator.size()));
+        GridBuffer direct = tabulator.newDirectBuffer();
+        tabulator.tabulate(direct);
+        check(direct.chunkCount() == 1 && direct.chunk(0).isDirect() && DoubleBuffer.wrap(parallel).equals(direct.chunk(0)),
+                "Buffer directo: mismos resultados");
+        // Trozos de 1024: los índices long cruzan los límites entre buffers
+        GridBuffer chunked = GridBuffer.allocateDirect(tabulator.size(), 1024);
+        tabulator.tabulate(chunked);
+        boolean sameChunked = true;
+        for (long i = 0; i < chunked.size(); i++) {
+            sameChunked &= chunked.get(i) == parallel[(int) i];
+        }
+        check(chunked.chunkCount() == Math.ceilDiv(tabulator.size(), 1024) && sameChunked,
+                String.format("Buffer en %d trozos indexado con long: mismos resultados", chunked.chunkCount()));
+
+        // 2D con una variable fija, en un pool propio
+        BoundExpression surface = BoundExpression.bind(parse("sin(x)*cos(y) + z"));
+        double[] fixed = surface.newValues();
+        fixed[surface.slotOf("z")] = 10;
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            GridTabulator plane = new GridTabulator(surface, pool, fixed,
+                    GridAxis.samples("y", -1, 1, 301), GridAxis.range("x", 0, 3, 0.01));
+            double[] values = plane.tabulate();
+            boolean same = values.length == 301 * 301;
+            for (int point = 0; point < values.length; point += 997) {
+                double x = plane.coordinate(1, point);
+                double y = plane.coordinate(0, point);
+                same &= values[point] == surface.evaluate(Map.of("x", x, "y", y, "z", 10.0));
+            }
+            check(same, "Grilla 2D y × x con z fija: " + values.length + " puntos, el último eje varía más rápido");
+        } finally {
+            pool.shutdown();
+        }
+
+        GridAxis line = GridAxis.range("x", 0, 1, 0.1);
+        check(line.count() == 11 && line.value(10) == 1.0, "Eje 0..1 con paso 0.1: 11 puntos, incluye el 1");
+        double[] curve = new GridTabulator(BoundExpression.bind(parse("x^2")), line).tabulate();
+        check(curve.length == 11 && curve[5] == 0.25, "Grilla 1D: x^2 en 0.5 = " + curve[5]);
+
+        // 12000 términos: en un solo método el bytecode pasaría de 64 KB y
+        // el JIT no compilaría eval; se parte en auxiliares de menos de
+        // HUGE_METHOD_LIMIT bytes. Agrupados de a 100 para no anidar 12000 niveles
+        BoundExpression oversized = BoundExpression.bind(parse(sumOfTerms(120, "x*%d")));
+        double[] sums = new GridTabulator(oversized, GridAxis.samples("x", 0, 1, 3)).tabulate();
+        int[] lengths = ExpressionCompiler.methodLengths(oversized.getRoot());
+        CompiledExpression split = ExpressionCompiler.compile(oversized);
+        check(sums.length == 3 && sums[2] == oversized.evaluate(new double[]{1.0})
+                        && split.eval(new double[]{0.5}) == oversized.evaluate(new double[]{0.5}),
+                "Expresión de más de 64 KB de bytecode: grilla y compilador coinciden con el árbol: " + sums[2]);
+        check(lengths.length > 1 && Arrays.stream(lengths).allMatch(length -> length <= ExpressionCompiler.HUGE_METHOD_LIMIT)
+                        && split.getClass().getName().startsWith("com.unimag.compile.GeneratedExpression"),
+                String.format("Partida en %d métodos de hasta %d bytes, todos compilables por el JIT",
+                        lengths.length, Arrays.stream(lengths).max().orElse(0)));
+
+        // DAG partido: x*y y sin(x*y) se calculan en un método y se leen en los
+        // demás a través del arreglo de temporales
+        BoundExpression sharedSum = BoundExpression.bind(parse(sumOfTerms(30, "sin(x*y)*cos(x*y + %d)"))).shared();
+        double[] point = {0.3, -1.7};
+        check(ExpressionCompiler.methodLengths(sharedSum.getRoot()).length > 1
+                        && ExpressionCompiler.compile(sharedSum).eval(point) == sharedSum.evaluate(point),
+                "DAG partido en varios métodos: mismo valor que el árbol");
+
+        // 40000 constantes distintas llenan el pool de constantes de la clase:
+        // queda la máquina de pila
+        BoundExpression constants = BoundExpression.bind(parse(sumOfTerms(400, "x*%d.5")));
+        check(ExpressionCompiler.methodLengths(constants.getRoot()).length == 0
+                        && ExpressionCompiler.compile(constants).eval(new double[]{0.5}) == constants.evaluate(new double[]{0.5}),
+                "Sin lugar en el pool de constantes: la máquina de pila da el mismo valor");
+
+        try {
+            new GridTabulator(surface, GridAxis.samples("x", 0, 1, 10));
+            check(false, "Una variable sin eje debería fallar");
+        } catch (IllegalArgumentException e) {
+            check(true, e.getMessage());
+        }
+        try {
+            new GridTabulator(BoundExpression.bind(parse("1/x")), GridAxis.range("x", -1, 1, 0.5)).tabulate();
+            check(false, "División por cero debería fallar en la grilla");
+        } catch (ArithmeticException e) {
+            check(true, "Grilla: " + e.getMessage());
+        }
+    }
+
+    private static double centralDifference(BoundExpression f, double[] point, int slot) {
+        double h = 1e-6 * Math.max(1.0, Math.abs(point[slot]));
+        double[] shifted = point.clone();
+        shifted[slot] = point[slot] + h;
+        double plus = f.evaluate(shifted);
+        shifted[slot] = point[slot] - h;
+        return (plus - f.evaluate(shifted)) / (2 * h);
+    }
+
+    private static boolean closeTo(double actual, double expected, double tolerance) {
+        return Math.abs(actual - expected) <= tolerance * Math.max(1.0, Math.abs(expected));
+    }
+
+    private static Node parse(String expression) {
+        return new Parser(new Lexer(expression).tokenize()).parse();
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.printf("   ✓ %s%n", description);
+            testsPassed++;
+        } else {
+            System.out.printf("   ✗ %s%n", description);
+            testsFailed++;
+        }
+    }
+
+    // Suma de groups grupos de 100 términos; term lleva %d, el número del término
+    private static String sumOfTerms(int groups, String term) {
+        StringBuilder sum = new StringBuilder("0");
+        for (int group = 0; group < groups; group++) {
+            sum.append(" + (0");
+            for (int k = 1; k <= 100; k++) {
+                sum.append(" + ").append(term.formatted(group * 100 + k));
+            }
+            sum.append(')');
+        }
+        return sum.toString();
+    }
+
+    private static BoundExpression sweepExpression() {
+        return BoundExpression.bind(parse(SWEEP_EXPRESSION), VariableSlots.of("a", "b", "c"));
+    }
+
+    // Barrido a × b × c de 20 × 20 × 100 puntos; devuelve la suma de los resultados
+    private static double sweep(EvaluationContext context) {
+        double sum = 0;
+        for (int i = 0; i < 20; i++) {
+            context.set(0, i * 0.1);
+            for (int j = 0; j < 20; j++) {
+                context.set(1, j * 0.2 - 2);
+                for (int k = 0; k < 100; k++) {
+                    context.set(2, k * 0.04);
+                    sum += context.evaluate();
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static double sweep(IncrementalContext context) {
+        double sum = 0;
+        for (int i = 0; i < 20; i++) {
+            context.set(0, i * 0.1);
+            for (int j = 0; j < 20; j++) {
+                context.set(1, j * 0.2 - 2);
+                for (int k = 0; k < 100; k++) {
+                    context.set(2, k * 0.04);
+                    sum += context.evaluate();
+                }
+            }
+        }
+        return sum;
+    }
+
+    // Tabulación secuencial de referencia, en el mismo orden que GridTabulator
+    private static void sequential(CompiledExpression compiled, GridAxis[] axes, double[] out) {
+        double[] values = new double[3];
+        int point = 0;
+        for (int i = 0; i < axes[0].count(); i++) {
+            values[0] = axes[0].value(i);
+            for (int j = 0; j < axes[1].count(); j++) {
+                values[1] = axes[1].value(j);
+                for (int k = 0; k < axes[2].count(); k++) {
+                    values[2] = axes[2].value(k);
+                    out[point++] = compiled.eval(values);
+                }
+            }
+        }
+    }
+
+    // size expresiones aleatorias (deterministas según seed), optimizadas
+    private static List<CatalogEntry> randomCatalogue(int size, long seed) {
+        Random random = new Random(seed);
+        List<CatalogEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(CatalogEntry.optimizing(BoundExpression.bind(parse(randomExpression(random, 6)))));
+        }
+        return entries;
+    }
+
+    private static String randomExpression(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return switch (random.nextInt(3)) {
+                case 0 -> RANDOM_VARIABLES[random.nextInt(RANDOM_VARIABLES.length)];
+                case 1 -> Integer.toString(random.nextInt(10));
+                default -> Double.toString(random.nextInt(1000) / 100.0);
+            };
+        }
+        return switch (random.nextInt(6)) {
+            case 0 -> "-" + randomExpression(random, depth - 1);
+            case 1 -> RANDOM_UNARY[random.nextInt(RANDOM_UNARY.length)] + "(" + randomExpression(random, depth - 1) + ")";
+            case 2 -> RANDOM_BINARY[random.nextInt(RANDOM_BINARY.length)] + "(" + randomExpression(random, depth - 1)
+                    + ", " + randomExpression(random, depth - 1) + ")";
+            default -> "(" + randomExpression(random, depth - 1) + "+-*/^".charAt(random.nextInt(5))
+                    + randomExpression(random, depth - 1) + ")";
+        };
+    }
+
     private static void testExpressionError(String expression, String description) {
         System.out.printf("  Expresión: %s%n", expression);
 
@@ -264,10 +1808,29 @@ public class Main {
 
             System.out.printf("   ✗ Se esperaba error pero se obtuvo: %.10f%n%n", result);
         } catch (Exception e) {
+            String alternative = precedenceParserError(expression);
+            if (alternative != null && !alternative.equals(e.getMessage())) {
+                System.out.printf("   ✗ Parser de precedencia reporta otro error: %s%n%n", alternative);
+                testsFailed++;
+                return;
+            }
             System.out.printf("   ✓ Error capturado correctamente: %s%n%n", e.getMessage());
         }
     }
 
+    /**
+     * Mensaje de error del parser de precedencia, o null si la expresión no
+     * falla al analizarse (por ejemplo, si el error es de evaluación).
+     */
+    private static String precedenceParserError(String expression) {
+        try {
+            new OperatorPrecedenceParser(new Lexer(expression).tokenize()).parse();
+            return null;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
     private static void testDivisionByZero(String expression, String description) {
         System.out.printf("  Expresión: %s%n", expression);
 
@@ -0,0 +1,109 @@
+package com.unimag.main;
+
+import com.unimag.functions.FastTrig;
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+
+import java.util.Random;
+
+/**
+ * Suite de exactitud de los modos de TrigPrecision.
+ *
+ * La exactitud se mide contra StrictMath sobre muestras deterministas: un
+ * periodo, todo el rango reducido por FastTrig, vecindades de k·π/2 (donde
+ * la reducción cancela más bits), los doubles a 1..4 ulps de k·π/2 (polos
+ * de tan, k hasta el límite de FastTrig), valores diminutos y argumentos
+ * fuera de rango. STRICT y FAST_1ULP se miden en ulps; FAST_1E9 en error absoluto
+ * (relativo cuando |f(x)| > 1, para tan cerca de los polos).
+ */
+final class TrigPrecisionSuite {
+    private static final MathFunction[] TRIG = {MathFunction.SIN, MathFunction.COS, MathFunction.TAN};
+    // Mayor k con k·π/2 dentro de FastTrig.MAX_ARGUMENT
+    private static final int MAX_POLE = (int) (FastTrig.MAX_ARGUMENT / (Math.PI / 2));
+    // Casi polos que la reducción en dos partes no resolvía
+    private static final double[] KNOWN_POLES = {45.553093477052, 11081.968085537996, 321307.9594422229};
+    private static final int ULPS_AROUND_POLE = 4;
+
+    private TrigPrecisionSuite() {
+    }
+
+    /**
+     * Cota documentada del modo, en la unidad de maxError().
+     */
+    static double bound(TrigPrecision precision) {
+        return switch (precision) {
+            case STRICT -> 0.0;
+            // ≤ 1 ulp del valor exacto cada uno: entre sí, a lo sumo 2 ulps
+            case FAST_1ULP -> 2.0;
+            case FAST_1E9 -> 1e-9;
+        };
+    }
+
+    static double[] samples(int perGroup, long seed) {
+        Random random = new Random(seed);
+        int perPole = 2 * ULPS_AROUND_POLE + 1;
+        int poles = perGroup / perPole + 1;
+        double[] samples = new double[perGroup * 5 + (poles + KNOWN_POLES.length) * perPole];
+        int n = 0;
+        for (int i = 0; i < perGroup; i++) {
+            samples[n++] = (random.nextDouble() * 2 - 1) * 2 * Math.PI;
+            samples[n++] = (random.nextDouble() * 2 - 1) * 0x1p19;
+            samples[n++] = random.nextInt(200_000) * (Math.PI / 2) + (random.nextDouble() - 0.5) * 1e-6;
+            samples[n++] = (random.nextDouble() * 2 - 1) * 1e-8;
+            samples[n++] = (random.nextDouble() * 2 - 1) * 1e12;
+        }
+        for (int i = 0; i < poles; i++) {
+            // La mitad con k pequeño, la otra cerca del límite
+            int k = i % 2 == 0 ? 1 + random.nextInt(1_000) : MAX_POLE - random.nextInt(1_000);
+            n = aroundPole((random.nextBoolean() ? 1 : -1) * k * (Math.PI / 2), samples, n);
+        }
+        for (double pole : KNOWN_POLES) {
+            n = aroundPole(pole, samples, n);
+        }
+        return samples;
+    }
+
+    // El double dado y los ULPS_AROUND_POLE vecinos de cada lado
+    private static int aroundPole(double center, double[] samples, int n) {
+        samples[n++] = center;
+        double up = center;
+        double down = center;
+        for (int ulps = 1; ulps <= ULPS_AROUND_POLE; ulps++) {
+            up = Math.nextUp(up);
+            down = Math.nextDown(down);
+            samples[n++] = up;
+            samples[n++] = down;
+        }
+        return n;
+    }
+
+    /**
+     * Mayor error observado de la función en el modo dado.
+     */
+    static double maxError(TrigPrecision precision, MathFunction function, double[] samples) {
+        double max = 0;
+        for (double x : samples) {
+            double expected = TrigPrecision.STRICT.apply(function, x);
+            double actual = precision.apply(function, x);
+            if (Double.isNaN(expected) || Double.isNaN(actual)) {
+                if (Double.isNaN(expected) != Double.isNaN(actual)) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                continue;
+            }
+            double error = precision == TrigPrecision.FAST_1E9
+                    ? Math.abs(actual - expected) / Math.max(1.0, Math.abs(expected))
+                    : Math.abs(actual - expected) / Math.ulp(expected);
+            max = Math.max(max, error);
+        }
+        return max;
+    }
+
+    static String unit(TrigPrecision precision) {
+        return precision == TrigPrecision.FAST_1E9 ? "" : " ulps";
+    }
+
+    static MathFunction[] trigFunctions() {
+        return TRIG.clone();
+    }
+}
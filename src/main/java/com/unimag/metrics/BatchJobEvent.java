@@ -0,0 +1,49 @@
+package com.unimag.metrics;
+
+import com.unimag.parser.astNodes.Node;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de Flight Recorder para un trabajo sobre muchas filas que tardó
+ * más que el umbral (10 ms por omisión, configurable como el de
+ * SlowEvaluationEvent): lotes, grillas, CSV y archivos columnares.
+ */
+@Name("com.unimag.BatchJob")
+@Label("Trabajo por lotes")
+@Description("Evaluación de una expresión sobre muchas filas que superó el umbral configurado")
+@Category({"Expresiones trigonométricas", "Evaluación"})
+@Threshold("10 ms")
+public final class BatchJobEvent extends jdk.jfr.Event {
+    @Label("Tipo de trabajo")
+    String job;
+
+    @Label("Expresión")
+    String expression;
+
+    @Label("Nodos")
+    long nodeCount;
+
+    @Label("Filas")
+    long rows;
+
+    /**
+     * root puede ser null (un BatchEvaluator creado desde un Program): el
+     * evento va sin expresión.
+     */
+    public void finish(String job, Node root, long rows) {
+        end();
+        if (shouldCommit()) {
+            this.job = job;
+            if (root != null) {
+                this.expression = SlowEvaluationEvent.describe(root);
+                this.nodeCount = PipelineMetrics.countNodes(root);
+            }
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.unimag.metrics;
+
+import com.unimag.parser.astNodes.Node;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Flight Recorder por cada compilación de una expresión: a
+ * bytecode (ExpressionCompiler) o a programa de pila (Linearizer).
+ */
+@Name("com.unimag.Compile")
+@Label("Compilación de expresión")
+@Description("Traducción de un AST a bytecode o a programa de la máquina de pila")
+@Category({"Expresiones trigonométricas", "Compilación"})
+@StackTrace(false)
+public final class CompileEvent extends jdk.jfr.Event {
+    @Label("Backend")
+    String backend;
+
+    @Label("Nodos")
+    long nodeCount;
+
+    @Label("Tamaño del código")
+    @Description("Bytes de la clase generada o instrucciones del programa")
+    int codeSize;
+
+    public void finish(String backend, Node ast, int codeSize) {
+        end();
+        if (shouldCommit()) {
+            this.backend = backend;
+            this.nodeCount = PipelineMetrics.countNodes(ast);
+            this.codeSize = codeSize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.unimag.metrics;
+
+/**
+ * Categoría de un error, según la fase en que ocurrió: el lexer solo lanza
+ * errores léxicos y el parser solo sintácticos; al ligar o evaluar, una
+ * ArithmeticException es aritmética y cualquier otra, semántica (por
+ * ejemplo, una variable sin valor).
+ */
+public enum ErrorCategory {
+    LEXICAL("lexical"),
+    SYNTAX("syntax"),
+    SEMANTIC("semantic"),
+    ARITHMETIC("arithmetic");
+
+    private final String label;
+
+    ErrorCategory(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static ErrorCategory of(Phase phase, Throwable error) {
+        if (error instanceof ArithmeticException) {
+            return ARITHMETIC;
+        }
+        return switch (phase) {
+            case LEX -> LEXICAL;
+            case PARSE -> SYNTAX;
+            case BIND, EVALUATE -> SEMANTIC;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.unimag.metrics;
+
+/**
+ * Instantánea de un LatencyHistogram. Como las cubetas se leen sin
+ * detener a los que registran, la suma de las cubetas puede diferir
+ * levemente de count si se tomó mientras otros hilos registraban.
+ */
+public record HistogramSnapshot(long[] counts, long count, long sum, long max) {
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[0], 0, 0, 0);
+
+    public double mean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Valor bajo el cual queda la fracción p de las muestras (p entre 0 y
+     * 1), redondeado hacia arriba al límite de su cubeta y nunca mayor que
+     * el máximo observado; 0 si no hay muestras.
+     */
+    public long percentile(double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Percentil fuera de [0, 1]: " + p);
+        }
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+}
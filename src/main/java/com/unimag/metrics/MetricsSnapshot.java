@@ -0,0 +1,91 @@
+package com.unimag.metrics;
+
+import java.util.Map;
+
+/**
+ * Instantánea de PipelineMetrics. toString() la resume para una persona;
+ * export() la escribe en el formato de texto de Prometheus, una muestra
+ * por línea, para que la recoja un sistema de monitoreo.
+ */
+public record MetricsSnapshot(Map<Phase, HistogramSnapshot> latencies,
+                              Map<ErrorCategory, Long> errors,
+                              long cacheHits, long cacheMisses,
+                              HistogramSnapshot treeSizes) {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public MetricsSnapshot {
+        latencies = Map.copyOf(latencies);
+        errors = Map.copyOf(errors);
+    }
+
+    /**
+     * Latencias de la fase, en nanosegundos.
+     */
+    public HistogramSnapshot latency(Phase phase) {
+        return latencies.getOrDefault(phase, HistogramSnapshot.EMPTY);
+    }
+
+    public long errors(ErrorCategory category) {
+        return errors.getOrDefault(category, 0L);
+    }
+
+    public long totalErrors() {
+        long total = 0;
+        for (long count : errors.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public String export() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE trig_phase_latency_nanoseconds summary\n");
+        for (Phase phase : Phase.values()) {
+            HistogramSnapshot h = latency(phase);
+            String labels = "phase=\"" + phase.label() + "\"";
+            for (double q : QUANTILES) {
+                sb.append("trig_phase_latency_nanoseconds{").append(labels)
+                  .append(",quantile=\"").append(q).append("\"} ").append(h.percentile(q)).append('\n');
+            }
+            sb.append("trig_phase_latency_nanoseconds_sum{").append(labels).append("} ").append(h.sum()).append('\n');
+            sb.append("trig_phase_latency_nanoseconds_count{").append(labels).append("} ").append(h.count()).append('\n');
+        }
+        sb.append("# TYPE trig_errors_total counter\n");
+        for (ErrorCategory category : ErrorCategory.values()) {
+            sb.append("trig_errors_total{category=\"").append(category.label()).append("\"} ")
+              .append(errors(category)).append('\n');
+        }
+        sb.append("# TYPE trig_cache_requests_total counter\n");
+        sb.append("trig_cache_requests_total{result=\"hit\"} ").append(cacheHits).append('\n');
+        sb.append("trig_cache_requests_total{result=\"miss\"} ").append(cacheMisses).append('\n');
+        sb.append("# TYPE trig_tree_nodes summary\n");
+        for (double q : QUANTILES) {
+            sb.append("trig_tree_nodes{quantile=\"").append(q).append("\"} ")
+              .append(treeSizes.percentile(q)).append('\n');
+        }
+        sb.append("trig_tree_nodes_sum ").append(treeSizes.sum()).append('\n');
+        sb.append("trig_tree_nodes_count ").append(treeSizes.count()).append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Métricas:\n");
+        for (Phase phase : Phase.values()) {
+            HistogramSnapshot h = latency(phase);
+            sb.append("  %-9s %8d veces, media %s, p50 %s, p99 %s, máx %s%n".formatted(phase.label(), h.count(),
+                    micros(h.mean()), micros(h.percentile(0.5)), micros(h.percentile(0.99)), micros(h.max())));
+        }
+        sb.append("  errores: %d léxicos, %d sintácticos, %d semánticos, %d aritméticos%n".formatted(
+                errors(ErrorCategory.LEXICAL), errors(ErrorCategory.SYNTAX),
+                errors(ErrorCategory.SEMANTIC), errors(ErrorCategory.ARITHMETIC)));
+        sb.append("  caché: %d aciertos, %d fallos%n".formatted(cacheHits, cacheMisses));
+        sb.append("  árboles: %d, media %.1f nodos, máx %d".formatted(treeSizes.count(), treeSizes.mean(), treeSizes.max()));
+        return sb.toString();
+    }
+
+    private static String micros(double nanos) {
+        return "%.1f µs".formatted(nanos / 1e3);
+    }
+}
@@ -0,0 +1,49 @@
+package com.unimag.metrics;
+
+import com.unimag.parser.astNodes.Node;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de Flight Recorder por cada análisis sintáctico exitoso (Parser y
+ * OperatorPrecedenceParser). Con JFR apagado, begin() y commit() no hacen
+ * nada y el JIT elimina el objeto.
+ */
+@Name("com.unimag.Parse")
+@Label("Análisis de expresión")
+@Description("Análisis sintáctico de una expresión: tamaño de la fuente y del árbol")
+@Category({"Expresiones trigonométricas", "Análisis"})
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+    @Label("Parser")
+    String parser;
+
+    @Label("Longitud de la fuente")
+    @DataAmount(DataAmount.BYTES)
+    int sourceLength;
+
+    @Label("Tokens")
+    int tokenCount;
+
+    @Label("Nodos")
+    long nodeCount;
+
+    /**
+     * Completa y registra el evento si JFR lo pide; begin() ya se llamó
+     * antes de analizar.
+     */
+    public void finish(String parser, int sourceLength, int tokenCount, Node ast) {
+        end();
+        if (shouldCommit()) {
+            this.parser = parser;
+            this.sourceLength = sourceLength;
+            this.tokenCount = tokenCount;
+            this.nodeCount = PipelineMetrics.countNodes(ast);
+            commit();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.unimag.metrics;
+
+/**
+ * Fases del procesamiento de una expresión, en el orden en que ocurren.
+ */
+public enum Phase {
+    LEX("lex"),
+    PARSE("parse"),
+    BIND("bind"),
+    EVALUATE("evaluate");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Nombre corto para la exportación en texto.
+     */
+    public String label() {
+        return label;
+    }
+}
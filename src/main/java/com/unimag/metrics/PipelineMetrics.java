@@ -0,0 +1,159 @@
+package com.unimag.metrics;
+
+import com.unimag.parser.astNodes.*;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del procesamiento de expresiones: latencia de cada fase (ver
+ * Phase), errores por categoría, aciertos y fallos de caché y tamaño de
+ * los árboles analizados.
+ *
+ * Uso típico alrededor de una fase:
+ *
+ *   long start = metrics.start();
+ *   List<Token> tokens = new Lexer(source).tokenize();
+ *   metrics.stop(Phase.LEX, start);
+ *
+ * Los contadores son LongAdder y los histogramas LatencyHistogram, así que
+ * se puede registrar desde muchos hilos sin candados. DISABLED no registra
+ * nada: cada método vuelve enseguida y start() ni siquiera lee el reloj,
+ * de modo que el código instrumentado cuesta casi lo mismo que sin
+ * instrumentar cuando las métricas están apagadas.
+ */
+public final class PipelineMetrics {
+    public static final PipelineMetrics DISABLED = new PipelineMetrics(false);
+
+    private final boolean enabled;
+    private final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+    private final Map<ErrorCategory, LongAdder> errors = new EnumMap<>(ErrorCategory.class);
+    private final LatencyHistogram treeSizes;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    public PipelineMetrics() {
+        this(true);
+    }
+
+    private PipelineMetrics(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            for (Phase phase : Phase.values()) {
+                latencies.put(phase, new LatencyHistogram());
+            }
+            for (ErrorCategory category : ErrorCategory.values()) {
+                errors.put(category, new LongAdder());
+            }
+            treeSizes = new LatencyHistogram();
+        } else {
+            treeSizes = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Instante de inicio de una fase, para pasarlo a stop o fail.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registra la duración de una fase que terminó bien.
+     */
+    public void stop(Phase phase, long start) {
+        if (enabled) {
+            latencies.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Registra la duración de una fase que terminó con error, y el error
+     * según su categoría (ver ErrorCategory).
+     */
+    public void fail(Phase phase, long start, Throwable error) {
+        if (enabled) {
+            latencies.get(phase).record(System.nanoTime() - start);
+            errors.get(ErrorCategory.of(phase, error)).increment();
+        }
+    }
+
+    public void cacheHit() {
+        if (enabled) {
+            cacheHits.increment();
+        }
+    }
+
+    public void cacheMiss() {
+        if (enabled) {
+            cacheMisses.increment();
+        }
+    }
+
+    /**
+     * Registra el número de nodos del árbol (un nodo compartido de un DAG
+     * cuenta una sola vez).
+     */
+    public void recordTree(Node root) {
+        if (enabled) {
+            treeSizes.record(countNodes(root));
+        }
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<Phase, HistogramSnapshot> phases = new EnumMap<>(Phase.class);
+        Map<ErrorCategory, Long> errorCounts = new EnumMap<>(ErrorCategory.class);
+        if (!enabled) {
+            return new MetricsSnapshot(phases, errorCounts, 0, 0, HistogramSnapshot.EMPTY);
+        }
+        latencies.forEach((phase, histogram) -> phases.put(phase, histogram.snapshot()));
+        errors.forEach((category, count) -> errorCounts.put(category, count.sum()));
+        return new MetricsSnapshot(phases, errorCounts, cacheHits.sum(), cacheMisses.sum(), treeSizes.snapshot());
+    }
+
+    public void reset() {
+        if (enabled) {
+            latencies.values().forEach(LatencyHistogram::reset);
+            errors.values().forEach(LongAdder::reset);
+            treeSizes.reset();
+            cacheHits.reset();
+            cacheMisses.reset();
+        }
+    }
+
+    // Iterativo: un árbol degenerado de muchos niveles no agota la pila. Los
+    // nodos se cuentan por identidad; contar cada uso de un nodo compartido
+    // es exponencial en un DAG
+    static long countNodes(Node root) {
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            if (!seen.add(node)) {
+                continue;
+            }
+            if (node instanceof UnaryNode u) {
+                pending.push(u.getExpression());
+            } else if (node instanceof BinaryNode b) {
+                pending.push(b.getLeft());
+                pending.push(b.getRight());
+            } else if (node instanceof FunctionNode f) {
+                for (int i = 0; i < f.getArgumentCount(); i++) {
+                    pending.push(f.getArgument(i));
+                }
+            }
+        }
+        return seen.size();
+    }
+}
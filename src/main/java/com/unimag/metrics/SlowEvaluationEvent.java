@@ -0,0 +1,96 @@
+package com.unimag.metrics;
+
+import com.unimag.parser.astNodes.BinaryNode;
+import com.unimag.parser.astNodes.FunctionNode;
+import com.unimag.parser.astNodes.Node;
+import com.unimag.parser.astNodes.UnaryNode;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Evento de Flight Recorder para una evaluación que tardó más que el
+ * umbral (1 ms por omisión). El umbral se cambia como cualquier otro de
+ * JFR, por ejemplo:
+ *
+ *   -XX:StartFlightRecording:com.unimag.SlowEvaluation#threshold=100us
+ *
+ * Lo emiten EvaluationContext e IncrementalContext (y con ellos
+ * Evaluator); BoundExpression.evaluate(double[]) no, para no tocar el
+ * camino más corto.
+ */
+@Name("com.unimag.SlowEvaluation")
+@Label("Evaluación lenta")
+@Description("Evaluación de una expresión que superó el umbral configurado")
+@Category({"Expresiones trigonométricas", "Evaluación"})
+@Threshold("1 ms")
+public final class SlowEvaluationEvent extends jdk.jfr.Event {
+    // Las expresiones más largas se recortan en el evento
+    static final int MAX_EXPRESSION_LENGTH = 256;
+
+    @Label("Expresión")
+    String expression;
+
+    @Label("Nodos")
+    long nodeCount;
+
+    public void finish(Node root) {
+        end();
+        if (shouldCommit()) {
+            this.expression = describe(root);
+            this.nodeCount = PipelineMetrics.countNodes(root);
+            commit();
+        }
+    }
+
+    /**
+     * El mismo texto que root.toString(), recortado a MAX_EXPRESSION_LENGTH.
+     * Se escribe de forma iterativa y se detiene al pasar el máximo: el
+     * texto completo de un DAG crece con cada uso de un nodo compartido y
+     * puede ser exponencial en el número de nodos.
+     */
+    static String describe(Node root) {
+        StringBuilder text = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();   // nodos y texto fijo
+        pending.push(root);
+        while (!pending.isEmpty() && text.length() <= MAX_EXPRESSION_LENGTH) {
+            Object item = pending.pop();
+            if (item instanceof BinaryNode b) {
+                text.append('(');
+                pending.push(")");
+                pending.push(b.getRight());
+                pending.push(String.valueOf(b.getOperator()));
+                pending.push(b.getLeft());
+            } else if (item instanceof UnaryNode u) {
+                text.append('(').append(u.getOperator());
+                pending.push(")");
+                pending.push(u.getExpression());
+            } else if (item instanceof FunctionNode f) {
+                text.append(f.getFunction().symbol());
+                if (f.getPrecision().affects(f.getFunction())) {
+                    text.append('[').append(f.getPrecision()).append(']');
+                }
+                text.append('(');
+                pending.push(")");
+                for (int i = f.getArgumentCount() - 1; i >= 0; i--) {
+                    pending.push(f.getArgument(i));
+                    if (i > 0) {
+                        pending.push(", ");
+                    }
+                }
+            } else {
+                text.append(item);
+            }
+        }
+        if (text.length() <= MAX_EXPRESSION_LENGTH) {
+            return text.toString();
+        }
+        text.setLength(MAX_EXPRESSION_LENGTH - 3);
+        return text.append("...").toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.unimag.optimizer;
+
+import com.unimag.parser.astNodes.*;
+
+/**
+ * Pasada de optimización sobre el AST (de abajo hacia arriba).
+ *
+ * - Plegado de constantes: subárboles sin variables se reemplazan por su
+ *   valor, salvo una división entre cero, que se conserva para que falle al
+ *   evaluar igual que antes.
+ * - Identidades exactas en IEEE 754: x*1, 1*x, x/1, x-0, x+(-0), (-0)+x,
+ *   x^1 → x; --x → x; x^0 → 1 (pow(x, 0) es 1 incluso con NaN) si x no
+ *   puede lanzar error: sin divisiones ni variables sin ligar. Una base
+ *   sin variables ya llegó plegada, así que la regla sirve para bases con
+ *   variables ligadas. x+0 no se simplifica: (-0)+0 = +0.
+ * - Reducción de potencias enteras pequeñas (2, 3, 4) de una hoja a
+ *   multiplicaciones; con bases compuestas se conserva Math.pow para no
+ *   evaluar la base varias veces.
+ *
+ * No se reasocian operaciones (x*2*pi no se pliega) porque cambiaría el
+ * redondeo. Funciona igual sobre árboles ligados o sin ligar.
+ */
+public final class Optimizer {
+    private static final int MAX_REDUCED_POWER = 4;
+
+    private Optimizer() {
+    }
+
+    public static Node optimize(Node node) {
+        if (node instanceof UnaryNode u) {
+            return optimizeUnary(u);
+        }
+        if (node instanceof BinaryNode b) {
+            return optimizeBinary(b);
+        }
+        if (node instanceof FunctionNode f) {
+            return optimizeFunction(f);
+        }
+        return node;
+    }
+
+    private static Node optimizeUnary(UnaryNode node) {
+        Node expression = optimize(node.getExpression());
+
+        if (expression instanceof NumberNode n) {
+            return new NumberNode(-n.getValue());
+        }
+        if (expression instanceof UnaryNode inner) {
+            return inner.getExpression();
+        }
+        return expression == node.getExpression() ? node : new UnaryNode(expression);
+    }
+
+    private static Node optimizeBinary(BinaryNode node) {
+        char operator = node.getOperator();
+        Node left = optimize(node.getLeft());
+        Node right = optimize(node.getRight());
+
+        if (left instanceof NumberNode && right instanceof NumberNode r) {
+            if (operator == '/' && r.getValue() == 0) {
+                return rebuild(node, left, right);
+            }
+            return fold(new BinaryNode(operator, left, right));
+        }
+
+        switch (operator) {
+            case '*' -> {
+                if (isConstant(right, 1.0)) return left;
+                if (isConstant(left, 1.0)) return right;
+            }
+            case '/' -> {
+                if (isConstant(right, 1.0)) return left;
+            }
+            case '+' -> {
+                if (isNegativeZero(right)) return left;
+                if (isNegativeZero(left)) return right;
+            }
+            case '-' -> {
+                if (isPositiveZero(right)) return left;
+            }
+            case '^' -> {
+                if (isConstant(right, 1.0)) return left;
+                if (right instanceof NumberNode r && r.getValue() == 0 && !canFail(left)) {
+                    return new NumberNode(1.0);
+                }
+                Node reduced = reducePower(left, right);
+                if (reduced != null) return reduced;
+            }
+            default -> {
+            }
+        }
+
+        return rebuild(node, left, right);
+    }
+
+    private static Node optimizeFunction(FunctionNode node) {
+        int count = node.getArgumentCount();
+        Node[] arguments = new Node[count];
+        boolean constant = true;
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            arguments[i] = optimize(node.getArgument(i));
+            constant &= arguments[i] instanceof NumberNode;
+            changed |= arguments[i] != node.getArgument(i);
+        }
+
+        if (constant) {
+            return fold(node.withArguments(arguments));
+        }
+        return changed ? node.withArguments(arguments) : node;
+    }
+
+    /**
+     * x^2 → x*x, x^3 → (x*x)*x, x^4 → (x*x)*(x*x) cuando x es una variable.
+     */
+    private static Node reducePower(Node base, Node exponent) {
+        if (!(base instanceof VarNode) || !(exponent instanceof NumberNode e)) {
+            return null;
+        }
+        double power = e.getValue();
+        if (power != Math.rint(power) || power < 2 || power > MAX_REDUCED_POWER) {
+            return null;
+        }
+
+        Node square = new BinaryNode('*', base, base);
+        return switch ((int) power) {
+            case 2 -> square;
+            case 3 -> new BinaryNode('*', square, base);
+            default -> new BinaryNode('*', square, square);
+        };
+    }
+
+    private static Node fold(Node constantTree) {
+        return new NumberNode(constantTree.evaluate(new double[0]));
+    }
+
+    private static Node rebuild(BinaryNode original, Node left, Node right) {
+        if (left == original.getLeft() && right == original.getRight()) {
+            return original;
+        }
+        return new BinaryNode(original.getOperator(), left, right);
+    }
+
+    /**
+     * Indica si evaluar el subárbol puede lanzar un error (división o
+     * variable sin ligar), en cuyo caso no puede eliminarse. Una variable
+     * ligada no falla: su valor siempre está en el arreglo de slots, y
+     * BoundExpression exige todas las variables de la tabla aunque el
+     * árbol optimizado ya no las use.
+     */
+    private static boolean canFail(Node node) {
+        if (node instanceof NumberNode) {
+            return false;
+        }
+        if (node instanceof UnaryNode u) {
+            return canFail(u.getExpression());
+        }
+        if (node instanceof FunctionNode f) {
+            for (int i = 0; i < f.getArgumentCount(); i++) {
+                if (canFail(f.getArgument(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (node instanceof BinaryNode b) {
+            return b.getOperator() == '/' || canFail(b.getLeft()) || canFail(b.getRight());
+        }
+        return !(node instanceof VarNode v && v.isBound());
+    }
+
+    private static boolean isConstant(Node node, double value) {
+        return node instanceof NumberNode n && n.getValue() == value;
+    }
+
+    private static boolean isPositiveZero(Node node) {
+        return node instanceof NumberNode n && Double.doubleToRawLongBits(n.getValue()) == 0L;
+    }
+
+    private static boolean isNegativeZero(Node node) {
+        return node instanceof NumberNode n
+                && Double.doubleToRawLongBits(n.getValue()) == Double.doubleToRawLongBits(-0.0);
+    }
+}
@@ -0,0 +1,31 @@
+package com.unimag.parser;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.functions.MathFunction;
+import com.unimag.parser.astNodes.Node;
+import com.unimag.parser.astNodes.NodeFactory;
+
+/**
+ * Construcción de llamadas a función compartida por ambos parsers, para que
+ * validen la aridad con el mismo mensaje de error.
+ */
+final class FunctionCalls {
+
+    private FunctionCalls() {
+    }
+
+    /**
+     * @param position posición del nombre de la función en la fuente
+     */
+    static Node create(NodeFactory nodes, String name, int position, Node[] arguments) {
+        MathFunction function = MathFunction.lookup(name);
+        if (function == null) {
+            throw new ExpressionError(ErrorCode.UNKNOWN_FUNCTION, position, name);
+        }
+        if (arguments.length != function.arity()) {
+            throw new ExpressionError(ErrorCode.WRONG_ARITY, position, name, function.arity(), arguments.length);
+        }
+        return nodes.function(function, arguments);
+    }
+}
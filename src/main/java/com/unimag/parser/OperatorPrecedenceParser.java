@@ -0,0 +1,295 @@
+package com.unimag.parser;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.lexer.Token;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.lexer.TokenType;
+import com.unimag.metrics.ParseEvent;
+import com.unimag.parser.astNodes.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parser de precedencia de operadores (shunting-yard) con pilas explícitas.
+ *
+ * Reconoce la misma gramática que Parser y construye el mismo AST, con los
+ * mismos mensajes de error, pero sin recursión: el costo es lineal en el
+ * número de tokens. Pensado para entrada generada por máquinas.
+ *
+ * El análisis no limita la profundidad, pero quien recorre el árbol
+ * después (ligar, evaluar, compilar) sí es recursivo. Por eso se lleva la
+ * profundidad de cada operando y un árbol más profundo que maxDepth
+ * (DEFAULT_MAX_DEPTH si no se indica) se rechaza con EXPRESSION_TOO_DEEP
+ * en lugar de desbordar la pila de quien lo use.
+ *
+ * Precedencias (mayor liga más fuerte):
+ *   ^ 4 (derecha) > - unario 3 > * / 2 > + - 1
+ * El - unario se apila como prefijo, por eso -2^2 = -(2^2) y 2^-3*4 = (2^-3)*4.
+ * Cada llamada a función se apila como marcador con su nombre, su posición
+ * y el número de comas vistas; al cerrarla se desapilan sus argumentos.
+ */
+public class OperatorPrecedenceParser {
+    // Entradas de la pila de operadores
+    private static final int ADD = 0;
+    private static final int SUB = 1;
+    private static final int MUL = 2;
+    private static final int DIV = 3;
+    private static final int POW = 4;
+    private static final int NEG = 5;
+    private static final int PAREN = 6;   // marcador de '('
+    private static final int CALL = 7;    // marcador de función, con nombre, posición y argumentos
+
+    public static final int DEFAULT_MAX_DEPTH = 2_000;
+
+    private static final int[] PRECEDENCE = {1, 1, 2, 2, 4, 3};
+    private static final char[] SYMBOL = {'+', '-', '*', '/', '^'};
+
+    private final TokenCursor cursor;
+    private final NodeFactory nodes;
+
+    private Node[] operands = new Node[16];
+    private int[] depths = new int[16];   // profundidad del árbol de cada operando
+    private int operandCount = 0;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+
+    private int[] operators = new int[16];
+    private String[] functionNames = new String[16];
+    private int[] functionPositions = new int[16];
+    private int[] argumentCounts = new int[16];
+    private int operatorCount = 0;
+
+    public OperatorPrecedenceParser(List<Token> tokens) {
+        this(tokens, NodeFactory.allocating());
+    }
+
+    public OperatorPrecedenceParser(List<Token> tokens, NodeFactory nodes) {
+        this.cursor = new TokenCursor(tokens);
+        this.nodes = nodes;
+    }
+
+    public OperatorPrecedenceParser(TokenBuffer buffer) {
+        this(buffer, NodeFactory.allocating());
+    }
+
+    public OperatorPrecedenceParser(TokenBuffer buffer, NodeFactory nodes) {
+        this.cursor = new TokenCursor(buffer);
+        this.nodes = nodes;
+    }
+
+    /**
+     * Profundidad máxima del árbol (una hoja tiene profundidad 1).
+     */
+    public OperatorPrecedenceParser maxDepth(int maxDepth) {
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("La profundidad máxima debe ser positiva");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public Node parse() {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        if (cursor.check(TokenType.EOF)) {
+            throw new ExpressionError(ErrorCode.EMPTY_EXPRESSION, cursor.position());
+        }
+
+        boolean expectOperand = true;
+
+        while (true) {
+            TokenType type = cursor.type();
+
+            if (expectOperand) {
+                switch (type) {
+                    case MINUS -> pushOperator(NEG, null);
+                    case NUMBER -> {
+                        pushOperand(nodes.number(cursor.number()));
+                        expectOperand = false;
+                    }
+                    case PI -> {
+                        pushOperand(nodes.number(Math.PI));
+                        expectOperand = false;
+                    }
+                    case E -> {
+                        pushOperand(nodes.number(Math.E));
+                        expectOperand = false;
+                    }
+                    case VAR -> {
+                        pushOperand(nodes.variable(cursor.text()));
+                        expectOperand = false;
+                    }
+                    case FUNCTION -> {
+                        int funcPosition = cursor.position();
+                        String funcName = cursor.text();
+                        cursor.advance();
+                        cursor.expect(TokenType.L_PAR, ErrorCode.MISSING_CALL_PARENTHESIS, funcName);
+                        pushOperator(CALL, funcName);
+                        functionPositions[operatorCount - 1] = funcPosition;
+                        continue;
+                    }
+                    case L_PAR -> pushOperator(PAREN, null);
+                    default -> throw new ExpressionError(ErrorCode.UNEXPECTED_TOKEN, cursor.position(), cursor.text());
+                }
+                cursor.advance();
+                continue;
+            }
+
+            switch (type) {
+                case PLUS, MINUS, MULTI, DIV, POW -> {
+                    int operator = binaryOperator(type);
+                    reduceWhileStronger(operator);
+                    pushOperator(operator, null);
+                    cursor.advance();
+                    expectOperand = true;
+                }
+                case R_PAR -> {
+                    reduceToMarker();
+                    if (operatorCount == 0) {
+                        throw trailingTokens();
+                    }
+                    closeGroup();
+                    cursor.advance();
+                }
+                case COMMA -> {
+                    reduceToMarker();
+                    if (operatorCount == 0) {
+                        throw trailingTokens();
+                    }
+                    if (operators[operatorCount - 1] != CALL) {
+                        throw missingClosingParenthesis();
+                    }
+                    // El argumento terminado queda en la pila de operandos
+                    argumentCounts[operatorCount - 1]++;
+                    cursor.advance();
+                    expectOperand = true;
+                }
+                default -> {
+                    // EOF o un token que no puede seguir a un operando
+                    reduceToMarker();
+                    if (operatorCount > 0) {
+                        throw missingClosingParenthesis();
+                    }
+                    if (type != TokenType.EOF) {
+                        throw trailingTokens();
+                    }
+                    event.finish("precedencia", cursor.sourceLength(), cursor.tokenCount(), operands[0]);
+                    return operands[0];
+                }
+            }
+        }
+    }
+
+    /**
+     * Antes de apilar un binario, reduce los operadores de la cima que ligan
+     * más fuerte (o igual, si el nuevo es asociativo por la izquierda).
+     */
+    private void reduceWhileStronger(int operator) {
+        int precedence = PRECEDENCE[operator];
+        boolean leftAssociative = operator != POW;
+        while (operatorCount > 0) {
+            int top = operators[operatorCount - 1];
+            if (top >= PAREN) {
+                break;
+            }
+            int topPrecedence = PRECEDENCE[top];
+            if (topPrecedence > precedence || (topPrecedence == precedence && leftAssociative)) {
+                reduce();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void reduceToMarker() {
+        while (operatorCount > 0 && operators[operatorCount - 1] < PAREN) {
+            reduce();
+        }
+    }
+
+    private void reduce() {
+        int operator = operators[--operatorCount];
+        if (operator == NEG) {
+            depths[operandCount - 1] = checkDepth(depths[operandCount - 1] + 1);
+            operands[operandCount - 1] = nodes.negate(operands[operandCount - 1]);
+            return;
+        }
+        Node right = operands[--operandCount];
+        Node left = operands[operandCount - 1];
+        depths[operandCount - 1] = checkDepth(Math.max(depths[operandCount - 1], depths[operandCount]) + 1);
+        operands[operandCount - 1] = nodes.binary(SYMBOL[operator], left, right);
+    }
+
+    private int checkDepth(int depth) {
+        if (depth > maxDepth) {
+            throw new ExpressionError(ErrorCode.EXPRESSION_TOO_DEEP, cursor.position(), maxDepth);
+        }
+        return depth;
+    }
+
+    /**
+     * Cierra el paréntesis o la llamada de la cima con el ')' actual.
+     */
+    private void closeGroup() {
+        int marker = operators[--operatorCount];
+        if (marker == CALL) {
+            String name = functionNames[operatorCount];
+            functionNames[operatorCount] = null;
+            int count = argumentCounts[operatorCount];
+            Node[] arguments = Arrays.copyOfRange(operands, operandCount - count, operandCount);
+            Arrays.fill(operands, operandCount - count, operandCount, null);
+            int depth = 0;
+            for (int i = operandCount - count; i < operandCount; i++) {
+                depth = Math.max(depth, depths[i]);
+            }
+            operandCount -= count - 1;
+            depths[operandCount - 1] = checkDepth(depth + 1);
+            operands[operandCount - 1] = FunctionCalls.create(nodes, name, functionPositions[operatorCount], arguments);
+        }
+    }
+
+    private ExpressionError missingClosingParenthesis() {
+        if (operators[operatorCount - 1] == CALL) {
+            return new ExpressionError(ErrorCode.UNCLOSED_CALL, cursor.position(),
+                    functionNames[operatorCount - 1], cursor.token());
+        }
+        return new ExpressionError(ErrorCode.UNCLOSED_PARENTHESIS, cursor.position(), cursor.token());
+    }
+
+    private ExpressionError trailingTokens() {
+        return new ExpressionError(ErrorCode.TRAILING_TOKENS, cursor.position(), cursor.token());
+    }
+
+    private static int binaryOperator(TokenType type) {
+        return switch (type) {
+            case PLUS -> ADD;
+            case MINUS -> SUB;
+            case MULTI -> MUL;
+            case DIV -> DIV;
+            default -> POW;
+        };
+    }
+
+    private void pushOperand(Node node) {
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+            depths = Arrays.copyOf(depths, operandCount * 2);
+        }
+        depths[operandCount] = 1;
+        operands[operandCount++] = node;
+    }
+
+    private void pushOperator(int operator, String functionName) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+            functionNames = Arrays.copyOf(functionNames, operatorCount * 2);
+            functionPositions = Arrays.copyOf(functionPositions, operatorCount * 2);
+            argumentCounts = Arrays.copyOf(argumentCounts, operatorCount * 2);
+        }
+        operators[operatorCount] = operator;
+        functionNames[operatorCount] = functionName;
+        argumentCounts[operatorCount] = 1;
+        operatorCount++;
+    }
+}
@@ -1,9 +1,14 @@
 package com.unimag.parser;
 
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
 import com.unimag.lexer.Token;
+import com.unimag.lexer.TokenBuffer;
 import com.unimag.lexer.TokenType;
+import com.unimag.metrics.ParseEvent;
 import com.unimag.parser.astNodes.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /*
@@ -14,59 +19,102 @@ import java.util.List;
   F  → U F'
   F' → ^ F | ε
   U  → - U | P
-  P  → NUM | ID | sin(E) | cos(E) | tan(E) | (E)
+  P  → NUM | ID | FUNC(A) | (E)
+  A  → E | E , A
+  FUNC es cualquier nombre de MathFunction; el número de argumentos se
+  valida contra su aridad.
  */
 public class Parser {
-    private final List<Token> tokens;
-    private int currentIndex;
-    private Token currentToken;
+    private final TokenCursor cursor;
+    private final NodeFactory nodes;
+    // Tramos de la fuente de cada nodo; null si no se pidieron
+    private final SourceSpans spans;
 
 
     public Parser(List<Token> tokens) {
-        this.tokens = tokens;
-        this.currentIndex = 0;
-        this.currentToken = tokens.get(0);
+        this(tokens, NodeFactory.allocating());
     }
 
-    private void advance() {
-        currentIndex++;
-        if (currentIndex < tokens.size()) {
-            currentToken = tokens.get(currentIndex);
+    /**
+     * Parser que crea los nodos con la fábrica dada; con
+     * NodeFactory.hashConsing() el resultado es un DAG.
+     */
+    public Parser(List<Token> tokens, NodeFactory nodes) {
+        this(tokens, nodes, null);
+    }
+
+    /**
+     * Parser que además registra en spans el tramo de la fuente de cada
+     * nodo (ver SourceSpans).
+     */
+    public Parser(List<Token> tokens, NodeFactory nodes, SourceSpans spans) {
+        this.cursor = new TokenCursor(tokens);
+        this.nodes = nodes;
+        this.spans = spans;
+    }
+
+    /**
+     * Parser que consume directamente un TokenBuffer, sin materializar tokens.
+     */
+    public Parser(TokenBuffer buffer) {
+        this(buffer, NodeFactory.allocating());
+    }
+
+    public Parser(TokenBuffer buffer, NodeFactory nodes) {
+        this(buffer, nodes, null);
+    }
+
+    public Parser(TokenBuffer buffer, NodeFactory nodes, SourceSpans spans) {
+        this.cursor = new TokenCursor(buffer);
+        this.nodes = nodes;
+        this.spans = spans;
+    }
+
+    /**
+     * Registra que node abarca desde start hasta el último token consumido,
+     * si se pidieron tramos.
+     */
+    private Node spanned(Node node, int start) {
+        if (spans != null) {
+            spans.record(node, start, cursor.previousEnd());
         }
+        return node;
+    }
+
+    private void advance() {
+        cursor.advance();
     }
 
 
     private boolean check(TokenType type) {
 
-        return currentToken.type() == type;
+        return cursor.check(type);
     }
 
 
-    private void expect(TokenType type, String errorMessage) {
-        if (!check(type)) {
-            throw new RuntimeException(
-                String.format("Error sintáctico en posición %d: %s\n  Token actual: %s",
-                    currentToken.position(), errorMessage, currentToken)
-            );
-        }
-        advance();
+    private void expect(TokenType type, ErrorCode error) {
+        cursor.expect(type, error);
+    }
+
+    private void expect(TokenType type, ErrorCode error, String function) {
+        cursor.expect(type, error, function);
     }
 
 
     public Node parse() {
+        ParseEvent event = new ParseEvent();
+        event.begin();
         if (check(TokenType.EOF)) {
-            throw new RuntimeException("Error: expresión vacía");
+            throw new ExpressionError(ErrorCode.EMPTY_EXPRESSION, cursor.position());
         }
         Node result = parseExpression();
 
         // Verificar que se haya consumido toda la entrada
         if (!check(TokenType.EOF)) {
-            throw new RuntimeException(
-                String.format("Error sintáctico en posición %d: tokens inesperados después de la expresión\n  Token: %s",
-                    currentToken.position(), currentToken)
-            );
+            throw new ExpressionError(ErrorCode.TRAILING_TOKENS, cursor.position(), cursor.token());
         }
 
+        event.finish("recursivo", cursor.sourceLength(), cursor.tokenCount(), result);
         return result;
     }
 
@@ -75,20 +123,21 @@ public class Parser {
       Parsea una expresión (suma y resta - menor precedencia)
      */
     private Node parseExpression() {
+        int start = cursor.position();
         Node left = parseTerm();
-        return parseExpressionPrime(left);
+        return parseExpressionPrime(left, start);
     }
 
     /**
       E' → + T E' | - T E' | ε
       Parsea el resto de una expresión (asociatividad izquierda)
      */
-    private Node parseExpressionPrime(Node left) {
+    private Node parseExpressionPrime(Node left, int start) {
         while (check(TokenType.PLUS) || check(TokenType.MINUS)) {
-            char operator = currentToken.value().charAt(0);
+            char operator = check(TokenType.PLUS) ? '+' : '-';
             advance();
             Node right = parseTerm();
-            left = new BinaryNode(operator, left, right);
+            left = spanned(nodes.binary(operator, left, right), start);
         }
         return left;
     }
@@ -98,20 +147,21 @@ public class Parser {
      Parsea un término (multiplicación y división)
      */
     private Node parseTerm() {
+        int start = cursor.position();
         Node left = parseUnary();
-        return parseTermPrime(left);
+        return parseTermPrime(left, start);
     }
 
     /**
       T' → * F T' | / F T' | ε
       Parsea el resto de un término (asociatividad izquierda)
      */
-    private Node parseTermPrime(Node left) {
+    private Node parseTermPrime(Node left, int start) {
         while (check(TokenType.MULTI) || check(TokenType.DIV)) {
-            char operator = currentToken.value().charAt(0);
+            char operator = check(TokenType.MULTI) ? '*' : '/';
             advance();
             Node right = parseUnary();
-            left = new BinaryNode(operator, left, right);
+            left = spanned(nodes.binary(operator, left, right), start);
         }
         return left;
     }
@@ -122,9 +172,10 @@ public class Parser {
      */
     private Node parseUnary() {
         if (check(TokenType.MINUS)) {
+            int start = cursor.position();
             advance();
             Node expr = parseUnary();
-            return new UnaryNode(expr);
+            return spanned(nodes.negate(expr), start);
         }
         return parseFactor();
     }
@@ -134,86 +185,91 @@ public class Parser {
       Parsea un factor (base para potencia)
      */
     private Node parseFactor() {
+        int start = cursor.position();
         Node left = parsePrimary();
-        return parseFactorPrime(left);
+        return parseFactorPrime(left, start);
     }
 
     /**
       F' → ^ F | ε
       Parsea potencia (asociatividad DERECHA - CRÍTICO)
      */
-    private Node parseFactorPrime(Node left) {
+    private Node parseFactorPrime(Node left, int start) {
         if (check(TokenType.POW)) {
             advance();
+            int rightStart = cursor.position();
             // Llamar a parseUnary para procesar el lado derecho
             // Esto permite: 2^-3 y garantiza que -2^2 = -(2^2)
             Node right = parseUnary();
             // Recursión para asociatividad derecha
-            right = parseFactorPrime(right);
-            return new BinaryNode('^', left, right);
+            right = parseFactorPrime(right, rightStart);
+            return spanned(nodes.binary('^', left, right), start);
         }
         return left;
     }
 
     /**
-      P → NUM | ID | sin(E) | cos(E) | tan(E) | (E)
+      P → NUM | ID | FUNC(A) | (E)
       Parsea expresiones primarias (números, variables, funciones, paréntesis)
      */
     private Node parsePrimary() {
+        int start = cursor.position();
+
         // Número
         if (check(TokenType.NUMBER)) {
-            double value = Double.parseDouble(currentToken.value());
+            double value = cursor.number();
             advance();
-            return new NumberNode(value);
+            return spanned(nodes.number(value), start);
         }
 
         // Constante PI
         if (check(TokenType.PI)) {
             advance();
-            return new NumberNode(Math.PI);
+            return spanned(nodes.number(Math.PI), start);
         }
 
         // Constante E
         if (check(TokenType.E)) {
             advance();
-            return new NumberNode(Math.E);
+            return spanned(nodes.number(Math.E), start);
         }
 
         // Variable
         if (check(TokenType.VAR)) {
-            String varName = currentToken.value();
+            String varName = cursor.text();
             advance();
-            return new VarNode(varName);
+            return spanned(nodes.variable(varName), start);
         }
 
-        // Funciones trigonométricas
-        if (check(TokenType.SIN) || check(TokenType.COS) || check(TokenType.TAN)) {
-            String funcName = currentToken.value();
+        // Funciones del registro MathFunction
+        if (check(TokenType.FUNCTION)) {
+            int funcPosition = cursor.position();
+            String funcName = cursor.text();
             advance();
 
-            expect(TokenType.L_PAR,
-                String.format("se esperaba '(' después de función '%s'", funcName));
+            expect(TokenType.L_PAR, ErrorCode.MISSING_CALL_PARENTHESIS, funcName);
 
-            Node argument = parseExpression();
+            List<Node> arguments = new ArrayList<>(2);
+            arguments.add(parseExpression());
+            while (check(TokenType.COMMA)) {
+                advance();
+                arguments.add(parseExpression());
+            }
 
-            expect(TokenType.R_PAR,
-                String.format("se esperaba ')' para cerrar función '%s'", funcName));
+            expect(TokenType.R_PAR, ErrorCode.UNCLOSED_CALL, funcName);
 
-            return new FunctionNode(funcName, argument);
+            return spanned(FunctionCalls.create(nodes, funcName, funcPosition, arguments.toArray(new Node[0])), start);
         }
 
 
         if (check(TokenType.L_PAR)) {
             advance();
             Node expr = parseExpression();
-            expect(TokenType.R_PAR, "se esperaba ')' para cerrar paréntesis");
+            expect(TokenType.R_PAR, ErrorCode.UNCLOSED_PARENTHESIS);
             return expr;
         }
 
 
-        throw new RuntimeException(
-            String.format("Error sintáctico en posición %d: token inesperado '%s'\n  Se esperaba: número, variable, función (sin/cos/tan), o '('",
-                currentToken.position(), currentToken.value())
-        );
+        throw new ExpressionError(ErrorCode.UNEXPECTED_TOKEN, cursor.position(), cursor.text());
     }
 }
@@ -0,0 +1,22 @@
+package com.unimag.parser;
+
+/**
+ * Tramo [start, end) de la fuente del que salió un nodo del AST.
+ */
+public record SourceSpan(int start, int end) {
+
+    public SourceSpan {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException(String.format("Tramo inválido: [%d, %d)", start, end));
+        }
+    }
+
+    public String text(CharSequence source) {
+        return source.subSequence(start, end).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "[%d, %d)".formatted(start, end);
+    }
+}
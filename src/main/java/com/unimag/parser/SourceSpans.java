@@ -0,0 +1,36 @@
+package com.unimag.parser;
+
+import com.unimag.parser.astNodes.Node;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Tramos de la fuente de cada nodo de un AST, que Parser registra cuando se
+ * le pasa una instancia. Los nodos no guardan su posición (el costo sería
+ * para todos los árboles), así que el mapa va aparte, indexado por
+ * identidad; solo vale para el árbol recién analizado; bind, optimize y
+ * shared crean nodos nuevos que no tienen tramo.
+ *
+ * Un paréntesis no crea nodo: el tramo de (x+1) es el de x+1. Con
+ * NodeFactory.hashConsing() un nodo compartido conserva el tramo de su
+ * primera aparición.
+ */
+public final class SourceSpans {
+    private final Map<Node, SourceSpan> spans = new IdentityHashMap<>();
+
+    void record(Node node, int start, int end) {
+        spans.putIfAbsent(node, new SourceSpan(start, end));
+    }
+
+    /**
+     * Tramo del nodo, o null si no salió de este análisis.
+     */
+    public SourceSpan get(Node node) {
+        return spans.get(node);
+    }
+
+    public int size() {
+        return spans.size();
+    }
+}
@@ -0,0 +1,110 @@
+package com.unimag.parser;
+
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+import com.unimag.lexer.Token;
+import com.unimag.lexer.TokenBuffer;
+import com.unimag.lexer.TokenType;
+
+import java.util.List;
+
+/**
+ * Cursor sobre la secuencia de tokens que consumen los parsers: una lista
+ * de Token o un TokenBuffer (solo una de las dos es no nula). Con el buffer
+ * no se materializan tokens salvo para mensajes de error.
+ */
+final class TokenCursor {
+    private final List<Token> tokens;
+    private final TokenBuffer buffer;
+    private final int tokenCount;
+    private int currentIndex;
+    private TokenType currentType;
+    // Fin del último token consumido (ver previousEnd)
+    private int previousEnd;
+
+    TokenCursor(List<Token> tokens) {
+        this.tokens = tokens;
+        this.buffer = null;
+        this.tokenCount = tokens.size();
+        this.currentIndex = 0;
+        this.currentType = tokens.get(0).type();
+    }
+
+    TokenCursor(TokenBuffer buffer) {
+        this.tokens = null;
+        this.buffer = buffer;
+        this.tokenCount = buffer.size();
+        this.currentIndex = 0;
+        this.currentType = buffer.type(0);
+    }
+
+    int tokenCount() {
+        return tokenCount;
+    }
+
+    // El EOF está al final de la entrada
+    int sourceLength() {
+        return tokens != null ? tokens.get(tokenCount - 1).position() : buffer.start(tokenCount - 1);
+    }
+
+    void advance() {
+        previousEnd = tokens != null
+                ? tokens.get(currentIndex).position() + tokens.get(currentIndex).value().length()
+                : buffer.end(currentIndex);
+        if (currentIndex + 1 < tokenCount) {
+            currentIndex++;
+            currentType = tokens != null ? tokens.get(currentIndex).type() : buffer.type(currentIndex);
+        }
+    }
+
+    boolean check(TokenType type) {
+        return currentType == type;
+    }
+
+    TokenType type() {
+        return currentType;
+    }
+
+    // Token actual materializado; solo se usa para mensajes de error
+    Token token() {
+        return tokens != null ? tokens.get(currentIndex) : buffer.token(currentIndex);
+    }
+
+    /**
+     * Posición siguiente al último token consumido con advance().
+     */
+    int previousEnd() {
+        return previousEnd;
+    }
+
+    int position() {
+        return tokens != null ? tokens.get(currentIndex).position() : buffer.start(currentIndex);
+    }
+
+    String text() {
+        return tokens != null ? tokens.get(currentIndex).value() : buffer.text(currentIndex);
+    }
+
+    double number() {
+        return tokens != null
+                ? Double.parseDouble(tokens.get(currentIndex).value())
+                : buffer.numberValue(currentIndex);
+    }
+
+    void expect(TokenType type, ErrorCode error) {
+        if (!check(type)) {
+            throw new ExpressionError(error, position(), token());
+        }
+        advance();
+    }
+
+    /**
+     * Como expect(type, error), para los errores que nombran la función.
+     */
+    void expect(TokenType type, ErrorCode error, String function) {
+        if (!check(type)) {
+            throw new ExpressionError(error, position(), function, token());
+        }
+        advance();
+    }
+}
@@ -19,6 +19,23 @@ public class BinaryNode extends Node {
         double l = left.evaluate(env);
         double r = right.evaluate(env);
 
+        return apply(operator, l, r);
+    }
+
+    @Override
+    public double evaluate(double[] values) {
+        double l = left.evaluate(values);
+        double r = right.evaluate(values);
+
+        return apply(operator, l, r);
+    }
+
+    /**
+     * Aplica el operador a dos valores ya calculados. Es la semántica de
+     * evaluate; la usan también los evaluadores que recorren el árbol
+     * aplanado (evaluación incremental, diferenciación).
+     */
+    public static double apply(char operator, double l, double r) {
         return switch (operator) {
             case '+' -> l + r;
             case '-' -> l - r;
@@ -38,6 +55,11 @@ public class BinaryNode extends Node {
         };
     }
 
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        return new BinaryNode(operator, left.bind(slots), right.bind(slots));
+    }
+
     @Override
     public void collectVariables(Set<String> vars) {
         // Recolectar variables de ambos lados
@@ -45,6 +67,11 @@ public class BinaryNode extends Node {
         right.collectVariables(vars);
     }
 
+    @Override
+    public String toString() {
+        return "(" + left + operator + right + ")";
+    }
+
     public char getOperator() {
         return operator;
     }
@@ -1,42 +1,135 @@
 package com.unimag.parser.astNodes;
 
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+
 import java.util.Map;
 import java.util.Set;
 
 public class FunctionNode extends Node {
-    private final String name;
-    private final Node argument;
+    private final MathFunction function;
+    private final TrigPrecision precision;
+    private final Node[] arguments;
 
+    /**
+     * Llamada a una función de un argumento por nombre (acepta el alias "sen").
+     */
     public FunctionNode(String name, Node argument) {
-        this.name = name;
-        this.argument = argument;
+        this(resolve(name), argument);
     }
 
-    @Override
-    public double evaluate(Map<String, Double> env) throws Exception {
-        double arg = argument.evaluate(env);
+    public FunctionNode(MathFunction function, Node... arguments) {
+        this(function, TrigPrecision.DEFAULT, arguments);
+    }
 
-        return switch (name) {
-            case "sin", "sen" -> Math.sin(arg);
-            case "cos" -> Math.cos(arg);
-            case "tan" -> Math.tan(arg);
-            default -> throw new RuntimeException(
+    public FunctionNode(MathFunction function, TrigPrecision precision, Node... arguments) {
+        if (arguments.length != function.arity()) {
+            throw new IllegalArgumentException(
+                String.format("La función '%s' espera %d argumento(s), se recibieron %d",
+                    function.symbol(), function.arity(), arguments.length)
+            );
+        }
+        this.function = function;
+        this.precision = precision;
+        this.arguments = arguments.clone();
+    }
+
+    private static MathFunction resolve(String name) {
+        MathFunction function = MathFunction.lookup(name);
+        if (function == null) {
+            throw new RuntimeException(
                 String.format("Función desconocida: '%s'", name)
             );
-        };
+        }
+        return function;
+    }
+
+    @Override
+    public double evaluate(Map<String, Double> env) throws Exception {
+        double first = arguments[0].evaluate(env);
+        if (arguments.length == 1) {
+            return precision.apply(function, first);
+        }
+        return precision.apply(function, first, arguments[1].evaluate(env));
+    }
+
+    @Override
+    public double evaluate(double[] values) {
+        double first = arguments[0].evaluate(values);
+        if (arguments.length == 1) {
+            return precision.apply(function, first);
+        }
+        return precision.apply(function, first, arguments[1].evaluate(values));
+    }
+
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        Node[] bound = new Node[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            bound[i] = arguments[i].bind(slots);
+        }
+        return withArguments(bound);
+    }
+
+    /**
+     * Misma función y precisión con otros argumentos.
+     */
+    public FunctionNode withArguments(Node... arguments) {
+        return new FunctionNode(function, precision, arguments);
+    }
+
+    public FunctionNode withPrecision(TrigPrecision precision) {
+        return precision == this.precision ? this : new FunctionNode(function, precision, arguments);
     }
 
     @Override
     public void collectVariables(Set<String> vars) {
-        // Recolectar variables del argumento
-        argument.collectVariables(vars);
+        // Recolectar variables de los argumentos
+        for (Node argument : arguments) {
+            argument.collectVariables(vars);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(function.symbol());
+        if (precision.affects(function)) {
+            sb.append('[').append(precision).append(']');
+        }
+        sb.append('(');
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(arguments[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    public MathFunction getFunction() {
+        return function;
+    }
+
+    public TrigPrecision getPrecision() {
+        return precision;
     }
 
     public String getName() {
-        return name;
+        return function.symbol();
+    }
+
+    public int getArgumentCount() {
+        return arguments.length;
+    }
+
+    public Node getArgument(int index) {
+        return arguments[index];
     }
 
+    /**
+     * Primer (o único) argumento.
+     */
     public Node getArgument() {
-        return argument;
+        return arguments[0];
     }
 }
@@ -7,5 +7,26 @@ public abstract class Node {
 
     public abstract double evaluate(Map<String, Double> env) throws Exception;
 
+    /**
+     * Evalúa un árbol ligado (ver bind): cada variable se lee de su slot en
+     * values, sin hashing ni boxing.
+     */
+    public abstract double evaluate(double[] values);
+
+    /**
+     * Devuelve una copia del árbol donde cada VarNode queda resuelto a su
+     * índice en slots.
+     */
+    public abstract Node bind(Map<String, Integer> slots);
+
     public abstract void collectVariables(Set<String> vars);
+
+    /**
+     * Forma canónica totalmente parentizada del subárbol. Dos subárboles con
+     * el mismo texto son estructuralmente iguales, así que sirve como clave
+     * para encontrar subexpresiones repetidas (los nodos se comparan por
+     * identidad en equals).
+     */
+    @Override
+    public abstract String toString();
 }
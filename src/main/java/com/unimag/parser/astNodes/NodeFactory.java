@@ -0,0 +1,194 @@
+package com.unimag.parser.astNodes;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fábrica de nodos del AST.
+ *
+ * La fábrica con consing (hashConsing()) devuelve el mismo objeto para
+ * subárboles estructuralmente iguales, así que el AST resultante es un DAG:
+ * una fórmula que repite sin(x*y+z) veinte veces guarda un solo subárbol.
+ * Como los hijos ya están compartidos, la igualdad estructural se reduce a
+ * comparar el nodo y la identidad de sus hijos (O(1) por nodo).
+ *
+ * La fábrica por defecto (allocating()) crea siempre nodos nuevos; es la
+ * que usan los parsers salvo que se les pase otra, y la que necesita la GUI,
+ * que ubica cada nodo por identidad.
+ *
+ * Los backends que linealizan (compilador, máquina de pila, lotes) evalúan
+ * una sola vez cada nodo compartido (ver findShared). Ligar un DAG con
+ * Node.bind lo vuelve a expandir; BoundExpression.shared() lo recompone.
+ *
+ * Una fábrica con consing no es segura entre hilos.
+ */
+public final class NodeFactory {
+    private static final NodeFactory ALLOCATING = new NodeFactory(null);
+
+    private static final int NUMBER = 0;
+    private static final int VAR = 1;
+    private static final int UNARY = 2;
+    private static final int BINARY = 3;
+    private static final int FUNCTION = 4;
+
+    // Clave de un nodo: sus hijos ya son canónicos, así que se comparan por
+    // identidad (Node no redefine equals)
+    private record Key(int kind, long bits, Object tag, Node first, Node second) {
+    }
+
+    private final Map<Key, Node> table;
+    private long requests;
+
+    private NodeFactory(Map<Key, Node> table) {
+        this.table = table;
+    }
+
+    public static NodeFactory allocating() {
+        return ALLOCATING;
+    }
+
+    public static NodeFactory hashConsing() {
+        return new NodeFactory(new HashMap<>());
+    }
+
+    public boolean isSharing() {
+        return table != null;
+    }
+
+    public Node number(double value) {
+        if (table == null) {
+            return new NumberNode(value);
+        }
+        return intern(new Key(NUMBER, Double.doubleToRawLongBits(value), null, null, null), () -> new NumberNode(value));
+    }
+
+    public Node variable(String identifier) {
+        return variable(identifier, -1);
+    }
+
+    public Node variable(String identifier, int slot) {
+        if (table == null) {
+            return new VarNode(identifier, slot);
+        }
+        return intern(new Key(VAR, slot, identifier, null, null), () -> new VarNode(identifier, slot));
+    }
+
+    public Node negate(Node expression) {
+        if (table == null) {
+            return new UnaryNode(expression);
+        }
+        return intern(new Key(UNARY, '-', null, expression, null), () -> new UnaryNode(expression));
+    }
+
+    public Node binary(char operator, Node left, Node right) {
+        if (table == null) {
+            return new BinaryNode(operator, left, right);
+        }
+        return intern(new Key(BINARY, operator, null, left, right), () -> new BinaryNode(operator, left, right));
+    }
+
+    public Node function(MathFunction function, Node... arguments) {
+        return function(function, TrigPrecision.DEFAULT, arguments);
+    }
+
+    public Node function(MathFunction function, TrigPrecision precision, Node... arguments) {
+        if (table == null || arguments.length != function.arity()) {
+            // Con aridad incorrecta el constructor reporta el error
+            return new FunctionNode(function, precision, arguments);
+        }
+        Key key = new Key(FUNCTION, precision.ordinal(), function,
+                arguments[0], arguments.length > 1 ? arguments[1] : null);
+        return intern(key, () -> new FunctionNode(function, precision, arguments));
+    }
+
+    /**
+     * Reconstruye un árbol (o DAG) con esta fábrica. Con consing, el
+     * resultado comparte todos los subárboles iguales, incluidos los que ya
+     * estuvieran en la tabla. Cada nodo de entrada se visita una vez.
+     */
+    public Node intern(Node root) {
+        return copy(root, new IdentityHashMap<>());
+    }
+
+    private Node copy(Node node, Map<Node, Node> done) {
+        Node copied = done.get(node);
+        if (copied != null) {
+            return copied;
+        }
+        if (node instanceof NumberNode n) {
+            copied = number(n.getValue());
+        } else if (node instanceof VarNode v) {
+            copied = variable(v.getIdentifier(), v.getSlot());
+        } else if (node instanceof UnaryNode u) {
+            copied = negate(copy(u.getExpression(), done));
+        } else if (node instanceof BinaryNode b) {
+            copied = binary(b.getOperator(), copy(b.getLeft(), done), copy(b.getRight(), done));
+        } else if (node instanceof FunctionNode f) {
+            Node[] arguments = new Node[f.getArgumentCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = copy(f.getArgument(i), done);
+            }
+            copied = function(f.getFunction(), f.getPrecision(), arguments);
+        } else {
+            throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+        }
+        done.put(node, copied);
+        return copied;
+    }
+
+    private Node intern(Key key, java.util.function.Supplier<Node> constructor) {
+        requests++;
+        return table.computeIfAbsent(key, k -> constructor.get());
+    }
+
+    /**
+     * Nodos distintos creados por esta fábrica (0 sin consing).
+     */
+    public int size() {
+        return table == null ? 0 : table.size();
+    }
+
+    /**
+     * Nodos pedidos a la fábrica, compartidos o no (0 sin consing).
+     */
+    public long requests() {
+        return requests;
+    }
+
+    /**
+     * Nodos internos (no hojas) a los que llega más de una referencia: los
+     * que un backend debe evaluar una sola vez y reutilizar. Vacío en un árbol.
+     */
+    public static Set<Node> findShared(Node root) {
+        Map<Node, Boolean> seen = new IdentityHashMap<>();
+        Set<Node> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        markShared(root, seen, shared);
+        return shared;
+    }
+
+    private static void markShared(Node node, Map<Node, Boolean> seen, Set<Node> shared) {
+        if (node instanceof NumberNode || node instanceof VarNode) {
+            return;
+        }
+        if (seen.put(node, Boolean.TRUE) != null) {
+            shared.add(node);
+            return;
+        }
+        if (node instanceof UnaryNode u) {
+            markShared(u.getExpression(), seen, shared);
+        } else if (node instanceof BinaryNode b) {
+            markShared(b.getLeft(), seen, shared);
+            markShared(b.getRight(), seen, shared);
+        } else if (node instanceof FunctionNode f) {
+            for (int i = 0; i < f.getArgumentCount(); i++) {
+                markShared(f.getArgument(i), seen, shared);
+            }
+        }
+    }
+}
@@ -15,11 +15,27 @@ public class NumberNode extends Node {
         return value;
     }
 
+    @Override
+    public double evaluate(double[] values) {
+        return value;
+    }
+
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        return this;
+    }
+
     @Override
     public void collectVariables(Set<String> vars) {
         // Los números no tienen variables
     }
 
+    @Override
+    public String toString() {
+        // Double.toString distingue 0.0 de -0.0
+        return Double.toString(value);
+    }
+
     public double getValue() {
         return value;
     }
@@ -17,12 +17,27 @@ public class UnaryNode extends Node {
         return -expression.evaluate(env);
     }
 
+    @Override
+    public double evaluate(double[] values) {
+        return -expression.evaluate(values);
+    }
+
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        return new UnaryNode(expression.bind(slots));
+    }
+
     @Override
     public void collectVariables(Set<String> vars) {
         // Recolectar variables de la subexpresión
         expression.collectVariables(vars);
     }
 
+    @Override
+    public String toString() {
+        return "(" + operator + expression + ")";
+    }
+
     public Node getExpression() {
         return expression;
     }
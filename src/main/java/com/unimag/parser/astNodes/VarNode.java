@@ -1,32 +1,70 @@
 package com.unimag.parser.astNodes;
 
+import com.unimag.diagnostic.ErrorCode;
+import com.unimag.diagnostic.ExpressionError;
+
 import java.util.Map;
 import java.util.Set;
 
 public class VarNode extends Node {
     private final String identifier;
+    // Índice en el arreglo de valores; -1 mientras la variable no esté ligada
+    private final int slot;
 
     public VarNode(String identifier) {
+        this(identifier, -1);
+    }
+
+    public VarNode(String identifier, int slot) {
         this.identifier = identifier;
+        this.slot = slot;
     }
 
     @Override
     public double evaluate(Map<String, Double> env) throws Exception {
         if (!env.containsKey(identifier)) {
-            throw new RuntimeException(
-                String.format("Error semántico: variable '%s' no está definida", identifier)
-            );
+            throw new ExpressionError(ErrorCode.UNDEFINED_VARIABLE, -1, identifier);
         }
         return env.get(identifier);
     }
 
+    @Override
+    public double evaluate(double[] values) {
+        if (slot < 0) {
+            throw new ExpressionError(ErrorCode.UNBOUND_VARIABLE, -1, identifier);
+        }
+        return values[slot];
+    }
+
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        Integer index = slots.get(identifier);
+        if (index == null) {
+            throw new ExpressionError(ErrorCode.UNDEFINED_VARIABLE, -1, identifier);
+        }
+        return new VarNode(identifier, index);
+    }
+
     @Override
     public void collectVariables(Set<String> vars) {
         // Agregar esta variable al conjunto
         vars.add(identifier);
     }
 
+    @Override
+    public String toString() {
+        return identifier;
+    }
+
     public String getIdentifier() {
         return identifier;
     }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public boolean isBound() {
+        return slot >= 0;
+    }
 }
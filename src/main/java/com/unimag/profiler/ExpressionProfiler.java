@@ -0,0 +1,179 @@
+package com.unimag.profiler;
+
+import com.unimag.eval.VariableSlots;
+import com.unimag.lexer.Lexer;
+import com.unimag.parser.Parser;
+import com.unimag.parser.SourceSpan;
+import com.unimag.parser.SourceSpans;
+import com.unimag.parser.astNodes.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluador con perfilado por nodo, para encontrar las subexpresiones que
+ * más tiempo se llevan en una expresión grande.
+ *
+ * Cada nodo interno (operador, negación o llamada) se envuelve en un
+ * ProfiledNode que cuenta sus evaluaciones; las hojas no se envuelven y su
+ * costo va al nodo que las usa. En cada evaluación se mide con
+ * System.nanoTime un solo nodo, por turno, así que nunca hay un reloj
+ * dentro de otro y lo medido en un nodo no incluye el costo de medir a sus
+ * descendientes; con N nodos internos, cada uno se mide en una de cada N
+ * evaluaciones y su tiempo se extrapola al resto. Perfilar cuesta, por
+ * evaluación, un contador por nodo y un par de lecturas del reloj.
+ *
+ * El informe (ver ProfileReport) ordena los nodos por tiempo propio: el
+ * inclusivo menos el de sus hijos internos. Si el árbol vino de
+ * of(String), cada entrada lleva su tramo en la fuente (ver SourceSpans).
+ *
+ * Los contadores no son seguros entre hilos: cada hilo necesita su propio
+ * perfilador.
+ */
+public final class ExpressionProfiler {
+    private static final int CALIBRATION_ROUNDS = 20;
+    private static final int CALIBRATION_CALLS = 10_000;
+
+    // Nanosegundos que el reloj agrega a cada medición, aun de un nodo vacío
+    private static final double TIMER_OVERHEAD = calibrate();
+
+    private final String source;
+    private final VariableSlots slots;
+    private final Node root;
+    private final List<ProfiledNode> profiled = new ArrayList<>();
+    private final Clock clock = new Clock();
+    private long evaluations;
+
+    /**
+     * Nodo a medir en la evaluación en curso, compartido por todos los
+     * ProfiledNode de un perfilador.
+     */
+    static final class Clock {
+        int target = -1;
+    }
+
+    private ExpressionProfiler(String source, Node ast, SourceSpans spans) {
+        this.source = source;
+        this.slots = VariableSlots.forTree(ast);
+        this.root = instrument(ast, spans);
+    }
+
+    /**
+     * Analiza la fuente registrando el tramo de cada nodo.
+     */
+    public static ExpressionProfiler of(String source) {
+        SourceSpans spans = new SourceSpans();
+        Node ast = new Parser(new Lexer(source).tokenize(), NodeFactory.allocating(), spans).parse();
+        return new ExpressionProfiler(source, ast, spans);
+    }
+
+    /**
+     * Perfila un árbol ya construido; el informe usa la forma canónica de
+     * cada nodo en lugar de su texto en la fuente. Los slots se asignan de
+     * nuevo, en orden de primera aparición.
+     */
+    public static ExpressionProfiler of(Node ast) {
+        return new ExpressionProfiler(null, ast, null);
+    }
+
+    public double evaluate(double[] values) {
+        if (!profiled.isEmpty()) {
+            clock.target = (int) (evaluations % profiled.size());
+        }
+        evaluations++;
+        return root.evaluate(values);
+    }
+
+    public double[] newValues() {
+        return new double[slots.size()];
+    }
+
+    public int slotOf(String name) {
+        return slots.indexOf(name);
+    }
+
+    public VariableSlots getSlots() {
+        return slots;
+    }
+
+    public void reset() {
+        evaluations = 0;
+        profiled.forEach(ProfiledNode::reset);
+    }
+
+    public ProfileReport report() {
+        List<NodeProfile> nodes = new ArrayList<>(profiled.size());
+        Map<ProfiledNode, Double> inclusive = new IdentityHashMap<>();
+        for (ProfiledNode node : profiled) {
+            inclusive.put(node, node.estimatedNanos(TIMER_OVERHEAD));
+        }
+        for (ProfiledNode node : profiled) {
+            double total = inclusive.get(node);
+            double self = total;
+            for (ProfiledNode child : node.children) {
+                self -= inclusive.get(child);
+            }
+            nodes.add(new NodeProfile(node.original.toString(), node.span, node.calls, node.sampledCalls,
+                    node.discarded, Math.round(total), Math.max(0, Math.round(self))));
+        }
+        nodes.sort(Comparator.comparingLong(NodeProfile::selfNanos).reversed()
+                .thenComparing(Comparator.comparingLong(NodeProfile::totalNanos).reversed()));
+        long total = root instanceof ProfiledNode p ? Math.round(inclusive.get(p)) : 0;
+        return new ProfileReport(source, nodes, evaluations, total);
+    }
+
+    private Node instrument(Node node, SourceSpans spans) {
+        if (node instanceof VarNode v) {
+            return new VarNode(v.getIdentifier(), slots.indexOf(v.getIdentifier()));
+        }
+        Node copy;
+        List<ProfiledNode> children = new ArrayList<>();
+        if (node instanceof UnaryNode u) {
+            copy = new UnaryNode(child(u.getExpression(), spans, children));
+        } else if (node instanceof BinaryNode b) {
+            Node left = child(b.getLeft(), spans, children);
+            Node right = child(b.getRight(), spans, children);
+            copy = new BinaryNode(b.getOperator(), left, right);
+        } else if (node instanceof FunctionNode f) {
+            Node[] arguments = new Node[f.getArgumentCount()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = child(f.getArgument(i), spans, children);
+            }
+            copy = f.withArguments(arguments);
+        } else {
+            return node;
+        }
+        SourceSpan span = spans != null ? spans.get(node) : null;
+        ProfiledNode wrapped = new ProfiledNode(copy, node, span, List.copyOf(children), clock, profiled.size());
+        profiled.add(wrapped);
+        return wrapped;
+    }
+
+    private Node child(Node node, SourceSpans spans, List<ProfiledNode> children) {
+        Node instrumented = instrument(node, spans);
+        if (instrumented instanceof ProfiledNode p) {
+            children.add(p);
+        }
+        return instrumented;
+    }
+
+    // Mide un nodo que envuelve una constante, cuyo intervalo es solo
+    // reloj; se queda con la ronda más barata, ya compilada
+    private static double calibrate() {
+        Clock clock = new Clock();
+        clock.target = 0;
+        double[] values = new double[0];
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < CALIBRATION_ROUNDS; round++) {
+            ProfiledNode empty = new ProfiledNode(new NumberNode(0), null, null, List.of(), clock, 0);
+            for (int i = 0; i < CALIBRATION_CALLS; i++) {
+                empty.evaluate(values);
+            }
+            best = Math.min(best, (double) empty.sampledNanos / empty.sampledCalls);
+        }
+        return best;
+    }
+}
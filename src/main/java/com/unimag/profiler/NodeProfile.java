@@ -0,0 +1,27 @@
+package com.unimag.profiler;
+
+import com.unimag.parser.SourceSpan;
+
+/**
+ * Costo de una subexpresión en un perfil (ver ExpressionProfiler).
+ *
+ * @param expression forma canónica de la subexpresión (ver Node.toString)
+ * @param span       tramo de la fuente, o null si el árbol no vino de un
+ *                   análisis con SourceSpans
+ * @param calls      evaluaciones del nodo
+ * @param samples    evaluaciones en las que se midió su tiempo
+ * @param discarded  mediciones descartadas por ser pausas ajenas
+ * @param totalNanos tiempo estimado del nodo y todo su subárbol
+ * @param selfNanos  tiempo estimado del nodo y sus hojas, sin los nodos
+ *                   internos de abajo, que tienen su propia entrada
+ */
+public record NodeProfile(String expression, SourceSpan span, long calls, long samples, long discarded, long totalNanos, long selfNanos) {
+
+    /**
+     * Texto de la subexpresión en la fuente, o su forma canónica si no hay
+     * tramo.
+     */
+    public String text(CharSequence source) {
+        return span != null && source != null ? span.text(source) : expression;
+    }
+}
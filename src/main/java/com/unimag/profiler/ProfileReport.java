@@ -0,0 +1,55 @@
+package com.unimag.profiler;
+
+import java.util.List;
+
+/**
+ * Resultado de un perfil: las subexpresiones internas ordenadas de mayor a
+ * menor tiempo propio (selfNanos), que es el que se ahorra al reescribir o
+ * precalcular ese nodo sin tocar sus hijos.
+ *
+ * @param source      fuente analizada, o null si se perfiló un árbol
+ * @param evaluations evaluaciones completas de la expresión
+ * @param totalNanos  tiempo estimado de todas ellas (el total de la raíz)
+ */
+public record ProfileReport(String source, List<NodeProfile> nodes, long evaluations, long totalNanos) {
+
+    private static final int DEFAULT_ROWS = 10;
+    private static final int MAX_TEXT = 60;
+
+    public ProfileReport {
+        nodes = List.copyOf(nodes);
+    }
+
+    public List<NodeProfile> top(int count) {
+        return nodes.subList(0, Math.min(count, nodes.size()));
+    }
+
+    /**
+     * Fracción del tiempo total que corresponde a nanos.
+     */
+    public double share(long nanos) {
+        return totalNanos == 0 ? 0.0 : (double) nanos / totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Perfil: %d evaluaciones, %.3f ms en total, %d subexpresiones%n".formatted(
+                evaluations, totalNanos / 1e6, nodes.size()));
+        sb.append("  %propio  %total  llamadas  ns/llamada  posición      subexpresión\n");
+        for (NodeProfile node : top(DEFAULT_ROWS)) {
+            String text = node.text(source);
+            if (text.length() > MAX_TEXT) {
+                text = text.substring(0, MAX_TEXT - 3) + "...";
+            }
+            sb.append("  %6.1f%%  %5.1f%%  %8d  %10.1f  %-12s  %s%n".formatted(
+                    share(node.selfNanos()) * 100, share(node.totalNanos()) * 100, node.calls(),
+                    node.calls() == 0 ? 0.0 : (double) node.selfNanos() / node.calls(),
+                    node.span() != null ? node.span() : "-", text));
+        }
+        if (nodes.size() > DEFAULT_ROWS) {
+            sb.append("  ... y %d subexpresiones más%n".formatted(nodes.size() - DEFAULT_ROWS));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.unimag.profiler;
+
+import com.unimag.parser.SourceSpan;
+import com.unimag.parser.astNodes.Node;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Envoltorio de un nodo interno que cuenta sus evaluaciones y mide su
+ * tiempo cuando el perfilador lo elige (ver ExpressionProfiler). delegate
+ * es una copia del nodo original cuyos hijos internos también están
+ * envueltos, así que lo medido es inclusivo: el nodo y todo su subárbol.
+ *
+ * Una medición mucho mayor que la más rápida del nodo se descarta: en una
+ * evaluación sin saltos dependientes de los datos casi siempre es una
+ * pausa ajena (GC, compilación, el planificador) y en un promedio pesaría
+ * como miles de mediciones normales.
+ *
+ * Los contadores son campos simples: no es seguro entre hilos.
+ */
+final class ProfiledNode extends Node {
+    private static final long OUTLIER_FACTOR = 32;
+    private static final long OUTLIER_SLACK_NANOS = 1_000;
+
+    final Node delegate;
+    final Node original;
+    final SourceSpan span;
+    final List<ProfiledNode> children;
+    private final ExpressionProfiler.Clock clock;
+    private final int id;
+
+    long calls;
+    long sampledCalls;
+    long sampledNanos;
+    long discarded;
+    private long fastest = Long.MAX_VALUE;
+
+    ProfiledNode(Node delegate, Node original, SourceSpan span, List<ProfiledNode> children,
+                 ExpressionProfiler.Clock clock, int id) {
+        this.delegate = delegate;
+        this.original = original;
+        this.span = span;
+        this.children = children;
+        this.clock = clock;
+        this.id = id;
+    }
+
+    @Override
+    public double evaluate(double[] values) {
+        calls++;
+        if (clock.target != id) {
+            return delegate.evaluate(values);
+        }
+        long start = System.nanoTime();
+        double result = delegate.evaluate(values);
+        long elapsed = System.nanoTime() - start;
+        fastest = Math.min(fastest, elapsed);
+        if (elapsed > fastest * OUTLIER_FACTOR + OUTLIER_SLACK_NANOS) {
+            discarded++;
+        } else {
+            sampledNanos += elapsed;
+            sampledCalls++;
+        }
+        return result;
+    }
+
+    @Override
+    public double evaluate(Map<String, Double> env) throws Exception {
+        return delegate.evaluate(env);
+    }
+
+    /**
+     * Ligar de nuevo descarta el perfilado: devuelve el árbol sin envolver.
+     */
+    @Override
+    public Node bind(Map<String, Integer> slots) {
+        return delegate.bind(slots);
+    }
+
+    @Override
+    public void collectVariables(Set<String> vars) {
+        delegate.collectVariables(vars);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    void reset() {
+        calls = 0;
+        sampledCalls = 0;
+        sampledNanos = 0;
+        discarded = 0;
+        fastest = Long.MAX_VALUE;
+    }
+
+    /**
+     * Tiempo total estimado: el promedio de lo medido por todas las
+     * llamadas, menos lo que agrega el propio reloj en cada medición.
+     */
+    double estimatedNanos(double timerOverhead) {
+        if (sampledCalls == 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, (double) sampledNanos / sampledCalls - timerOverhead) * calls;
+    }
+}
@@ -0,0 +1,142 @@
+package com.unimag.vm;
+
+import com.unimag.eval.BoundExpression;
+import com.unimag.metrics.CompileEvent;
+import com.unimag.parser.astNodes.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.unimag.vm.Opcodes.*;
+
+/**
+ * Aplana un AST ligado en un Program postfijo (recorrido post-orden).
+ * Las constantes repetidas comparten una entrada del pool.
+ *
+ * Si el árbol es un DAG (ver NodeFactory), cada nodo compartido se calcula
+ * una sola vez: su primera aparición termina con STORE_TEMP y las demás se
+ * reducen a un LOAD_TEMP.
+ */
+public final class Linearizer {
+    private int[] code = new int[16];
+    private int length = 0;
+    private double[] constants = new double[8];
+    private int constantCount = 0;
+    private final Map<Long, Integer> constantIndex = new HashMap<>();
+    private int depth = 0;
+    private int maxDepth = 0;
+    private int slotCount = 0;
+    private Set<Node> shared = Set.of();
+    private final Map<Node, Integer> temps = new IdentityHashMap<>();
+
+    private Linearizer() {
+    }
+
+    public static Program linearize(BoundExpression expression) {
+        Linearizer linearizer = new Linearizer();
+        linearizer.slotCount = expression.getSlots().size();
+        return linearizer.run(expression.getRoot());
+    }
+
+    /**
+     * Linealiza un árbol ya ligado (todas sus variables deben tener slot).
+     */
+    public static Program linearize(Node boundAst) {
+        return new Linearizer().run(boundAst);
+    }
+
+    private Program run(Node ast) {
+        CompileEvent event = new CompileEvent();
+        event.begin();
+        shared = NodeFactory.findShared(ast);
+        visit(ast);
+        Program program = new Program(Arrays.copyOf(code, length), Arrays.copyOf(constants, constantCount),
+                maxDepth, slotCount, temps.size());
+        event.finish("pila", ast, program.length());
+        return program;
+    }
+
+    private void visit(Node node) {
+        if (!shared.contains(node)) {
+            visitNode(node);
+            return;
+        }
+        Integer temp = temps.get(node);
+        if (temp != null) {
+            emit(LOAD_TEMP, temp);
+            return;
+        }
+        visitNode(node);
+        temp = temps.size();
+        temps.put(node, temp);
+        emit(STORE_TEMP, temp);
+    }
+
+    private void visitNode(Node node) {
+        if (node instanceof NumberNode n) {
+            emit(CONST, constant(n.getValue()));
+        } else if (node instanceof VarNode v) {
+            if (!v.isBound()) {
+                throw new IllegalArgumentException(
+                    String.format("Error de linealización: variable '%s' no está ligada a un slot", v.getIdentifier())
+                );
+            }
+            slotCount = Math.max(slotCount, v.getSlot() + 1);
+            emit(LOAD, v.getSlot());
+        } else if (node instanceof UnaryNode u) {
+            visit(u.getExpression());
+            emit(NEG, 0);
+        } else if (node instanceof BinaryNode b) {
+            visit(b.getLeft());
+            visit(b.getRight());
+            emit(switch (b.getOperator()) {
+                case '+' -> ADD;
+                case '-' -> SUB;
+                case '*' -> MUL;
+                case '/' -> DIV;
+                case '^' -> POW;
+                default -> throw new IllegalArgumentException(
+                    String.format("Operador desconocido: '%c'", b.getOperator())
+                );
+            }, 0);
+        } else if (node instanceof FunctionNode f) {
+            for (int i = 0; i < f.getArgumentCount(); i++) {
+                visit(f.getArgument(i));
+            }
+            emit(f.getArgumentCount() == 1 ? CALL1 : CALL2,
+                    callOperand(f.getFunction().code(), f.getPrecision().code()));
+        } else {
+            throw new IllegalArgumentException("Nodo no soportado: " + node.getClass().getSimpleName());
+        }
+    }
+
+    private void emit(int opcode, int operand) {
+        if (operand > MAX_OPERAND) {
+            throw new IllegalStateException("Operando fuera de rango: " + operand);
+        }
+        if (length == code.length) {
+            code = Arrays.copyOf(code, length * 2);
+        }
+        code[length++] = encode(opcode, operand);
+        depth += Program.stackEffect(opcode);
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private int constant(double value) {
+        // Se indexa por bits para distinguir 0.0 de -0.0
+        Long key = Double.doubleToRawLongBits(value);
+        Integer index = constantIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        constantIndex.put(key, constantCount);
+        return constantCount++;
+    }
+}
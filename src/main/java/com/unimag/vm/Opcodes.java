@@ -0,0 +1,63 @@
+package com.unimag.vm;
+
+/**
+ * Códigos de operación de la máquina de pila.
+ *
+ * Cada instrucción es un int: el opcode en los 8 bits bajos y el operando
+ * (índice de constante, de slot, de función o de temporal) en los 24 bits
+ * altos. Los temporales guardan subexpresiones compartidas de un DAG.
+ */
+public final class Opcodes {
+    public static final int CONST = 0;   // apila constants[operando]
+    public static final int LOAD = 1;    // apila vars[operando]
+    public static final int ADD = 2;
+    public static final int SUB = 3;
+    public static final int MUL = 4;
+    public static final int DIV = 5;
+    public static final int POW = 6;
+    public static final int NEG = 7;
+    public static final int CALL1 = 8;   // aplica una función a la cima
+    public static final int CALL2 = 9;   // aplica una función a las dos de la cima
+    public static final int STORE_TEMP = 10; // copia la cima en temps[operando], sin desapilar
+    public static final int LOAD_TEMP = 11;  // apila temps[operando]
+
+    static final int COUNT = 12;
+
+    public static final int OPCODE_MASK = 0xFF;
+    public static final int OPERAND_SHIFT = 8;
+    public static final int MAX_OPERAND = (1 << 24) - 1;
+
+    // Operando de CALL1/CALL2: código estable de MathFunction en los 8 bits
+    // bajos y código de TrigPrecision a continuación (nunca ordinales: se
+    // serializan con el programa)
+    public static final int FUNCTION_MASK = 0xFF;
+    public static final int PRECISION_SHIFT = 8;
+
+    private static final String[] NAMES = {
+            "CONST", "LOAD", "ADD", "SUB", "MUL", "DIV", "POW", "NEG", "CALL1", "CALL2",
+            "STORE_TEMP", "LOAD_TEMP"
+    };
+
+    private Opcodes() {
+    }
+
+    public static int encode(int opcode, int operand) {
+        return opcode | (operand << OPERAND_SHIFT);
+    }
+
+    public static int opcode(int instruction) {
+        return instruction & OPCODE_MASK;
+    }
+
+    public static int operand(int instruction) {
+        return instruction >>> OPERAND_SHIFT;
+    }
+
+    public static int callOperand(int function, int precision) {
+        return function | (precision << PRECISION_SHIFT);
+    }
+
+    public static String name(int opcode) {
+        return opcode < NAMES.length ? NAMES[opcode] : "?" + opcode;
+    }
+}
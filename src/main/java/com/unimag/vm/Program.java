@@ -0,0 +1,279 @@
+package com.unimag.vm;
+
+import com.unimag.functions.MathFunction;
+import com.unimag.functions.TrigPrecision;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.unimag.vm.Opcodes.*;
+
+/**
+ * Expresión linealizada en postfijo: arreglo compacto de instrucciones más
+ * pool de constantes. Es inmutable y puede compartirse entre hilos; cada
+ * hilo aporta su propia pila (newStack()).
+ */
+public final class Program {
+    private static final int MAGIC = 0x54455850; // "TEXP"
+    private static final int VERSION = 5;
+
+    private final int[] code;
+    private final double[] constants;
+    private final int maxStack;
+    private final int slotCount;
+    private final int tempCount;
+
+    Program(int[] code, double[] constants, int maxStack, int slotCount, int tempCount) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.slotCount = slotCount;
+        this.tempCount = tempCount;
+    }
+
+    /**
+     * Intérprete: un solo bucle sobre el arreglo de instrucciones, sin
+     * llamadas virtuales. stack debe venir de newStack(): los temporales
+     * ocupan las posiciones que siguen a las maxStack() de la pila.
+     */
+    public double evaluate(double[] vars, double[] stack) {
+        final int[] code = this.code;
+        final double[] constants = this.constants;
+        final int temps = this.maxStack;
+        int sp = -1;
+
+        for (int pc = 0; pc < code.length; pc++) {
+            int instruction = code[pc];
+            switch (instruction & OPCODE_MASK) {
+                case CONST -> stack[++sp] = constants[instruction >>> OPERAND_SHIFT];
+                case LOAD -> stack[++sp] = vars[instruction >>> OPERAND_SHIFT];
+                case ADD -> {
+                    stack[sp - 1] += stack[sp];
+                    sp--;
+                }
+                case SUB -> {
+                    stack[sp - 1] -= stack[sp];
+                    sp--;
+                }
+                case MUL -> {
+                    stack[sp - 1] *= stack[sp];
+                    sp--;
+                }
+                case DIV -> {
+                    double r = stack[sp--];
+                    if (r == 0) {
+                        throw new ArithmeticException(
+                            "Error de ejecución: división por cero"
+                        );
+                    }
+                    stack[sp] /= r;
+                }
+                case POW -> {
+                    double r = stack[sp--];
+                    stack[sp] = Math.pow(stack[sp], r);
+                }
+                case NEG -> stack[sp] = -stack[sp];
+                case CALL1 -> {
+                    int operand = instruction >>> OPERAND_SHIFT;
+                    stack[sp] = precision(operand).apply(function(operand), stack[sp]);
+                }
+                case CALL2 -> {
+                    int operand = instruction >>> OPERAND_SHIFT;
+                    double r = stack[sp--];
+                    stack[sp] = precision(operand).apply(function(operand), stack[sp], r);
+                }
+                case STORE_TEMP -> stack[temps + (instruction >>> OPERAND_SHIFT)] = stack[sp];
+                case LOAD_TEMP -> stack[++sp] = stack[temps + (instruction >>> OPERAND_SHIFT)];
+                default -> throw new IllegalStateException(
+                    String.format("Opcode desconocido %d en posición %d", instruction & OPCODE_MASK, pc)
+                );
+            }
+        }
+
+        return stack[sp];
+    }
+
+    /**
+     * Conveniencia para llamadas aisladas; reserva una pila nueva.
+     */
+    public double evaluate(double[] vars) {
+        return evaluate(vars, newStack());
+    }
+
+    public double[] newStack() {
+        return new double[maxStack + tempCount];
+    }
+
+    public int maxStack() {
+        return maxStack;
+    }
+
+    /**
+     * Número de subexpresiones compartidas que el programa guarda y reutiliza.
+     */
+    public int tempCount() {
+        return tempCount;
+    }
+
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public int length() {
+        return code.length;
+    }
+
+    public int instruction(int index) {
+        return code[index];
+    }
+
+    public double constant(int index) {
+        return constants[index];
+    }
+
+    public int constantCount() {
+        return constants.length;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(maxStack);
+        out.writeInt(slotCount);
+        out.writeInt(tempCount);
+        out.writeInt(constants.length);
+        for (double constant : constants) {
+            out.writeDouble(constant);
+        }
+        out.writeInt(code.length);
+        for (int instruction : code) {
+            out.writeInt(instruction);
+        }
+    }
+
+    /**
+     * Lee un programa escrito con write(), validando opcodes y operandos
+     * para que la entrada corrupta falle aquí y no durante la evaluación.
+     */
+    public static Program read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Formato inválido: no es un programa serializado");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException(String.format("Versión de programa no soportada: %d", version));
+        }
+        int maxStack = in.readInt();
+        int slotCount = in.readInt();
+        int tempCount = checkedLength(in.readInt());
+        double[] constants = new double[checkedLength(in.readInt())];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = in.readDouble();
+        }
+        int[] code = new int[checkedLength(in.readInt())];
+        int depth = 0;
+        int maxDepth = 0;
+        int storedTemps = 0;
+        for (int i = 0; i < code.length; i++) {
+            int instruction = in.readInt();
+            int opcode = opcode(instruction);
+            int operand = operand(instruction);
+            if (opcode >= Opcodes.COUNT
+                    || (opcode == CONST && operand >= constants.length)
+                    || (opcode == LOAD && operand >= slotCount)
+                    || (opcode == CALL1 || opcode == CALL2) && !isCallable(opcode, operand)
+                    // Los temporales se guardan en orden y solo se leen ya guardados
+                    || (opcode == STORE_TEMP && operand != storedTemps++)
+                    || (opcode == LOAD_TEMP && operand >= storedTemps)) {
+                throw new IOException(String.format("Instrucción inválida en posición %d", i));
+            }
+            depth += stackEffect(opcode);
+            if (depth < 1) {
+                throw new IOException(String.format("Pila vacía en posición %d", i));
+            }
+            maxDepth = Math.max(maxDepth, depth);
+            code[i] = instruction;
+        }
+        if (depth != 1 || maxDepth > maxStack) {
+            throw new IOException("Programa inconsistente: profundidad de pila inválida");
+        }
+        if (storedTemps != tempCount) {
+            throw new IOException("Programa inconsistente: número de temporales inválido");
+        }
+        return new Program(code, constants, maxStack, slotCount, tempCount);
+    }
+
+    private static boolean isCallable(int opcode, int operand) {
+        MathFunction function = function(operand);
+        return function != null
+                && precision(operand) != null
+                && function.arity() == (opcode == CALL1 ? 1 : 2);
+    }
+
+    /**
+     * Función codificada en el operando de CALL1/CALL2 (null si el código
+     * no está asignado; read() ya rechaza esos programas).
+     */
+    public static MathFunction function(int operand) {
+        return MathFunction.fromCode(operand & FUNCTION_MASK);
+    }
+
+    public static TrigPrecision precision(int operand) {
+        return TrigPrecision.fromCode(operand >>> PRECISION_SHIFT);
+    }
+
+    static int stackEffect(int opcode) {
+        return switch (opcode) {
+            case CONST, LOAD, LOAD_TEMP -> 1;
+            case ADD, SUB, MUL, DIV, POW, CALL2 -> -1;
+            default -> 0;
+        };
+    }
+
+    private static int checkedLength(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Longitud negativa en programa serializado");
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc++) {
+            int opcode = opcode(code[pc]);
+            sb.append(String.format("%4d  %s", pc, name(opcode)));
+            if (opcode == CONST) {
+                sb.append(' ').append(constants[operand(code[pc])]);
+            } else if (opcode == LOAD) {
+                sb.append(" #").append(operand(code[pc]));
+            } else if (opcode == STORE_TEMP || opcode == LOAD_TEMP) {
+                sb.append(" t").append(operand(code[pc]));
+            } else if (opcode == CALL1 || opcode == CALL2) {
+                int operand = operand(code[pc]);
+                sb.append(' ').append(function(operand).symbol());
+                if (precision(operand) != TrigPrecision.DEFAULT) {
+                    sb.append(' ').append(precision(operand));
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Program other)) {
+            return false;
+        }
+        return maxStack == other.maxStack && slotCount == other.slotCount && tempCount == other.tempCount
+                && Arrays.equals(code, other.code) && Arrays.equals(constants, other.constants);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(code) + Arrays.hashCode(constants);
+    }
+}